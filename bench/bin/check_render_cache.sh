@@ -0,0 +1,102 @@
+#!/bin/bash
+
+# checks the render cache of bin/erwiz with the fake graphviz in this directory.
+# the jar has to be built before (ant jar). exits with 1 if a check fails.
+
+BENCH_BIN=`cd \`dirname $0\` && pwd`
+ERWIZ="${BENCH_BIN}/../../bin/erwiz"
+INPUT="${BENCH_BIN}/../../examples/example1.txt"
+
+WORK_DIR=`mktemp -d` || exit 1
+trap 'rm -rf "${WORK_DIR}"' EXIT
+
+export PATH="${BENCH_BIN}:${PATH}"
+export ERWIZ_CACHE_DIR="${WORK_DIR}/cache"
+export FAKE_DOT_LOG="${WORK_DIR}/dot.log"
+unset ERWIZ_CACHE_SIZE FAKE_DOT_VERSION FAKE_DOT_MODE
+
+FAILURES=0
+
+# check <description> <command...>
+check ()
+{
+	DESCRIPTION="$1"
+	shift
+	if "$@"
+	then
+		echo "ok    ${DESCRIPTION}"
+	else
+		echo "FAIL  ${DESCRIPTION}"
+		FAILURES=$((${FAILURES}+1))
+	fi
+}
+
+# stat_is <label of --cache-stats> <value>
+stat_is ()
+{
+	[ "`${ERWIZ} --cache-stats | grep "^$1 *:" | cut -d: -f2 | tr -d ' '`" = "$2" ]
+}
+
+# cached_files <pattern>
+cached_files ()
+{
+	ls "${ERWIZ_CACHE_DIR}/entries" | grep -c "$1"
+}
+
+# the number of the renderings (not -V) by the fake graphviz
+render_count ()
+{
+	grep -vc ' -V$' "${FAKE_DOT_LOG}"
+}
+
+# the rendered image is "<type>" and the dot text
+image_is ()
+{
+	[ "`head -1 "$1"`" = "$2" ] && tail -n +2 "$1" | cmp -s - "${ERWIZ_CACHE_DIR}"/entries/*.dot
+}
+
+
+"${ERWIZ}" "${INPUT}" "${WORK_DIR}/a.png"
+check "the first rendering is a miss" stat_is "Misses" 1
+check "the dot file and the image are cached" [ `cached_files '\.dot$'` -eq 1 -a `cached_files '\.png$'` -eq 1 ]
+check "the cached dot file is the rendered dot text" image_is "${WORK_DIR}/a.png" png
+check "no temporary files are left" [ `cached_files '^tmp\.'` -eq 0 ]
+
+RENDER_COUNT=`render_count`
+"${ERWIZ}" "${INPUT}" "${WORK_DIR}/b.png"
+check "the same rendering is a hit" stat_is "Hits" 1
+check "the hit is the same image" cmp -s "${WORK_DIR}/a.png" "${WORK_DIR}/b.png"
+check "the hit doesn't run graphviz" [ `render_count` -eq ${RENDER_COUNT} ]
+
+"${ERWIZ}" "${INPUT}" "${WORK_DIR}/c.svg"
+check "another output type is a dot-only hit" stat_is "Hits (dot only)" 1
+check "the dot-only hit renders the cached dot file" image_is "${WORK_DIR}/c.svg" svg
+
+FAKE_DOT_VERSION=2.0 "${ERWIZ}" "${INPUT}" "${WORK_DIR}/d.png"
+check "another version of graphviz is a dot-only hit" stat_is "Hits (dot only)" 2
+
+ln -s "${BENCH_BIN}/dot" "${WORK_DIR}/dot-other"
+"${ERWIZ}" -g "${WORK_DIR}/dot-other" "${INPUT}" "${WORK_DIR}/e.png"
+check "another option is a miss" stat_is "Misses" 2
+check "the version of the -g command is used" grep -q '^dot-other -V$' "${FAKE_DOT_LOG}"
+
+"${ERWIZ}" -g "${WORK_DIR}/dot-other" "${INPUT}" "${WORK_DIR}/f.svg"
+check "the -g command renders the dot-only hit" \
+	[ "`tail -1 "${FAKE_DOT_LOG}" | cut -d' ' -f1-2`" = "dot-other -Tsvg" ]
+
+echo "[Broken]" > "${WORK_DIR}/broken.txt"
+FAKE_DOT_MODE=fail "${ERWIZ}" "${WORK_DIR}/broken.txt" "${WORK_DIR}/g.png" 2> /dev/null
+check "the failed rendering isn't counted" stat_is "Misses" 2
+check "the failed rendering leaves no files" [ `cached_files '^tmp\.'` -eq 0 -a ! -s "${WORK_DIR}/g.png" ]
+
+"${ERWIZ}" --cache-clear
+check "the cache is cleared" stat_is "Files" 0
+
+
+if [ ${FAILURES} -gt 0 ]
+then
+	echo "${FAILURES} check(s) failed."
+	exit 1
+fi
+echo "all checks passed."
+exit 0
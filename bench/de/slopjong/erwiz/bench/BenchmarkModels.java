@@ -0,0 +1,94 @@
+package de.slopjong.erwiz.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import de.slopjong.erwiz.common.IoUtils;
+
+/**
+ * This class creates the model text which is used by the benchmarks.
+ * 
+ * The text has the specified number of entities (3 to 12 attributes with options,
+ * some of them are foreign keys) and the same number of relationships 
+ * between random entities. The random numbers have a fixed seed,
+ * so the same text is created every time.
+ * With 30000 entities, the text has about 315000 lines.
+ * 
+ * This class is package private, and is used by the benchmarks in this package.
+ * 
+ * @author kono
+ * @version 1.0
+ */
+final class BenchmarkModels {
+	
+	/** the default number of entities */
+	static final int DEFAULT_ENTITY_COUNT = 30000;
+	
+	private static final long SEED = 20111024L;
+	
+	/**
+	 * Any instance of this class doesn't created.
+	 */
+	private BenchmarkModels() {
+	}
+	
+	/**
+	 * Creates the model text.
+	 * 
+	 * @param entityCount the number of entities (and relationships)
+	 * @return the model text
+	 */
+	static String createText(int entityCount) {
+		return createText(entityCount, entityCount);
+	}
+	
+	/**
+	 * Creates the model text which has the specified number of relationships.
+	 * 
+	 * @param entityCount the number of entities
+	 * @param relationshipCount the number of relationships
+	 * @return the model text
+	 */
+	static String createText(int entityCount, int relationshipCount) {
+		final Random random = new Random(SEED);
+		final StringBuilder sb = new StringBuilder();
+		
+		sb.append("{title: benchmark}\n");
+		for (int i = 0; i < entityCount; i++) {
+			sb.append("[E").append(i).append("] {color: red}\n");
+			
+			final int attrCount = 3 + random.nextInt(10);
+			for (int j = 0; j < attrCount; j++) {
+				sb.append((j == 0) ? "  *" : "   ").append("Col ").append(j);
+				if (j > 0 && j % 4 == 3) {
+					sb.append('*');
+				}
+				sb.append(" {label: \"c").append(j).append("\"}\n");
+			}
+			sb.append('\n');
+		}
+		
+		for (int i = 0; i < relationshipCount; i++) {
+			sb.append("[E").append(random.nextInt(entityCount)).append("] 1--* [E")
+					.append(random.nextInt(entityCount)).append("] <has-> {n1: \"1\"}\n");
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Writes the model text to a temporary file, which is deleted on exit.
+	 * 
+	 * @param entityCount the number of entities (and relationships)
+	 * @return the temporary file
+	 * @throws IOException
+	 */
+	static File createTempFile(int entityCount) throws IOException {
+		final File file = File.createTempFile("erwiz-bench", ".txt");
+		file.deleteOnExit();
+		IoUtils.writeFileText(file, createText(entityCount));
+		return file;
+	}
+	
+}
@@ -0,0 +1,119 @@
+package de.slopjong.erwiz.bench;
+
+import java.util.Arrays;
+import java.util.List;
+
+import de.slopjong.erwiz.dot.GraphGenerator;
+import de.slopjong.erwiz.model.ColorPair;
+import de.slopjong.erwiz.model.ErdNotation;
+import de.slopjong.erwiz.model.Model;
+import de.slopjong.erwiz.plain.ModelParser;
+
+/**
+ * This is the benchmark of generating the dot text.
+ * 
+ * The dot text of the model of {@code BenchmarkModels} is generated in the current thread
+ * several times and discarded. The best time and the least bytes allocated by the thread
+ * are printed per entity line and per relationship line. The cost of a relationship line
+ * is the difference between the model with relationships and the model without them.
+ * 
+ * Usage: {@code GenerationBenchmark [<notation> [<entities> [<runs>]]]}
+ * (the defaults are idef1x, 30000 entities and 6 runs.)
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.bench.BenchmarkModels
+ */
+public final class GenerationBenchmark {
+	
+	private static final int DEFAULT_RUNS = 6;
+	
+	/**
+	 * Any instance of this class doesn't created.
+	 */
+	private GenerationBenchmark() {
+	}
+	
+	/**
+	 * Main method of this benchmark.
+	 * 
+	 * @param args the notation, the number of entities and the number of runs (optional)
+	 * @throws Exception if the model can't be parsed or generated
+	 */
+	public static void main(String[] args) throws Exception {
+		final ErdNotation notation = (args.length >= 1) 
+			? ErdNotation.valueOf(args[0].toUpperCase().replace('-', '_')) 
+			: ErdNotation.IDEF1X;
+		final int entityCount = (args.length >= 2) 
+			? Integer.parseInt(args[1]) 
+			: BenchmarkModels.DEFAULT_ENTITY_COUNT;
+		final int runs = (args.length >= 3) ? Integer.parseInt(args[2]) : DEFAULT_RUNS;
+		
+		final Model entityModel = parse(BenchmarkModels.createText(entityCount, 0));
+		final Model fullModel = parse(BenchmarkModels.createText(entityCount, entityCount));
+		
+		final long[] entityCost = measure(entityModel, notation, runs);
+		final long[] fullCost = measure(fullModel, notation, runs);
+		
+		System.out.println("model        : " + entityCount + " entities, " 
+				+ entityCount + " relationships, " + notation);
+		System.out.println("entity       : " + (entityCost[0] / entityCount) + " ns/line, " 
+				+ format(entityCost[1], entityCount));
+		System.out.println("relationship : " + ((fullCost[0] - entityCost[0]) / entityCount) + " ns/line, " 
+				+ format(fullCost[1] - entityCost[1], entityCount));
+	}
+	
+	//the best time and the least allocated bytes of generating the dot text
+	private static long[] measure(Model model, ErdNotation notation, int runs) throws Exception {
+		final boolean allocationSupported = (ParseAllocationBenchmark.getAllocatedBytes() >= 0);
+		long bestNanos = Long.MAX_VALUE;
+		long leastBytes = Long.MAX_VALUE;
+		
+		for (int i = 0; i < runs; i++) {
+			final GraphGenerator generator = new GraphGenerator(model, notation, null, ColorPair.WHITE);
+			final NullAppendable out = new NullAppendable();
+			
+			final long bytes0 = ParseAllocationBenchmark.getAllocatedBytes();
+			final long nanos0 = System.nanoTime();
+			
+			generator.writeTo(out);
+			
+			bestNanos = Math.min(bestNanos, System.nanoTime() - nanos0);
+			leastBytes = Math.min(leastBytes, ParseAllocationBenchmark.getAllocatedBytes() - bytes0);
+		}
+		
+		return new long[] {bestNanos, allocationSupported ? leastBytes : -1};
+	}
+	
+	private static Model parse(String text) throws Exception {
+		final List<String> lines = Arrays.asList(text.split("\n", -1));
+		final ModelParser parser = new ModelParser(lines);
+		final List<Exception> exList = parser.parse();
+		if (!exList.isEmpty()) {
+			throw exList.get(0);
+		}
+		return parser.getModel();
+	}
+	
+	private static String format(long bytes, int count) {
+		return (bytes >= 0) ? (bytes / count) + " bytes/line" : "allocation not supported";
+	}
+	
+	//private class to discard the generated text
+	private static final class NullAppendable implements Appendable {
+		
+		public Appendable append(CharSequence csq) {
+			return this;
+		}
+		
+		public Appendable append(CharSequence csq, int start, int end) {
+			return this;
+		}
+		
+		public Appendable append(char c) {
+			return this;
+		}
+		
+	}
+	
+}
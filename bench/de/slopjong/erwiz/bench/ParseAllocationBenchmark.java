@@ -0,0 +1,129 @@
+package de.slopjong.erwiz.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import de.slopjong.erwiz.common.IoUtils;
+import de.slopjong.erwiz.plain.ModelParser;
+
+/**
+ * This is the benchmark of reading and parsing a model text.
+ * 
+ * The input file is read and parsed in the current thread several times,
+ * and the best time and the least bytes allocated by the thread are printed
+ * per line. Two ways of reading are measured: the baseline reads all lines
+ * into a list before parsing (as {@code Main} did before the lines were streamed),
+ * and the stream reads the lines one by one while parsing (as {@code Main} does now).
+ * The bytes can be measured only on the JVM which supports 
+ * {@code com.sun.management.ThreadMXBean} (for example, HotSpot).
+ * 
+ * Usage: {@code ParseAllocationBenchmark [<input file> [<runs>]]}
+ * (the default input is the text of {@code BenchmarkModels}.)
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.bench.BenchmarkModels
+ */
+public final class ParseAllocationBenchmark {
+	
+	private static final int DEFAULT_RUNS = 6;
+	
+	/**
+	 * Any instance of this class doesn't created.
+	 */
+	private ParseAllocationBenchmark() {
+	}
+	
+	/**
+	 * Main method of this benchmark.
+	 * 
+	 * @param args the input file and the number of runs (optional)
+	 * @throws Exception if the input can't be read or parsed
+	 */
+	public static void main(String[] args) throws Exception {
+		final File file = (args.length >= 1) 
+			? new File(args[0]) 
+			: BenchmarkModels.createTempFile(BenchmarkModels.DEFAULT_ENTITY_COUNT);
+		final int runs = (args.length >= 2) ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+		
+		final int lineCount = countLines(file);
+		System.out.println("input : " + file.getPath() + " (" + lineCount + " lines, "
+				+ runs + " runs, best time and least allocation of the runs)");
+		
+		measure("baseline (all lines in a list)", file, false, runs, lineCount);
+		measure("stream (line by line)", file, true, runs, lineCount);
+	}
+	
+	//read and parse the file several times, and print the time and the bytes per line
+	private static void measure(String name, File file, boolean streamed, int runs, int lineCount) 
+			throws Exception {
+		final boolean allocationSupported = (getAllocatedBytes() >= 0);
+		long bestNanos = Long.MAX_VALUE;
+		long leastBytes = Long.MAX_VALUE;
+		
+		for (int i = 0; i < runs; i++) {
+			final long bytes0 = getAllocatedBytes();
+			final long nanos0 = System.nanoTime();
+			
+			parse(file, streamed);
+			
+			bestNanos = Math.min(bestNanos, System.nanoTime() - nanos0);
+			leastBytes = Math.min(leastBytes, getAllocatedBytes() - bytes0);
+		}
+		
+		System.out.println(name + " :");
+		System.out.println("  time       : " + (bestNanos / lineCount) + " ns/line");
+		if (allocationSupported) {
+			System.out.println("  allocation : " + (leastBytes / lineCount) + " bytes/line");
+		} else {
+			System.out.println("  allocation : not supported by this JVM");
+		}
+	}
+	
+	//read and parse the file (the parser reads the lines from the file, or from the list of all lines)
+	private static void parse(File file, boolean streamed) throws Exception {
+		final List<Exception> exList;
+		if (streamed) {
+			final BufferedReader reader = IoUtils.openFileReader(file);
+			try {
+				exList = new ModelParser(reader).parse();
+			} finally {
+				reader.close();
+			}
+		} else {
+			exList = new ModelParser(IoUtils.readFileLines(file)).parse();
+		}
+		if (!exList.isEmpty()) {
+			throw exList.get(0);
+		}
+	}
+	
+	//the bytes allocated by the current thread (-1 if not supported)
+	static long getAllocatedBytes() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+			if (sunBean.isThreadAllocatedMemorySupported()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+	
+	private static int countLines(File file) throws Exception {
+		final BufferedReader reader = IoUtils.openFileReader(file);
+		try {
+			int count = 0;
+			while (reader.readLine() != null) {
+				count++;
+			}
+			return Math.max(count, 1);
+		} finally {
+			reader.close();
+		}
+	}
+	
+}
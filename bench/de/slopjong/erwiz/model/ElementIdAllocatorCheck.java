@@ -0,0 +1,219 @@
+package de.slopjong.erwiz.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import de.slopjong.erwiz.plain.ModelParser;
+
+/**
+ * This is the check of the ids which are allocated by {@code ElementIdAllocator}.
+ * 
+ * The check is a program like the benchmarks, and is in the package of the allocator 
+ * to call it directly. The following are checked:
+ * 
+ * <ul>
+ *   <li>The ids of the entities and the relationships don't change when an entity
+ *       and a relationship are inserted before them.
+ *   <li>The names whose hashes collide get the same ids in any order of the entities,
+ *       and the name which is the first in the order of the names gets the hash.
+ * </ul>
+ * 
+ * The colliding names are found by a birthday search over generated names.
+ * The exit status is 1 if a check fails.
+ * 
+ * Usage: {@code ElementIdAllocatorCheck}
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.ElementIdAllocator
+ */
+public final class ElementIdAllocatorCheck {
+	
+	private static final int ENTITY_COUNT = 2000;
+	private static final int SEARCH_LIMIT = 1000000;
+	private static final int SHUFFLE_COUNT = 20;
+	
+	private static int failureCount = 0;
+	
+	/**
+	 * Any instance of this class doesn't created.
+	 */
+	private ElementIdAllocatorCheck() {
+	}
+	
+	/**
+	 * Main method of this check.
+	 * 
+	 * @param args not used
+	 * @throws Exception if the model can't be parsed
+	 */
+	public static void main(String[] args) throws Exception {
+		checkInsertion();
+		checkCollision();
+		
+		if (failureCount > 0) {
+			System.out.println(failureCount + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("all checks passed");
+	}
+	
+	//the ids of the existing elements are kept when an entity and a relationship are inserted
+	private static void checkInsertion() throws Exception {
+		final Model model = parse(createLines(false));
+		final Model insertedModel = parse(createLines(true));
+		
+		final Map<String, String> entityIds = getEntityIds(model);
+		final Map<String, String> insertedEntityIds = getEntityIds(insertedModel);
+		int changedCount = 0;
+		for (Map.Entry<String, String> entry : entityIds.entrySet()) {
+			if (!entry.getValue().equals(insertedEntityIds.get(entry.getKey()))) {
+				changedCount++;
+			}
+		}
+		report("entity ids after an insertion", changedCount == 0, changedCount + " changed");
+		
+		final Map<String, String> relIds = getRelationshipIds(model);
+		final Map<String, String> insertedRelIds = getRelationshipIds(insertedModel);
+		changedCount = 0;
+		for (Map.Entry<String, String> entry : relIds.entrySet()) {
+			if (!entry.getValue().equals(insertedRelIds.get(entry.getKey()))) {
+				changedCount++;
+			}
+		}
+		report("relationship ids after an insertion", changedCount == 0, changedCount + " changed");
+	}
+	
+	//the colliding names are resolved in the order of the names, not in the order of the entities
+	private static void checkCollision() {
+		final String[] pair = findCollision();
+		if (pair == null) {
+			report("colliding names", false, "not found in " + SEARCH_LIMIT + " names");
+			return;
+		}
+		final String first = (pair[0].compareTo(pair[1]) < 0) ? pair[0] : pair[1];
+		final String second = (first == pair[0]) ? pair[1] : pair[0];
+		final int hash = ElementIdAllocator.allocateEntityIds(new String[] {first})[0];
+		
+		final int[] ids = ElementIdAllocator.allocateEntityIds(new String[] {second, first});
+		final int[] reversedIds = ElementIdAllocator.allocateEntityIds(new String[] {first, second});
+		report("colliding names " + Arrays.toString(pair), 
+				ids[1] == hash && ids[0] != hash && reversedIds[0] == ids[1] && reversedIds[1] == ids[0],
+				"the ids depend on the order");
+				
+		//the colliding names among other entities in several orders
+		final List<String> names = new ArrayList<String>();
+		for (int i = 0; i < ENTITY_COUNT; i++) {
+			names.add("E" + i);
+		}
+		names.add(first);
+		names.add(second);
+		
+		final Random random = new Random(1);
+		Map<String, String> expectedIds = null;
+		boolean same = true;
+		for (int i = 0; i < SHUFFLE_COUNT; i++) {
+			Collections.shuffle(names, random);
+			final Map<String, String> entityIds = getEntityIds(createModel(names));
+			if (expectedIds == null) {
+				expectedIds = entityIds;
+			}
+			same &= entityIds.equals(expectedIds) 
+				&& new HashSet<String>(entityIds.values()).size() == names.size();
+		}
+		report("colliding names in shuffled models", same, "the ids depend on the order");
+	}
+	
+	//find two names whose hashes collide
+	private static String[] findCollision() {
+		final Map<Integer, String> hashMap = new HashMap<Integer, String>();
+		for (int i = 0; i < SEARCH_LIMIT; i++) {
+			final String name = "entity" + i;
+			final int hash = ElementIdAllocator.allocateEntityIds(new String[] {name})[0];
+			final String other = hashMap.put(hash, name);
+			if (other != null) {
+				return new String[] {other, name};
+			}
+		}
+		return null;
+	}
+	
+	//the lines of a model, in which an entity and a relationship are inserted at the beginning
+	private static List<String> createLines(boolean inserted) {
+		final List<String> lines = new ArrayList<String>();
+		if (inserted) {
+			lines.add("[Inserted]");
+			lines.add(" *id");
+		}
+		for (int i = 0; i < ENTITY_COUNT; i++) {
+			lines.add("[E" + i + "]");
+			lines.add(" *id");
+		}
+		if (inserted) {
+			lines.add("[Inserted] 1--* [E1]");
+		}
+		for (int i = 0; i + 1 < ENTITY_COUNT; i++) {
+			lines.add("[E" + i + "] 1--* [E" + (i + 1) + "]");
+			lines.add("[E" + i + "] 1--* [E" + (i + 1) + "]"); //the second relationship between them
+		}
+		return lines;
+	}
+	
+	private static Model parse(List<String> lines) throws Exception {
+		final ModelParser parser = new ModelParser(lines);
+		final List<Exception> exList = parser.parse();
+		if (!exList.isEmpty()) {
+			throw exList.get(0);
+		}
+		return parser.getModel();
+	}
+	
+	private static Model createModel(List<String> names) {
+		final List<Entity> entityList = new ArrayList<Entity>();
+		for (String name : names) {
+			entityList.add(new Entity(name, Dependency.INDEPENDENT, 
+					new ArrayList<EntityAttribute>(), new OptionMap()));
+		}
+		return new Model(entityList, null, null);
+	}
+	
+	private static Map<String, String> getEntityIds(Model model) {
+		final Map<String, String> ids = new HashMap<String, String>();
+		for (Entity entity : model.getEntityList()) {
+			ids.put(entity.getName(), entity.getId());
+		}
+		return ids;
+	}
+	
+	//the ids of the relationships by the names of both entities and the ordinal
+	private static Map<String, String> getRelationshipIds(Model model) {
+		final Map<String, String> ids = new HashMap<String, String>();
+		final Set<String> keys = new HashSet<String>();
+		for (Relationship rel : model.getRelationshipList()) {
+			final String endpoints = rel.getNameOfEntity1() + " -- " + rel.getNameOfEntity2();
+			int ordinal = 0;
+			while (!keys.add(endpoints + " #" + ordinal)) {
+				ordinal++;
+			}
+			ids.put(endpoints + " #" + ordinal, rel.getId());
+		}
+		return ids;
+	}
+	
+	private static void report(String name, boolean passed, String detail) {
+		if (passed) {
+			System.out.println("passed: " + name);
+		} else {
+			failureCount++;
+			System.out.println("FAILED: " + name + " (" + detail + ")");
+		}
+	}
+	
+}
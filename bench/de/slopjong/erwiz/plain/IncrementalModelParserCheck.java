@@ -0,0 +1,257 @@
+package de.slopjong.erwiz.plain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This is the check of {@code IncrementalModelParser} against {@code ModelParser}.
+ * 
+ * After each edit, the errors of the incremental parser are compared with the errors
+ * which {@code ModelParser} reports for the whole edited text, and the models are compared
+ * if the text is valid. The following are checked:
+ * 
+ * <ul>
+ *   <li>The invalid values of global options are reported as the errors of their lines,
+ *       also in the text which has other errors.
+ *   <li>The line numbers of the errors are right after an edit with an invalid option.
+ *   <li>An edit which fails while the lines are scanned doesn't change the parser.
+ *   <li>The random edits of random texts, which have valid and invalid lines.
+ * </ul>
+ * 
+ * The exit status is 1 if a check fails.
+ * 
+ * Usage: {@code IncrementalModelParserCheck}
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.plain.IncrementalModelParser
+ */
+public final class IncrementalModelParserCheck {
+	
+	private static final int DOCUMENT_COUNT = 300;
+	private static final int EDIT_COUNT = 40;
+	
+	private static final String[] RELATIONSHIP_SYMBOLS = {"1--*", "*--*", "1--1", "?--1", "1--+", "?--?"};
+	private static final String[] INVALID_LINES = {
+		"{title-size: x}", "{title-size: }", "{title: a; title: b}", "bad ###", "  orphan",
+		"[E1] *--?? [E2]", "[E1] {color:}"};
+		
+	private static int failureCount = 0;
+	
+	/**
+	 * Any instance of this class doesn't created.
+	 */
+	private IncrementalModelParserCheck() {
+	}
+	
+	/**
+	 * Main method of this check.
+	 * 
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		checkOptionValues();
+		checkEditAfterInvalidOption();
+		checkFailedEdit();
+		checkRandomEdits();
+		
+		if (failureCount > 0) {
+			System.out.println(failureCount + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("all checks passed");
+	}
+	
+	//the invalid option values are the errors of their lines, with and without other errors
+	private static void checkOptionValues() {
+		final List<String> lines = new ArrayList<String>(Arrays.asList(
+				"{title-size: x}", "[A]", " *id", "[B]", " *id", "{title-size: }", "[A] 1--* [B]"));
+		report("invalid option values", matches(lines), "different from ModelParser");
+		
+		lines.add(2, "bad ###");
+		report("invalid option values with an unknown line", matches(lines), "different from ModelParser");
+	}
+	
+	//the blocks after an edit with an invalid option are shifted
+	private static void checkEditAfterInvalidOption() {
+		final List<String> lines = new ArrayList<String>(Arrays.asList(
+				"[A]", " *id", "[B]", " *id", "[A] 1--* [B]", "[A] *--?? [B]"));
+		final IncrementalModelParser parser = new IncrementalModelParser(lines);
+		parser.parse();
+		
+		boolean same = true;
+		same &= edit(parser, lines, 0, 0, "{title-size: x}");
+		same &= edit(parser, lines, 0, 0, "[C]", " *id", "");
+		same &= edit(parser, lines, 3, 4, "{title-size: }");
+		same &= edit(parser, lines, 0, 1);
+		report("line numbers after an invalid option", same, "different from ModelParser");
+	}
+	
+	//an edit which fails doesn't change the lines, the blocks nor the errors
+	private static void checkFailedEdit() {
+		final List<String> lines = new ArrayList<String>(Arrays.asList(
+				"[A]", " *id", "[B]", " *id", "[A] 1--* [B]", "[A] *--?? [B]"));
+		final IncrementalModelParser parser = new IncrementalModelParser(lines);
+		parser.parse();
+		
+		boolean thrown = false;
+		try {
+			parser.replaceLines(1, 2, Arrays.asList(new BrokenLine()));
+		} catch (IllegalStateException ex) {
+			thrown = true;
+		}
+		
+		boolean same = thrown;
+		same &= edit(parser, lines, 0, 1, "[D]");
+		same &= edit(parser, lines, 0, 0, "[C]", " *id");
+		same &= edit(parser, lines, 7, 8);
+		report("failed edit", same, thrown ? "the parser has been changed" : "no error");
+	}
+	
+	//random edits of random texts
+	private static void checkRandomEdits() {
+		final Random random = new Random(1);
+		int mismatchCount = 0;
+		
+		for (int doc = 0; doc < DOCUMENT_COUNT && mismatchCount == 0; doc++) {
+			final List<String> lines = new ArrayList<String>();
+			final int fragmentCount = random.nextInt(30);
+			for (int i = 0; i < fragmentCount; i++) {
+				addFragment(random, lines);
+			}
+			final IncrementalModelParser parser = new IncrementalModelParser(lines);
+			parser.parse();
+			
+			for (int i = 0; i < EDIT_COUNT; i++) {
+				final int fromIndex = random.nextInt(lines.size() + 1);
+				final int toIndex = Math.min(lines.size(), fromIndex + random.nextInt(4));
+				final List<String> newLines = new ArrayList<String>();
+				final int newCount = random.nextInt(3);
+				for (int j = 0; j < newCount; j++) {
+					addFragment(random, newLines);
+				}
+				if (!edit(parser, lines, fromIndex, toIndex, newLines.toArray(new String[newLines.size()]))) {
+					mismatchCount++;
+					break;
+				}
+			}
+		}
+		report("random edits", mismatchCount == 0, "different from ModelParser");
+	}
+	
+	//apply an edit to the parser and the lines, and compare the parser with ModelParser
+	private static boolean edit(IncrementalModelParser parser, List<String> lines,
+			int fromIndex, int toIndex, String... newLines) {
+		final List<Exception> exList;
+		try {
+			exList = parser.replaceLines(fromIndex, toIndex, Arrays.asList(newLines));
+		} catch (RuntimeException ex) {
+			System.out.println("  " + ex + " at " + fromIndex + "-" + toIndex + " " + Arrays.asList(newLines));
+			return false;
+		}
+		lines.subList(fromIndex, toIndex).clear();
+		lines.addAll(fromIndex, Arrays.asList(newLines));
+		
+		return matches(parser, exList, lines);
+	}
+	
+	//parse the lines by both parsers, and compare them
+	private static boolean matches(List<String> lines) {
+		final IncrementalModelParser parser = new IncrementalModelParser(lines);
+		final List<Exception> exList;
+		try {
+			exList = parser.parse();
+		} catch (RuntimeException ex) {
+			System.out.println("  " + ex);
+			return false;
+		}
+		return matches(parser, exList, lines);
+	}
+	
+	private static boolean matches(IncrementalModelParser parser, List<Exception> exList, List<String> lines) {
+		final ModelParser fullParser = new ModelParser(new ArrayList<String>(lines));
+		final List<Exception> fullExList;
+		try {
+			fullExList = fullParser.parse();
+		} catch (RuntimeException ex) {
+			System.out.println("  ModelParser: " + ex);
+			return false;
+		}
+		
+		final String errors = getMessages(exList);
+		final String fullErrors = getMessages(fullExList);
+		if (!errors.equals(fullErrors)) {
+			System.out.println("  errors: " + errors + "\n  ModelParser: " + fullErrors + "\n  lines: " + lines);
+			return false;
+		}
+		if (fullExList.isEmpty()
+				&& !parser.getModel().toString("").equals(fullParser.getModel().toString(""))) {
+			System.out.println("  different model, lines: " + lines);
+			return false;
+		}
+		return true;
+	}
+	
+	private static String getMessages(List<Exception> exList) {
+		final StringBuilder sb = new StringBuilder();
+		for (Exception ex : exList) {
+			sb.append(ex.getMessage()).append(" | ");
+		}
+		return sb.toString();
+	}
+	
+	//add an entity block, a relationship line, a global options line, a blank line, or an invalid line
+	private static void addFragment(Random random, List<String> lines) {
+		final int r = random.nextInt(20);
+		if (r < 9) {
+			lines.add("[E" + random.nextInt(25) + "]" + (random.nextInt(4) == 0 ? " {color: red}" : ""));
+			final int attrCount = random.nextInt(4);
+			for (int i = 0; i < attrCount; i++) {
+				lines.add((i == 0 ? "  *" : "  ") + "attr" + i + (random.nextInt(5) == 0 ? "*" : ""));
+			}
+		} else if (r < 15) {
+			lines.add("[E" + random.nextInt(25) + "] " + RELATIONSHIP_SYMBOLS[random.nextInt(RELATIONSHIP_SYMBOLS.length)]
+					+ (random.nextInt(3) == 0 ? " (E" : " [E") + random.nextInt(25)
+					+ (random.nextInt(3) == 0 ? ")" : "]"));
+		} else if (r < 17) {
+			lines.add("");
+		} else if (r < 18) {
+			lines.add("{title: \"T" + random.nextInt(3) + "\"; title-size: " + (10 + random.nextInt(10)) + "}");
+		} else {
+			lines.add(INVALID_LINES[random.nextInt(INVALID_LINES.length)]);
+		}
+	}
+	
+	private static void report(String name, boolean passed, String detail) {
+		if (passed) {
+			System.out.println("passed: " + name);
+		} else {
+			failureCount++;
+			System.out.println("FAILED: " + name + " (" + detail + ")");
+		}
+	}
+	
+	//private class for a line which can't be read (the edit with this line fails while scanning)
+	private static final class BrokenLine implements CharSequence {
+		
+		public int length() {
+			throw new IllegalStateException("broken line");
+		}
+		
+		public char charAt(int index) {
+			throw new IllegalStateException("broken line");
+		}
+		
+		public CharSequence subSequence(int start, int end) {
+			throw new IllegalStateException("broken line");
+		}
+		
+		@Override
+		public String toString() {
+			throw new IllegalStateException("broken line");
+		}
+	}
+	
+}
@@ -0,0 +1,128 @@
+package de.slopjong.erwiz.api;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+import de.slopjong.erwiz.dot.FragmentCache;
+import de.slopjong.erwiz.dot.GraphGenerator;
+import de.slopjong.erwiz.model.Model;
+import de.slopjong.erwiz.plain.ModelParser;
+
+/**
+ * This class is the facade to embed this application in other programs.
+ * 
+ * Usage:
+ * 
+ * <pre>
+ * RenderResult result = Erwiz.render(reader, writer, new RenderOptions());
+ * if (!result.isSuccess()) {
+ *     for (Exception ex : result.getErrorList()) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * 
+ * This class has no mutable state, and {@code render()} can be called by multiple threads
+ * at the same time. Each call parses its own model, whose ids are assigned per model, 
+ * so the output for the same input text is the same in any order of the calls.
+ * The errors are returned as the result, and the process is never terminated.
+ * 
+ * The programs which render the edited versions of the same text repeatedly can share
+ * a {@code FragmentCache} object among the calls, so that the lines of the unchanged
+ * entities and relationships are reused.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.api.RenderOptions
+ * @see de.slopjong.erwiz.api.RenderResult
+ */
+public final class Erwiz {
+	
+	/**
+	 * Any instance of this class doesn't created.
+	 */
+	private Erwiz() {
+	}
+	
+	/**
+	 * Parses the input text and writes the dot text.
+	 * The reader and the writer aren't closed, but the writer is flushed.
+	 * 
+	 * The dot text is written while it is generated, so the writer may have received 
+	 * a part of the text if an error occurs in the generation or the writing.
+	 * 
+	 * @param reader the reader of the input text
+	 * @param writer the writer of the dot text
+	 * @param options the options of rendering
+	 * @return the result of rendering
+	 * @throws NullPointerException if a null argument is specified
+	 */
+	public static RenderResult render(Reader reader, Writer writer, RenderOptions options) {
+		return render(reader, writer, options, null);
+	}
+	
+	/**
+	 * Parses the input text and writes the dot text, reusing the lines in the specified cache.
+	 * The reader and the writer aren't closed, but the writer is flushed.
+	 * 
+	 * @param reader the reader of the input text
+	 * @param writer the writer of the dot text
+	 * @param options the options of rendering
+	 * @param fragmentCache the cache of the lines of entities and relationships, 
+	 *                      or null not to use the cache
+	 * @return the result of rendering
+	 * @throws NullPointerException if a null argument is specified except the cache
+	 * @see #render(Reader, Writer, RenderOptions)
+	 */
+	public static RenderResult render(Reader reader, Writer writer, RenderOptions options, 
+			FragmentCache fragmentCache) {
+		if (reader == null || writer == null || options == null) {
+			throw new NullPointerException();
+		}
+		
+		//parse (an unexpected error, including the failure of loading the messages, is returned)
+		final ModelParser parser;
+		final List<Exception> exList;
+		try {
+			parser = new ModelParser(reader);
+			exList = parser.parse();
+		} catch (RuntimeException ex) {
+			return createResult(RenderResult.Status.INTERNAL_ERROR, ex, null);
+		}
+		
+		if (exList.size() == 1 && exList.get(0) instanceof IOException) {
+			return new RenderResult(RenderResult.Status.IO_ERROR, exList, null);
+		}
+		if (!exList.isEmpty()) {
+			return new RenderResult(RenderResult.Status.PARSE_ERROR, exList, null);
+		}
+		final Model model = parser.getModel();
+		
+		//generate and write
+		try {
+			final GraphGenerator generator = new GraphGenerator(model, 
+					options.getNotation(), options.getFontName(), options.getColorPair());
+			generator.setFragmentCache(fragmentCache);
+			generator.setReproducible(options.isReproducible());
+			final Writer out = new BufferedWriter(writer);
+			generator.writeTo(out);
+			out.flush();
+		} catch (IOException ex) {
+			return createResult(RenderResult.Status.IO_ERROR, ex, model);
+		} catch (RuntimeException ex) {
+			return createResult(RenderResult.Status.GENERATION_ERROR, ex, model);
+		}
+		
+		return new RenderResult(RenderResult.Status.SUCCESS, Collections.<Exception>emptyList(), model);
+	}
+	
+	//private utility method to create the result of an error
+	private static RenderResult createResult(RenderResult.Status status, Exception ex, Model model) {
+		return new RenderResult(status, Collections.singletonList(ex), model);
+	}
+	
+}
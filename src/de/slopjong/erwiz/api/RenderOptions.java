@@ -0,0 +1,95 @@
+package de.slopjong.erwiz.api;
+
+import de.slopjong.erwiz.cui.DefaultValues;
+import de.slopjong.erwiz.model.ColorPair;
+import de.slopjong.erwiz.model.ErdNotation;
+
+/**
+ * This class represents the options of rendering (see {@code Erwiz#render()}).
+ * 
+ * This class is immutable, so an object can be shared by multiple threads.
+ * The values which aren't specified ({@code ErdNotation.NONE} and {@code ColorPair.NONE}) 
+ * are replaced with the default values of this application.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.api.Erwiz
+ */
+public final class RenderOptions {
+	
+	private final ErdNotation notation;
+	private final String fontName;
+	private final ColorPair colorPair;
+	private final boolean reproducible;
+	
+	/**
+	 * Creates an instance of this class with the default values.
+	 */
+	public RenderOptions() {
+		this(ErdNotation.NONE, null, ColorPair.NONE);
+	}
+	
+	/**
+	 * Creates an instance of this class.
+	 * 
+	 * @param notation the ERD notation (null or {@code ErdNotation.NONE} means the default)
+	 * @param fontName the font name (null means the default font of graphviz)
+	 * @param colorPair the color pair (null or {@code ColorPair.NONE} means the default)
+	 */
+	public RenderOptions(ErdNotation notation, String fontName, ColorPair colorPair) {
+		this(notation, fontName, colorPair, false);
+	}
+	
+	/**
+	 * Creates an instance of this class.
+	 * 
+	 * @param notation the ERD notation (null or {@code ErdNotation.NONE} means the default)
+	 * @param fontName the font name (null means the default font of graphviz)
+	 * @param colorPair the color pair (null or {@code ColorPair.NONE} means the default)
+	 * @param reproducible true to generate the same text for the same input text and options
+	 *                     (see {@code GraphGenerator#setReproducible()})
+	 */
+	public RenderOptions(ErdNotation notation, String fontName, ColorPair colorPair, boolean reproducible) {
+		this.notation = (notation != null && notation != ErdNotation.NONE) ? notation : DefaultValues.ERD_NOTATION;
+		this.fontName = fontName;
+		this.colorPair = (colorPair != null && colorPair != ColorPair.NONE) ? colorPair : DefaultValues.COLOR_PAIR;
+		this.reproducible = reproducible;
+	}
+	
+	/**
+	 * Retrieves the ERD notation.
+	 * 
+	 * @return the ERD notation
+	 */
+	public ErdNotation getNotation() {
+		return this.notation;
+	}
+	
+	/**
+	 * Retrieves the font name.
+	 * 
+	 * @return the font name, or null if the font isn't specified
+	 */
+	public String getFontName() {
+		return this.fontName;
+	}
+	
+	/**
+	 * Retrieves the color pair.
+	 * 
+	 * @return the color pair
+	 */
+	public ColorPair getColorPair() {
+		return this.colorPair;
+	}
+	
+	/**
+	 * Returns true if the reproducible text is requested.
+	 * 
+	 * @return true if the reproducible text is requested, otherwise false
+	 */
+	public boolean isReproducible() {
+		return this.reproducible;
+	}
+	
+}
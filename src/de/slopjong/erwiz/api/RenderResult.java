@@ -0,0 +1,95 @@
+package de.slopjong.erwiz.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.slopjong.erwiz.model.Model;
+
+/**
+ * This class represents the result of rendering (see {@code Erwiz#render()}).
+ * 
+ * The errors are returned as the status and the list of exceptions, instead of
+ * terminating the process. This class is immutable.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.api.Erwiz
+ */
+public final class RenderResult {
+	
+	/**
+	 * This enum represents the status of rendering.
+	 */
+	public enum Status {
+		
+		/** The dot text has been written */
+		SUCCESS,
+		
+		/** The input text has errors (the errors are {@code ParserException} objects) */
+		PARSE_ERROR,
+		
+		/** An error has occured while reading the input text or writing the dot text */
+		IO_ERROR,
+		
+		/** An error has occured while generating the dot text */
+		GENERATION_ERROR,
+		
+		/** An unexpected error has occured while parsing, for example the messages can't be loaded */
+		INTERNAL_ERROR
+	}
+	
+	private final Status status;
+	private final List<Exception> errorList;
+	private final Model model;
+	
+	/**
+	 * Creates an instance of this class.
+	 * 
+	 * @param status the status
+	 * @param errorList the errors (copied)
+	 * @param model the parsed model (null if the input text hasn't been parsed)
+	 */
+	RenderResult(Status status, List<? extends Exception> errorList, Model model) {
+		this.status = status;
+		this.errorList = Collections.unmodifiableList(new ArrayList<Exception>(errorList));
+		this.model = model;
+	}
+	
+	/**
+	 * Retrieves the status of rendering.
+	 * 
+	 * @return the status
+	 */
+	public Status getStatus() {
+		return this.status;
+	}
+	
+	/**
+	 * Returns true if the dot text has been written.
+	 * 
+	 * @return true if the status is {@code Status.SUCCESS}, otherwise false
+	 */
+	public boolean isSuccess() {
+		return this.status == Status.SUCCESS;
+	}
+	
+	/**
+	 * Retrieves an unmodifiable {@code List} object that contains the errors.
+	 * 
+	 * @return the errors (empty if rendering has succeeded)
+	 */
+	public List<Exception> getErrorList() {
+		return this.errorList;
+	}
+	
+	/**
+	 * Retrieves the parsed model. The model is frozen, so it can be read by multiple threads.
+	 * 
+	 * @return the parsed model, or null if the input text hasn't been parsed
+	 */
+	public Model getModel() {
+		return this.model;
+	}
+	
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides the rendering API to embed this application in other programs.
+ */
+package de.slopjong.erwiz.api;
@@ -12,6 +12,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,6 +31,8 @@ import java.util.List;
 public final class IoUtils {
 	
 	private static final String DEFAULT_ENCODING = "UTF8";
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final int WRITER_BUFFER_SIZE = 64 * 1024;
 	
 	/**
 	 * Any instance of this class doesn't created.
@@ -70,6 +75,71 @@ public final class IoUtils {
 		return readLinesCommon(in);
 	}
 	
+	/**
+	 * Opens a reader of the specified input file.
+	 * The lines can be read one by one without reading the whole file at once.
+	 * The caller should close the returned reader.
+	 * 
+	 * @param file file path
+	 * @return buffered reader of the file
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public static BufferedReader openFileReader(File file) throws IOException, FileNotFoundException {
+		InputStream in = new FileInputStream(file);
+		return openReaderCommon(in);
+	}
+	
+	/**
+	 * Opens a reader of the specified input file, and updates the specified digest 
+	 * with the bytes which are decoded by the reader.
+	 * The digest covers the whole file when the reader reaches the end of the file.
+	 * The caller should close the returned reader.
+	 * 
+	 * @param file file path
+	 * @param digest the digest which is updated, or null
+	 * @return buffered reader of the file
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public static BufferedReader openFileReader(File file, MessageDigest digest) 
+			throws IOException, FileNotFoundException {
+		InputStream in = new FileInputStream(file);
+		return openReaderCommon(digestStream(in, digest));
+	}
+	
+	/**
+	 * Opens a reader of the standard input.
+	 * The caller should close the returned reader.
+	 * 
+	 * @return buffered reader of the standard input
+	 * @throws IOException
+	 */
+	public static BufferedReader openStandardInputReader() throws IOException {
+		InputStream in = System.in;
+		return openReaderCommon(in);
+	}
+	
+	//private common method to open a reader
+	private static BufferedReader openReaderCommon(InputStream in) throws IOException {
+		
+		if (in == null) {
+			throw new IOException("Input stream is null.");
+		}
+		
+		try {
+			return new BufferedReader(new InputStreamReader(in, DEFAULT_ENCODING));
+		} catch (IOException ex) {
+			close(in);
+			throw ex;
+		}
+	}
+	
+	//wrap the stream to update the digest (if the digest is specified)
+	private static InputStream digestStream(InputStream in, MessageDigest digest) {
+		return (digest != null) ? new DigestInputStream(in, digest) : in;
+	}
+	
 	//private common method to read text data
 	private static List<String> readLinesCommon(InputStream in) throws IOException {
 		
@@ -94,6 +164,73 @@ public final class IoUtils {
 		}
 	}
 	
+	/**
+	 * Computes the digest (SHA-256) of the content of the specified file.
+	 * 
+	 * @param file file path
+	 * @return the digest of the file content
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public static byte[] digestFile(File file) throws FileNotFoundException, IOException {
+		final MessageDigest digest = createDigest();
+		
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			
+			final byte[] buffer = new byte[64 * 1024];
+			int length;
+			while ((length = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, length);
+			}
+		} finally {
+			close(in);
+		}
+		
+		return digest.digest();
+	}
+	
+	/**
+	 * Creates a digest (SHA-256) which is used for the content of files.
+	 * 
+	 * @return a new digest
+	 */
+	public static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex); //every Java platform supports SHA-256
+		}
+	}
+	
+	/**
+	 * Opens a writer of the specified output file.
+	 * The text can be written piece by piece without building the whole text at once.
+	 * The caller should close the returned writer.
+	 * 
+	 * @param file file path
+	 * @return buffered writer of the file
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public static BufferedWriter openFileWriter(File file) throws FileNotFoundException, IOException {
+		OutputStream out = new FileOutputStream(file);
+		return openWriterCommon(out);
+	}
+	
+	/**
+	 * Opens a writer of the standard output.
+	 * The caller should close the returned writer.
+	 * 
+	 * @return buffered writer of the standard output
+	 * @throws IOException
+	 */
+	public static BufferedWriter openStandardOutputWriter() throws IOException {
+		OutputStream out = System.out;
+		return openWriterCommon(out);
+	}
+	
 	/**
 	 * Writes the text data to the specified output file.
 	 * 
@@ -129,6 +266,16 @@ public final class IoUtils {
 		writeLinesCommon(out, text);
 	}
 	
+	//private common method to open a writer
+	private static BufferedWriter openWriterCommon(OutputStream out) throws IOException {
+		try {
+			return new BufferedWriter(new OutputStreamWriter(out, DEFAULT_ENCODING), WRITER_BUFFER_SIZE);
+		} catch (IOException ex) {
+			close(out);
+			throw ex;
+		}
+	}
+	
 	//private common method to write text data
 	private static void writeLinesCommon(OutputStream out, String text) throws IOException {
 		BufferedWriter writer = null;
@@ -26,6 +26,9 @@ public final class ResourceUtils {
 	
 	private static final String APP_NAME_FORMAT = "{name} version {version}";
 	
+	//the application name text which is read at the first call (it may be read twice by concurrent calls)
+	private static volatile String appNameText = null;
+	
 	/**
 	 * Any instance of this class doesn't created.
 	 */
@@ -35,23 +38,30 @@ public final class ResourceUtils {
 	/**
 	 * Reads the application name from the resource text.
 	 * This name has version number.
+	 * The resource is read only once, and the text is shared by the later calls.
 	 * 
 	 * @return application name text
+	 * @throws IllegalStateException if the resource can't be read
 	 */
 	public static String readAppNameText() {
+		String text = appNameText;
+		if (text == null) {
+			text = readAppNameResource();
+			appNameText = text;
+		}
+		return text;
+	}
+	
+	//read the application name from the resource
+	private static String readAppNameResource() {
 		
 		Properties prop;
 		
 		try {
 			prop = readResouceProperties(APP_INFO_PROPERTIES, IoUtils.class);
 		} catch (IOException ex) {
-			//fatal error
-			System.err.println(ex.getMessage());
-			for (StackTraceElement e : ex.getStackTrace()) {
-				System.err.println(e.toString());
-			}
-			System.exit(1);
-			return null;
+			//fatal error, but the process is terminated by the caller
+			throw new IllegalStateException("can't read the resource [" + APP_INFO_PROPERTIES + "]", ex);
 		}
 		
 		if (prop.isEmpty()) {
@@ -0,0 +1,334 @@
+package de.slopjong.erwiz.cui;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.slopjong.erwiz.common.IoUtils;
+import de.slopjong.erwiz.dot.GraphGenerator;
+import de.slopjong.erwiz.dot.GraphvizException;
+import de.slopjong.erwiz.dot.GraphvizRenderer;
+import de.slopjong.erwiz.plain.ModelParser;
+
+/**
+ * This class converts many input files in one process (the batch mode of {@code Main}).
+ * 
+ * The input files are the text files ({@code *.txt}) in a directory and its subdirectories,
+ * or the files which are listed in a list file (one path for each line, the blank lines
+ * and the lines which begin with '#' are ignored).
+ * The relative paths in a list file are resolved against the current directory,
+ * not against the directory of the list file.
+ * The output file of each input file has the extension of the output type 
+ * ({@code .dot} if the dot text is written), and is written to the same directory as 
+ * the input file, or to the output directory (the relative paths in the input directory
+ * are kept).
+ * If the output file of an input file is the same as the output file of a former input file 
+ * (e.g. the files of the same name in a list file and the output directory), the input file 
+ * isn't converted and fails, so no output file is overwritten by another input file.
+ * 
+ * Each file is parsed and generated by one task, and the tasks run in a fixed number of threads.
+ * The rendering by graphviz is limited to the number of processors in addition.
+ * An error of a file is reported in the summary, and doesn't stop the other files.
+ * 
+ * This class is package private, and is used by {@code Main}.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.cui.Main
+ */
+final class BatchConverter {
+	
+	private static final String INPUT_EXTENSION = ".txt";
+	private static final String DOT_EXTENSION = ".dot";
+	
+	private final CommandLineOptions options;
+	private final GraphvizRenderer renderer;
+	
+	/**
+	 * Constructs an object of this class.
+	 * 
+	 * @param options the command line options which has the batch source
+	 */
+	BatchConverter(CommandLineOptions options) {
+		this.options = options;
+		
+		if (options.getOutputType() != null) {
+			this.renderer = new GraphvizRenderer(options.getGraphvizCommand(), 
+					Runtime.getRuntime().availableProcessors());
+			this.renderer.setTimeout(options.getGraphvizTimeout() * 1000L);
+		} else {
+			this.renderer = null;
+		}
+	}
+	
+	/**
+	 * Lists the input files of the batch source.
+	 * 
+	 * @return the input files in the order of conversion
+	 * @throws IOException if the list file can't be read
+	 */
+	List<File> listInputFiles() throws IOException {
+		final File source = this.options.getBatchSource();
+		final List<File> files = new ArrayList<File>();
+		
+		if (source.isDirectory()) {
+			addInputFiles(source, files);
+		} else {
+			final BufferedReader reader = IoUtils.openFileReader(source);
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (!line.equals("") && !line.startsWith("#")) {
+						files.add(this.options.resolveFile(line));
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		
+		return files;
+	}
+	
+	/**
+	 * Converts the specified files in parallel.
+	 * The results are returned in the order of the files.
+	 * 
+	 * @param files the input files
+	 * @return the results of the files
+	 * @throws InterruptedException if the thread is interrupted while waiting for the conversions
+	 */
+	List<Result> convertAll(List<File> files) throws InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(this.options.getBatchThreadCount());
+		try {
+			//the input files of the output files (the first one is converted)
+			final Map<File, File> outputOwners = new HashMap<File, File>();
+			final Result[] conflicts = new Result[files.size()];
+			
+			final List<Future<Result>> futures = new ArrayList<Future<Result>>(files.size());
+			for (int i = 0; i < files.size(); i++) {
+				final File file = files.get(i);
+				final File outputFile = getOutputFile(file);
+				
+				final File outputKey = normalizeFile(outputFile);
+				final File owner = outputOwners.get(outputKey);
+				if (owner != null) {
+					conflicts[i] = new Result(file, outputFile, 
+							Message.BATCH_OUTPUT_CONFLICT.getText(owner.getPath(), outputFile.getPath()));
+					futures.add(null);
+					continue;
+				}
+				outputOwners.put(outputKey, file);
+				
+				futures.add(executor.submit(new Callable<Result>() {
+					public Result call() {
+						return convert(file, outputFile);
+					}
+				}));
+			}
+			
+			final List<Result> results = new ArrayList<Result>(files.size());
+			for (int i = 0; i < files.size(); i++) {
+				if (conflicts[i] != null) {
+					results.add(conflicts[i]);
+				} else {
+					results.add(getResult(futures.get(i), files.get(i)));
+				}
+			}
+			return results;
+			
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	//convert a file (all errors of the file are returned as the result)
+	private Result convert(File inputFile, File outputFile) {
+		if (!inputFile.isFile()) {
+			return new Result(inputFile, outputFile,
+					Message.ERR_INPUT_FILE_NOT_FOUND.getText(inputFile.getAbsolutePath()));
+		}
+		
+		try {
+			//parse (one thread for each file, the files are converted in parallel)
+			final ModelParser parser;
+			final List<Exception> exList;
+			final BufferedReader reader = IoUtils.openFileReader(inputFile);
+			try {
+				parser = new ModelParser(reader);
+				exList = parser.parse();
+			} finally {
+				reader.close();
+			}
+			if (!exList.isEmpty()) {
+				return new Result(inputFile, outputFile, getParseErrors(inputFile, exList));
+			}
+			
+			final GraphGenerator generator = Main.createGenerator(parser.getModel(), this.options);
+			generator.setThreadCount(1);
+			
+			final File outputDir = outputFile.getAbsoluteFile().getParentFile();
+			if (outputDir != null) {
+				outputDir.mkdirs();
+			}
+			
+			//generate and write, or render
+			if (this.renderer == null) {
+				final Writer writer = IoUtils.openFileWriter(outputFile);
+				try {
+					generator.writeTo(writer);
+				} finally {
+					writer.close();
+				}
+			} else {
+				this.renderer.render(generator, this.options.getOutputType(), outputFile);
+			}
+			
+			return new Result(inputFile, outputFile, null);
+			
+		} catch (GraphvizException ex) {
+			final String diagnostics = ex.getDiagnostics().equals("") ? "" : "\n" + ex.getDiagnostics();
+			return new Result(inputFile, outputFile, ex.getMessage() + diagnostics);
+		} catch (IOException ex) {
+			return new Result(inputFile, outputFile, ex.toString());
+		} catch (RuntimeException ex) {
+			return new Result(inputFile, outputFile, ex.toString());
+		}
+	}
+	
+	//the output file of the input file
+	private File getOutputFile(File inputFile) {
+		final String type = this.options.getOutputType();
+		final String extension = (type != null) ? "." + type : DOT_EXTENSION;
+		
+		String name = inputFile.getName();
+		if (name.toLowerCase().endsWith(INPUT_EXTENSION)) {
+			name = name.substring(0, name.length() - INPUT_EXTENSION.length());
+		}
+		name += extension;
+		
+		final File outputDir = this.options.getOutputFile();
+		if (outputDir == null) {
+			return new File(inputFile.getParentFile(), name);
+		}
+		
+		//keep the relative path in the input directory
+		final File source = this.options.getBatchSource();
+		final File parent = inputFile.getParentFile();
+		if (source.isDirectory() && parent != null) {
+			final String sourcePath = source.getPath();
+			final String parentPath = parent.getPath();
+			if (parentPath.startsWith(sourcePath) && parentPath.length() > sourcePath.length()) {
+				return new File(new File(outputDir, parentPath.substring(sourcePath.length() + 1)), name);
+			}
+		}
+		return new File(outputDir, name);
+	}
+	
+	//the path to compare the output files (the absolute path if the file can't be resolved)
+	private static File normalizeFile(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException ex) {
+			return file.getAbsoluteFile();
+		}
+	}
+	
+	//the messages of all errors of parsing, as Main reports them (one error after another)
+	private static String getParseErrors(File inputFile, List<Exception> exList) {
+		final StringBuilder sb = new StringBuilder();
+		if (exList.size() == 1 && exList.get(0) instanceof IOException) {
+			//reading error
+			sb.append(Message.ERR_INPUT_EXCEPTION.getText(inputFile.getPath()));
+		} else {
+			sb.append(Message.ERR_TEXT_PARSING.getText());
+		}
+		for (Exception ex : exList) {
+			final String message = ex.getMessage();
+			sb.append('\n').append(message != null ? message : ex.toString());
+		}
+		return sb.toString();
+	}
+	
+	//add the input files in the directory and its subdirectories (in the order of the names)
+	private static void addInputFiles(File dir, List<File> files) {
+		final File[] children = dir.listFiles();
+		if (children == null) {
+			return;
+		}
+		Arrays.sort(children);
+		
+		for (File child : children) {
+			if (child.isDirectory()) {
+				addInputFiles(child, files);
+			} else if (child.getName().toLowerCase().endsWith(INPUT_EXTENSION)) {
+				files.add(child);
+			}
+		}
+	}
+	
+	//private utility method to wait for the result of a task.
+	//an error which isn't caught in the task is returned as the result of the file.
+	private static Result getResult(Future<Result> future, File inputFile) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException ex) {
+			final Throwable cause = ex.getCause();
+			if (cause instanceof Error && !(cause instanceof StackOverflowError)) {
+				throw (Error)cause;
+			}
+			return new Result(inputFile, null, cause.toString());
+		}
+	}
+	
+	/**
+	 * This class represents the result of the conversion of a file.
+	 * This class is immutable.
+	 */
+	static final class Result {
+		
+		private final File inputFile;
+		private final File outputFile;
+		private final String error;
+		
+		Result(File inputFile, File outputFile, String error) {
+			this.inputFile = inputFile;
+			this.outputFile = outputFile;
+			this.error = error;
+		}
+		
+		File getInputFile() {
+			return this.inputFile;
+		}
+		
+		File getOutputFile() {
+			return this.outputFile;
+		}
+		
+		boolean isSuccess() {
+			return this.error == null;
+		}
+		
+		/**
+		 * Retrieves the message of the error.
+		 * 
+		 * @return the message, or null if the conversion succeeded
+		 */
+		String getError() {
+			return this.error;
+		}
+	}
+	
+}
@@ -20,6 +20,7 @@ public final class CommandLineOptions {
 	
 	//input
 	private final GeneralCommandLineOptions options;
+	private final File baseDir;
 	
 	//output
 	private File inputFile = null;
@@ -27,8 +28,20 @@ public final class CommandLineOptions {
 	private ErdNotation notation = ErdNotation.NONE;
 	private ColorPair colorPair = ColorPair.NONE;
 	private String fontName = null;
+	private int threadCount = 1;
+	private boolean threadCountSpecified = false;
+	private File batchSource = null;
+	private boolean snapshotRequested = false;
+	private File snapshotFile = null;
+	private File storeOutputFile = null;
+	private File storeInputFile = null;
 	private boolean helpRequested = false;
 	private boolean debugMode = false;
+	private boolean reproducible = false;
+	private String outputType = null;
+	private File dotCopyFile = null;
+	private String graphvizCommand = DefaultValues.GRAPHVIZ_COMMAND;
+	private int graphvizTimeout = DefaultValues.GRAPHVIZ_TIMEOUT;
 	
 	/**
 	 * Constructs a object of this class.
@@ -36,7 +49,19 @@ public final class CommandLineOptions {
 	 * @param args commandline arguments
 	 */
 	public CommandLineOptions(String[] args) {
+		this(args, null);
+	}
+	
+	/**
+	 * Constructs a object of this class whose relative paths are resolved against 
+	 * the specified directory instead of the current directory.
+	 * 
+	 * @param args commandline arguments
+	 * @param baseDir the base directory of the relative paths (null means the current directory)
+	 */
+	public CommandLineOptions(String[] args, File baseDir) {
 		this.options = new GeneralCommandLineOptions(args);
+		this.baseDir = baseDir;
 	}
 	
 	/**
@@ -71,6 +96,14 @@ public final class CommandLineOptions {
 		return this.debugMode;
 	}
 	
+	/**
+	 * Returns true if the reproducible output is requested in the command line options, false otherwise.
+	 * @return true if the reproducible output is requested in command line options, false otherwise.
+	 */
+	public boolean isReproducible() {
+		return this.reproducible;
+	}
+	
 	/**
 	 * Retrieves the input file path which is specified in command line options.
 	 * 
@@ -116,6 +149,131 @@ public final class CommandLineOptions {
 		return this.fontName;
 	}
 	
+	/**
+	 * Retrieves the number of threads which will be used to parse the input text.
+	 * 
+	 * @return the number of threads
+	 */
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+	
+	/**
+	 * Retrieves the output type of graphviz which is specified in the command line options.
+	 * If the type is specified, the image is rendered by graphviz instead of writing the dot text.
+	 * 
+	 * @return the output type (png, svg, pdf, ...), or null if the dot text is written
+	 */
+	public String getOutputType() {
+		return this.outputType;
+	}
+	
+	/**
+	 * Retrieves the file to which the dot text is also written while the image is rendered,
+	 * which is specified in the command line options.
+	 * 
+	 * @return the dot file, or null if the dot text isn't kept
+	 */
+	public File getDotCopyFile() {
+		return this.dotCopyFile;
+	}
+	
+	/**
+	 * Retrieves the command of graphviz which is specified in the command line options.
+	 * 
+	 * @return the command of graphviz
+	 */
+	public String getGraphvizCommand() {
+		return this.graphvizCommand;
+	}
+	
+	/**
+	 * Retrieves the timeout of graphviz which is specified in the command line options.
+	 * 
+	 * @return the timeout in seconds (0 means no timeout)
+	 */
+	public int getGraphvizTimeout() {
+		return this.graphvizTimeout;
+	}
+	
+	/**
+	 * Retrieves the directory or the list file of the input files which is specified 
+	 * in the command line options. If it is specified, the files are converted in the batch mode, 
+	 * and the output file is the output directory.
+	 * 
+	 * @return the directory or the list file, or null if the batch mode isn't used
+	 */
+	public File getBatchSource() {
+		return this.batchSource;
+	}
+	
+	/**
+	 * Retrieves the number of threads which convert the files in the batch mode.
+	 * If it isn't specified, the number of processors is used.
+	 * 
+	 * @return the number of threads
+	 */
+	public int getBatchThreadCount() {
+		if (this.threadCountSpecified) {
+			return this.threadCount;
+		} else {
+			return Runtime.getRuntime().availableProcessors();
+		}
+	}
+	
+	/**
+	 * Retrieves the snapshot file of the parsed model which is specified in command line options.
+	 * If the file isn't specified, the input file path with the extension ".snapshot" is used.
+	 * The snapshot isn't used for the standard input.
+	 * 
+	 * @return the snapshot file path, or null if the snapshot isn't used
+	 */
+	public File getSnapshotFile() {
+		if (!this.snapshotRequested || this.inputFile == null) {
+			return null;
+		}
+		
+		if (this.snapshotFile != null) {
+			return this.snapshotFile;
+		} else {
+			return new File(this.inputFile.getPath() + ".snapshot");
+		}
+	}
+	
+	/**
+	 * Retrieves the model store file to which the parsed model is written,
+	 * which is specified in command line options. The output is generated from the store.
+	 * 
+	 * @return the model store file, or null if the model is created in the memory
+	 */
+	public File getStoreOutputFile() {
+		return this.storeOutputFile;
+	}
+	
+	/**
+	 * Retrieves the model store file from which the model is loaded instead of the input text,
+	 * which is specified in command line options.
+	 * 
+	 * @return the model store file, or null if the input text is parsed
+	 */
+	public File getStoreInputFile() {
+		return this.storeInputFile;
+	}
+	
+	/**
+	 * Resolves the specified path against the base directory.
+	 * 
+	 * @param path a path which is specified in the command line options or the list file
+	 * @return the file of the path
+	 */
+	File resolveFile(String path) {
+		final File file = new File(path);
+		if (this.baseDir == null || file.isAbsolute()) {
+			return file;
+		}
+		return new File(this.baseDir, path);
+	}
+	
 	/**
 	 * Parses the specified command line arguments.
 	 * The result is saved in this object.
@@ -145,11 +303,70 @@ public final class CommandLineOptions {
 				setFontNameOption(option, errorInfo);
 			} else if (option.equals("-c")) {
 				setColorNameOption(option, errorInfo);
+			} else if (option.equals("-p")) {
+				setThreadCountOption(option, errorInfo);
+			} else if (option.equals("-s")) {
+				setSnapshotFileOption(option, errorInfo);
+			} else if (option.equals("-r") || option.equals("--reproducible")) {
+				setReproducibleOption(option, errorInfo);
+			} else if (option.equals("-t")) {
+				setOutputTypeOption(option, errorInfo);
+			} else if (option.equals("-k")) {
+				this.dotCopyFile = getRequiredFileOption(option, errorInfo);
+			} else if (option.equals("-g")) {
+				setGraphvizCommandOption(option, errorInfo);
+			} else if (option.equals("-w")) {
+				setGraphvizTimeoutOption(option, errorInfo);
+			} else if (option.equals("-b")) {
+				setBatchSourceOption(option, errorInfo);
+			} else if (option.equals("-m")) {
+				this.storeOutputFile = getRequiredFileOption(option, errorInfo);
+			} else if (option.equals("-l")) {
+				this.storeInputFile = getRequiredFileOption(option, errorInfo);
 			} else {
 				errorInfo.add(Message.CLO_UNKNOWN_OPTION, option);
 			}
 		}
 		
+		//the input file and the snapshot are for one file
+		if (this.batchSource != null) {
+			if (this.inputFile != null) {
+				errorInfo.add(Message.CLO_INVALID_WITH_BATCH, "-i");
+			}
+			if (this.snapshotRequested) {
+				errorInfo.add(Message.CLO_INVALID_WITH_BATCH, "-s");
+			}
+			if (this.storeOutputFile != null) {
+				errorInfo.add(Message.CLO_INVALID_WITH_BATCH, "-m");
+			}
+			if (this.storeInputFile != null) {
+				errorInfo.add(Message.CLO_INVALID_WITH_BATCH, "-l");
+			}
+			if (this.dotCopyFile != null) {
+				errorInfo.add(Message.CLO_INVALID_WITH_BATCH, "-k");
+			}
+		}
+		
+		//the dot text is copied while the image is rendered
+		if (this.dotCopyFile != null && this.outputType == null) {
+			errorInfo.add(Message.CLO_REQUIRES_OPTION, "-t", "-k");
+		}
+		
+		//the model is loaded from the store instead of the input text
+		if (this.storeInputFile != null) {
+			if (this.inputFile != null) {
+				errorInfo.add(Message.CLO_INVALID_WITH_STORE, "-l", "-i");
+			}
+			if (this.snapshotRequested) {
+				errorInfo.add(Message.CLO_INVALID_WITH_STORE, "-l", "-s");
+			}
+			if (this.storeOutputFile != null) {
+				errorInfo.add(Message.CLO_INVALID_WITH_STORE, "-l", "-m");
+			}
+		} else if (this.storeOutputFile != null && this.snapshotRequested) {
+			errorInfo.add(Message.CLO_INVALID_WITH_STORE, "-m", "-s");
+		}
+		
 		for (final String param : this.options.getUnknownParams()) {
 			errorInfo.add(Message.CLO_INVALID_PARAM, param);
 		}
@@ -177,6 +394,16 @@ public final class CommandLineOptions {
 		}
 	}
 	
+	//Reproducible Output
+	private void setReproducibleOption(String option, ErrorInfo errorInfo) {
+		this.reproducible = true;
+		
+		final List<String> params = this.options.getOptionParams(option);
+		for (final String param : params) {
+			errorInfo.add(Message.CLO_INVALID_PARAM, param);
+		}
+	}
+	
 	//Input File
 	private void setInputFileOption(String option, ErrorInfo errorInfo) {
 		final List<String> params = this.options.getOptionParams(option);
@@ -184,7 +411,7 @@ public final class CommandLineOptions {
 		if (params.size() >= 1) {
 			String param = params.get(0);
 			if (!param.trim().equals("")) {
-				this.inputFile = new File(param);
+				this.inputFile = resolveFile(param);
 			}
 		}
 		
@@ -203,7 +430,7 @@ public final class CommandLineOptions {
 		if (params.size() >= 1) {
 			String param = params.get(0);
 			if (!param.trim().equals("")) {
-				this.outputFile = new File(param);
+				this.outputFile = resolveFile(param);
 			}
 		}
 		
@@ -274,6 +501,158 @@ public final class CommandLineOptions {
 		
 	}
 	
+	//Thread Count
+	private void setThreadCountOption(String option, ErrorInfo errorInfo) {
+		final List<String> params = this.options.getOptionParams(option);
+		
+		if (params.size() >= 1) {
+			final String param = params.get(0);
+			
+			this.threadCountSpecified = true;
+			try {
+				this.threadCount = Integer.parseInt(param);
+			} catch (NumberFormatException ex) {
+				this.threadCount = 0;
+			}
+			if (this.threadCount < 1) {
+				this.threadCount = 1;
+				errorInfo.add(Message.CLO_INVALID_THREAD_COUNT, param);
+			}
+		}
+		
+		if (params.size() >= 2) {
+			for (String param : params.subList(1, params.size())) {
+				errorInfo.add(Message.CLO_INVALID_PARAM, param);
+			}
+		}
+		
+	}
+	
+	//Snapshot File
+	private void setSnapshotFileOption(String option, ErrorInfo errorInfo) {
+		this.snapshotRequested = true;
+		
+		final List<String> params = this.options.getOptionParams(option);
+		
+		if (params.size() >= 1) {
+			String param = params.get(0);
+			if (!param.trim().equals("")) {
+				this.snapshotFile = resolveFile(param);
+			}
+		}
+		
+		if (params.size() >= 2) {
+			for (final String param : params.subList(1, params.size())) {
+				errorInfo.add(Message.CLO_INVALID_PARAM, param);
+			}
+		}
+	}
+	
+	//Model Store File, Dot Copy File (the file is required)
+	private File getRequiredFileOption(String option, ErrorInfo errorInfo) {
+		final List<String> params = this.options.getOptionParams(option);
+		
+		File file = null;
+		if (params.size() >= 1) {
+			String param = params.get(0);
+			if (!param.trim().equals("")) {
+				file = resolveFile(param);
+			}
+		}
+		if (file == null) {
+			errorInfo.add(Message.CLO_INVALID_PARAM, option);
+		}
+		
+		if (params.size() >= 2) {
+			for (final String param : params.subList(1, params.size())) {
+				errorInfo.add(Message.CLO_INVALID_PARAM, param);
+			}
+		}
+		return file;
+	}
+	
+	//Output Type
+	private void setOutputTypeOption(String option, ErrorInfo errorInfo) {
+		final List<String> params = this.options.getOptionParams(option);
+		
+		if (params.size() >= 1) {
+			String param = params.get(0);
+			if (!param.trim().equals("")) {
+				this.outputType = param.trim();
+			}
+		}
+		
+		if (params.size() >= 2) {
+			for (final String param : params.subList(1, params.size())) {
+				errorInfo.add(Message.CLO_INVALID_PARAM, param);
+			}
+		}
+	}
+	
+	//Graphviz Command
+	private void setGraphvizCommandOption(String option, ErrorInfo errorInfo) {
+		final List<String> params = this.options.getOptionParams(option);
+		
+		if (params.size() >= 1) {
+			String param = params.get(0);
+			if (!param.trim().equals("")) {
+				//a relative path (not a name in the search path) is resolved
+				final boolean isPath = (param.indexOf('/') >= 0 || param.indexOf(File.separatorChar) >= 0);
+				this.graphvizCommand = isPath ? resolveFile(param).getPath() : param;
+			}
+		}
+		
+		if (params.size() >= 2) {
+			for (final String param : params.subList(1, params.size())) {
+				errorInfo.add(Message.CLO_INVALID_PARAM, param);
+			}
+		}
+	}
+	
+	//Graphviz Timeout
+	private void setGraphvizTimeoutOption(String option, ErrorInfo errorInfo) {
+		final List<String> params = this.options.getOptionParams(option);
+		
+		if (params.size() >= 1) {
+			final String param = params.get(0);
+			
+			try {
+				this.graphvizTimeout = Integer.parseInt(param);
+			} catch (NumberFormatException ex) {
+				this.graphvizTimeout = -1;
+			}
+			if (this.graphvizTimeout < 0) {
+				this.graphvizTimeout = DefaultValues.GRAPHVIZ_TIMEOUT;
+				errorInfo.add(Message.CLO_INVALID_TIMEOUT, param);
+			}
+		}
+		
+		if (params.size() >= 2) {
+			for (String param : params.subList(1, params.size())) {
+				errorInfo.add(Message.CLO_INVALID_PARAM, param);
+			}
+		}
+		
+	}
+	
+	//Batch Source
+	private void setBatchSourceOption(String option, ErrorInfo errorInfo) {
+		final List<String> params = this.options.getOptionParams(option);
+		
+		if (params.size() >= 1) {
+			String param = params.get(0);
+			if (!param.trim().equals("")) {
+				this.batchSource = resolveFile(param);
+			}
+		}
+		
+		if (params.size() >= 2) {
+			for (final String param : params.subList(1, params.size())) {
+				errorInfo.add(Message.CLO_INVALID_PARAM, param);
+			}
+		}
+	}
+	
 	//private utility class for error information
 	private static class ErrorInfo {
 		
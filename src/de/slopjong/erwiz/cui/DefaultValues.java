@@ -1,5 +1,6 @@
 package de.slopjong.erwiz.cui;
 
+import de.slopjong.erwiz.dot.GraphvizRenderer;
 import de.slopjong.erwiz.model.ColorPair;
 import de.slopjong.erwiz.model.ErdNotation;
 
@@ -16,4 +17,10 @@ public final class DefaultValues {
 	/** The default color pair for entities */
 	public static final ColorPair COLOR_PAIR = ColorPair.WHITE;
 	
+	/** The default command of graphviz */
+	public static final String GRAPHVIZ_COMMAND = GraphvizRenderer.DEFAULT_COMMAND;
+	
+	/** The default timeout of graphviz in seconds (0 means no timeout) */
+	public static final int GRAPHVIZ_TIMEOUT = 300;
+	
 }
@@ -1,15 +1,30 @@
 package de.slopjong.erwiz.cui;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.security.MessageDigest;
 import java.util.List;
 
 import de.slopjong.erwiz.common.IoUtils;
 import de.slopjong.erwiz.dot.GraphGenerator;
+import de.slopjong.erwiz.dot.GraphvizException;
+import de.slopjong.erwiz.dot.GraphvizRenderer;
 import de.slopjong.erwiz.model.ColorPair;
 import de.slopjong.erwiz.model.ErdNotation;
 import de.slopjong.erwiz.model.Model;
+import de.slopjong.erwiz.model.ModelSnapshot;
+import de.slopjong.erwiz.model.ModelStore;
+import de.slopjong.erwiz.model.ModelStoreException;
 import de.slopjong.erwiz.plain.ModelParser;
 
 
@@ -23,41 +38,111 @@ public class Main {
 	//utility object to write console messages
 	private static final MessageWriter MW = new MessageWriter();
 	
+	//the option holders which define the option names in snapshots
+	private static final String[] OPTION_HOLDER_CLASSES = {
+		"de.slopjong.erwiz.plain.OptionName",
+		"de.slopjong.erwiz.dot.OptionName",
+	};
+	
 	/**
 	 * Main method of this application.
 	 * 
 	 * @param args command line parameters
 	 */
 	public static void main(String[] args) {
+		final int status = run(args, null);
+		if (status != 0) {
+			System.exit(status);
+		}
+	}
+	
+	/**
+	 * Runs this application without terminating the process.
+	 * The standard input, output and error of the system are used as the console.
+	 * This method is used by {@code main()} and {@code Server}.
+	 * 
+	 * @param args command line parameters
+	 * @param baseDir the base directory of the relative paths (null means the current directory)
+	 * @return the exit status
+	 */
+	static int run(String[] args, File baseDir) {
+		//the debug mode of the previous run isn't kept (the server calls this method many times)
+		MW.setDebugMode(false);
+		
 		try {
 			//initialize messages
 			Message.initialize();
-			
+		} catch (IllegalStateException ex) {
+			ex.printStackTrace();
+			return 1;
+		}
+		
+		try {
 			//parse command line options
-			final CommandLineOptions options = parseOptions(args);
+			final CommandLineOptions options = parseOptions(args, baseDir);
 			
-			//read input text
-			final List<String> lines = readInputLines(options);			
+			//convert many files in this process
+			if (options.getBatchSource() != null) {
+				convertBatch(options);
+				return 0;
+			}
 			
-			//parse input text
-			final Model model = parseInputLines(lines);
+			//load the model from the model store instead of the input text
+			if (options.getStoreInputFile() != null) {
+				final Model model = openStore(options.getStoreInputFile());
+				writeOutput(model, options);
+				return 0;
+			}
+			
+			//load the snapshot of the parsed model if the input file isn't changed
+			final byte[] digest = digestInput(options);
+			Model model = loadSnapshot(digest, options);
 			
-			//generate output text
-			final String text = generateOutputText(model, options);
+			if (model == null) {
+				//open input text (the snapshot is saved with the digest of the parsed bytes)
+				final MessageDigest parsedDigest = (digest != null) ? IoUtils.createDigest() : null;
+				final BufferedReader reader = openInput(options, parsedDigest);
+				
+				//read and parse input text (the model is written to the model store if specified)
+				try {
+					final ModelParser parser = new ModelParser(reader);
+					parser.setStoreFile(options.getStoreOutputFile());
+					model = parseInputLines(parser, options);
+				} finally {
+					close(reader);
+				}
+				
+				//save the snapshot of the parsed model
+				if (parsedDigest != null) {
+					saveSnapshot(model, parsedDigest.digest(), options);
+				}
+			}
 			
-			//write output text
-			writeOutputText(text, options);
+			writeOutput(model, options);
+			return 0;
 			
+		} catch (TerminationException ex) {
+			//the error has been reported
+			return ex.getStatus();
 		} catch (Exception ex) {
 			MW.write(Message.ERR_UNKNOWN.getText(), 2);
 			MW.exception(ex);
-			System.exit(1);
+			return 1;
+		}
+	}
+	
+	//generate and write output text, or render output image
+	private static void writeOutput(Model model, CommandLineOptions options) throws TerminationException {
+		if (options.getOutputType() == null) {
+			writeOutputText(model, options);
+		} else {
+			renderOutputImage(model, options);
 		}
 	}
 	
 	//parse command line options
-	private static CommandLineOptions parseOptions(String[] args) {
-		CommandLineOptions options = new CommandLineOptions(args);
+	private static CommandLineOptions parseOptions(String[] args, File baseDir) throws TerminationException {
+		CommandLineOptions options = new CommandLineOptions(args, baseDir);
 		
 		List<String> errorList = options.parse();
 		if (!errorList.isEmpty()) {
@@ -71,13 +156,13 @@ public class Main {
 			//help message
 			MW.write(Message.HELP.getText(), 1);
 			
-			System.exit(1);
+			throw new TerminationException(1);
 		
 		} else if (options.helpRequested()) {
 			MW.write(Message.APP_NAME.getText(), 2);
 			MW.write(Message.HELP.getText(), 1);
 			
-			System.exit(0);
+			throw new TerminationException(0);
 		}
 		
 		MW.setDebugMode(options.isDebugMode());
@@ -86,107 +171,371 @@ public class Main {
 		return options;
 	}
 	
-	//read input text
-	private static List<String> readInputLines(CommandLineOptions options) {
+	//open input text (the lines are read one by one from the input file or the standard input)
+	private static BufferedReader openInput(CommandLineOptions options, MessageDigest digest) 
+			throws TerminationException {
 		try {
 			File file = options.getInputFile();
-			List<String> list;
 			
 			if (file != null) {
-				list = IoUtils.readFileLines(file);
+				return IoUtils.openFileReader(file, digest);
 			} else {
-				list = IoUtils.readStandardInputLines();
+				return IoUtils.openStandardInputReader();
 			}
 			
-			MW.debug(Message.DBG_READING_TEXT_COMPLETED.getText(), 2, true);
-			return list;
-			
 		} catch (FileNotFoundException ex) {
 			MW.write(Message.ERR_INPUT_FILE_NOT_FOUND.getText(getInputName(options)), 2);
-			System.exit(1);
-			return null;
+			throw new TerminationException(1);
 		} catch (IOException ex) {
 			MW.write(Message.ERR_INPUT_EXCEPTION.getText(getInputName(options)), 2);
 			MW.exception(ex);
-			System.exit(1);
-			return null;
+			throw new TerminationException(1);
 		}
 	}
 	
-	//parse input text
-	private static Model parseInputLines(List<String> lines) {
+	//read and parse input text (the lines are parsed while reading)
+	private static Model parseInputLines(ModelParser parser, CommandLineOptions options) throws TerminationException {
 		try {
-			ModelParser parser = new ModelParser(lines);
+			parser.setThreadCount(options.getThreadCount());
 			List<Exception> exList = parser.parse();
 			
+			//model store error
+			if (exList.size() == 1 && exList.get(0) instanceof ModelStoreException) {
+				final File file = ((ModelStoreException)exList.get(0)).getFile();
+				MW.write(Message.ERR_MODEL_STORE.getText(file.getAbsolutePath()), 2);
+				MW.exception((IOException)exList.get(0).getCause());
+				throw new TerminationException(1);
+			}
+			
+			//reading error
+			if (exList.size() == 1 && exList.get(0) instanceof IOException) {
+				MW.write(Message.ERR_INPUT_EXCEPTION.getText(getInputName(options)), 2);
+				MW.exception(exList.get(0));
+				throw new TerminationException(1);
+			}
+			MW.debug(Message.DBG_READING_TEXT_COMPLETED.getText(), 2, true);
+			
 			if (!exList.isEmpty()) {
 				MW.write(Message.ERR_TEXT_PARSING.getText(), 2);
 				MW.exception(exList.toArray(new Exception[]{}));
-				System.exit(1);
-				return null;
+				throw new TerminationException(1);
 			}
 			
 			MW.debug(Message.DBG_PARSING_TEXT_COMPLETED.getText(), 2, true);
-			MW.debug(parser.getModel().toString(""), 2);
+			if (MW.isDebugMode()) {
+				//the dump of a large model is as large as the output, so it is built only for debugging
+				MW.debug(parser.getModel().toString(""), 2);
+			}
 			
 			return parser.getModel();
 			
+		} catch (TerminationException ex) {
+			throw ex;
 		} catch (Exception ex) {
 			MW.write(Message.ERR_TEXT_PARSING.getText(), 2);
 			MW.exception(ex);
-			System.exit(1);
-			return null;
+			throw new TerminationException(1);
 		}
 	}
 	
-	//generate output text
-	private static String generateOutputText(Model model, CommandLineOptions options) {
+	//open the model store which has been written by -m option
+	private static Model openStore(File file) throws TerminationException {
 		try {
-			ErdNotation notation = options.getNotation();
-			if (notation == ErdNotation.NONE) {
-				notation = DefaultValues.ERD_NOTATION;
+			if (!file.isFile()) {
+				MW.write(Message.ERR_INPUT_FILE_NOT_FOUND.getText(file.getAbsolutePath()), 2);
+				throw new TerminationException(1);
 			}
 			
-			String fontName = options.getFontName();
+			//the option names in the store are registered by the option holders
+			registerOptionNames();
+			
+			final Model model = ModelStore.open(file);
+			MW.debug(Message.DBG_PARSING_TEXT_COMPLETED.getText(), 2, true);
+			return model;
+			
+		} catch (IOException ex) {
+			MW.write(Message.ERR_MODEL_STORE.getText(file.getAbsolutePath()), 2);
+			MW.exception(ex);
+			throw new TerminationException(1);
+		}
+	}
+	
+	//compute the digest of the input file to find the snapshot (only if the snapshot is used)
+	private static byte[] digestInput(CommandLineOptions options) {
+		if (options.getSnapshotFile() == null) {
+			return null;
+		}
+		
+		try {
+			return IoUtils.digestFile(options.getInputFile());
+		} catch (IOException ex) {
+			//the error is reported on reading input text
+			return null;
+		}
+	}
+	
+	//load the snapshot of the parsed model (null if the snapshot can't be used)
+	private static Model loadSnapshot(byte[] digest, CommandLineOptions options) {
+		final File file = options.getSnapshotFile();
+		if (digest == null || !file.isFile()) {
+			return null;
+		}
+		
+		//the option names in the snapshot are registered by the option holders
+		registerOptionNames();
+		
+		InputStream in = null;
+		try {
+			in = new BufferedInputStream(new FileInputStream(file));
+			final Model model = ModelSnapshot.read(in, digest);
 			
-			ColorPair colorPair = options.getColorPair();
-			if (colorPair == ColorPair.NONE) {
-				colorPair = DefaultValues.COLOR_PAIR;
+			if (model != null) {
+				MW.debug(Message.DBG_SNAPSHOT_LOADED.getText(file.getAbsolutePath()), 2, true);
+				if (MW.isDebugMode()) {
+					MW.debug(model.toString(""), 2);
+				}
+			} else {
+				MW.debug(Message.DBG_SNAPSHOT_NOT_USED.getText(file.getAbsolutePath()), 2);
 			}
+			return model;
 			
-			GraphGenerator genarator = new GraphGenerator(model, notation, fontName, colorPair);
-			String dotText = genarator.execute();
+		} catch (IOException ex) {
+			//broken snapshot is ignored
+			MW.debug(Message.DBG_SNAPSHOT_NOT_USED.getText(file.getAbsolutePath()), 1);
+			MW.debug(ex.toString(), 2);
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+	
+	//load the option holders, which register the option names (the holders aren't public)
+	private static void registerOptionNames() {
+		for (String className : OPTION_HOLDER_CLASSES) {
+			try {
+				Class.forName(className);
+			} catch (ClassNotFoundException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+	
+	//save the snapshot of the parsed model
+	//(written to a temporary file first, so that a broken snapshot isn't left.)
+	private static void saveSnapshot(Model model, byte[] digest, CommandLineOptions options) {
+		final File file = options.getSnapshotFile();
+		if (digest == null) {
+			return;
+		}
+		
+		final File tempFile = new File(file.getPath() + ".tmp");
+		OutputStream out = null;
+		try {
+			out = new BufferedOutputStream(new FileOutputStream(tempFile));
+			ModelSnapshot.write(model, digest, out);
+			out.close();
+			out = null;
 			
-			MW.debug(Message.DBG_GENERATING_DOT_COMPLETED.getText(), 2, true);
-			return dotText;
+			file.delete();
+			if (!tempFile.renameTo(file)) {
+				throw new IOException("can't rename " + tempFile.getAbsolutePath());
+			}
+			MW.debug(Message.DBG_SNAPSHOT_SAVED.getText(file.getAbsolutePath()), 2, true);
 			
-		} catch (Exception ex) {
-			MW.write(Message.ERR_DOT_GENERATION.getText(), 2);
+		} catch (IOException ex) {
+			//the snapshot is optional, so the conversion is continued.
+			MW.debug(Message.DBG_SNAPSHOT_NOT_SAVED.getText(file.getAbsolutePath()), 1);
+			MW.debug(ex.toString(), 2);
+			close(out);
+			tempFile.delete();
+		}
+	}
+	
+	//close quietly
+	private static void close(Closeable c) {
+		if (c != null) {
+			try {
+				c.close();
+			} catch (IOException ex) {
+			}
+		}
+	}
+	
+	//convert the files of the batch mode, and write the summary
+	//(the error of each file is reported, and the other files are converted.)
+	private static void convertBatch(CommandLineOptions options) throws TerminationException {
+		final long start = System.currentTimeMillis();
+		final BatchConverter converter = new BatchConverter(options);
+		
+		final List<BatchConverter.Result> results;
+		try {
+			results = converter.convertAll(converter.listInputFiles());
+		} catch (IOException ex) {
+			MW.write(Message.ERR_BATCH_SOURCE.getText(options.getBatchSource().getAbsolutePath()), 2);
 			MW.exception(ex);
-			System.exit(1);
-			return null;
+			throw new TerminationException(1);
+		} catch (InterruptedException ex) {
+			MW.write(Message.ERR_UNKNOWN.getText(), 2);
+			MW.exception(ex);
+			throw new TerminationException(1);
+		}
+		
+		int failedCount = 0;
+		for (BatchConverter.Result result : results) {
+			if (result.isSuccess()) {
+				MW.debug(Message.DBG_BATCH_FILE_CONVERTED.getText(result.getOutputFile().getPath()), 1);
+			} else {
+				failedCount++;
+				MW.write(Message.BATCH_FILE_FAILED.getText(result.getInputFile().getPath()), 1);
+				MW.write("  " + result.getError().replace("\n", "\n  "), 2);  //indent is 2 spaces
+			}
+		}
+		
+		final long time = System.currentTimeMillis() - start;
+		MW.write(Message.BATCH_SUMMARY.getText(results.size() - failedCount, failedCount, time), 1);
+		
+		if (failedCount > 0) {
+			throw new TerminationException(1);
+		}
+	}
+	
+	//create the generator of output text (also used by the batch mode)
+	static GraphGenerator createGenerator(Model model, CommandLineOptions options) {
+		ErdNotation notation = options.getNotation();
+		if (notation == ErdNotation.NONE) {
+			notation = DefaultValues.ERD_NOTATION;
 		}
+		
+		String fontName = options.getFontName();
+		
+		ColorPair colorPair = options.getColorPair();
+		if (colorPair == ColorPair.NONE) {
+			colorPair = DefaultValues.COLOR_PAIR;
+		}
+		
+		final GraphGenerator genarator = new GraphGenerator(model, notation, fontName, colorPair);
+		genarator.setThreadCount(options.getThreadCount());
+		genarator.setReproducible(options.isReproducible());
+		return genarator;
 	}
 	
-	//write output text
-	private static void writeOutputText(String text, CommandLineOptions options) {
+	//generate and write output text
+	//(the lines are written as soon as they are generated, so the whole text isn't kept.)
+	private static void writeOutputText(Model model, CommandLineOptions options) throws TerminationException {
+		final GraphGenerator genarator = createGenerator(model, options);
+		
+		Writer writer = null;
 		try {
 			final File file = options.getOutputFile();
 			if (file != null) {
-				IoUtils.writeFileText(file, text);
+				writer = IoUtils.openFileWriter(file);
 			} else {
-				IoUtils.writeStandardOutputText(text);
+				writer = IoUtils.openStandardOutputWriter();
 			}
 			
+			genarator.writeTo(writer);
+			MW.debug(Message.DBG_GENERATING_DOT_COMPLETED.getText(), 2, true);
+			
+			writer.close();
+			writer = null;
 			MW.debug(Message.DBG_WRITING_DOT_COMPLETED.getText(), 2, true);
 			
 		} catch (FileNotFoundException ex) {
 			MW.write(Message.ERR_OUTPUT_FILE_NOT_FOUND.getText(getOutputName(options)), 2);
-			System.exit(1);
+			throw new TerminationException(1);
+		} catch (IOException ex) {
+			MW.write(Message.ERR_OUTPUT_EXCEPTION.getText(getOutputName(options)), 2);
+			MW.exception(ex);
+			throw new TerminationException(1);
+		} catch (RuntimeException ex) {
+			MW.write(Message.ERR_DOT_GENERATION.getText(), 2);
+			MW.exception(ex);
+			throw new TerminationException(1);
+		} finally {
+			close(writer);
+		}
+	}
+	
+	//render output image by graphviz
+	//(the text is written to graphviz as soon as it is generated, and graphviz writes the output file.
+	// the text is also written to the dot file if it is specified.)
+	private static void renderOutputImage(Model model, CommandLineOptions options) throws TerminationException {
+		final GraphGenerator genarator = createGenerator(model, options);
+		
+		final GraphvizRenderer renderer = new GraphvizRenderer(options.getGraphvizCommand(), 1);
+		renderer.setTimeout(options.getGraphvizTimeout() * 1000L);
+		
+		final File file = options.getOutputFile();
+		final File dotFile = options.getDotCopyFile();
+		Writer dotWriter = null;
+		try {
+			if (dotFile != null) {
+				dotWriter = IoUtils.openFileWriter(dotFile);
+			}
+		} catch (FileNotFoundException ex) {
+			MW.write(Message.ERR_OUTPUT_FILE_NOT_FOUND.getText(dotFile.getAbsolutePath()), 2);
+			throw new TerminationException(1);
+		} catch (IOException ex) {
+			MW.write(Message.ERR_OUTPUT_EXCEPTION.getText(dotFile.getAbsolutePath()), 2);
+			MW.exception(ex);
+			throw new TerminationException(1);
+		}
+		
+		boolean completed = false;
+		try {
+			final String diagnostics;
+			if (file != null) {
+				diagnostics = renderer.render(genarator, options.getOutputType(), file, dotWriter);
+			} else {
+				diagnostics = renderer.render(genarator, options.getOutputType(), System.out, dotWriter);
+				System.out.flush();
+			}
+			if (dotWriter != null) {
+				dotWriter.close();
+				dotWriter = null;
+			}
+			completed = true;
+			
+			//warnings of graphviz
+			if (!diagnostics.equals("")) {
+				MW.write(diagnostics, 1);
+			}
+			MW.debug(Message.DBG_RENDERING_COMPLETED.getText(), 2, true);
+			
+		} catch (GraphvizException ex) {
+			if (ex.isTimedOut()) {
+				MW.write(Message.ERR_GRAPHVIZ_TIMED_OUT.getText(options.getGraphvizTimeout()), 2);
+			} else {
+				MW.write(Message.ERR_GRAPHVIZ_FAILED.getText(ex.getMessage()), 2);
+			}
+			if (!ex.getDiagnostics().equals("")) {
+				MW.write(ex.getDiagnostics(), 1);
+			}
+			deleteEmptyFile(file);
+			throw new TerminationException(1);
 		} catch (IOException ex) {
 			MW.write(Message.ERR_OUTPUT_EXCEPTION.getText(getOutputName(options)), 2);
 			MW.exception(ex);
-			System.exit(1);
+			deleteEmptyFile(file);
+			throw new TerminationException(1);
+		} catch (RuntimeException ex) {
+			MW.write(Message.ERR_DOT_GENERATION.getText(), 2);
+			MW.exception(ex);
+			deleteEmptyFile(file);
+			throw new TerminationException(1);
+		} finally {
+			close(dotWriter);
+			//the incomplete dot text isn't left
+			if (!completed && dotFile != null) {
+				dotFile.delete();
+			}
+		}
+	}
+	
+	//delete the output file which graphviz has left empty
+	private static void deleteEmptyFile(File file) {
+		if (file != null && file.isFile() && file.length() == 0) {
+			file.delete();
 		}
 	}
 	
@@ -208,5 +557,21 @@ public class Main {
 		}
 	}
 	
+	//private exception class to return the exit status from run() after the error is reported
+	private static final class TerminationException extends Exception {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int status;
+		
+		TerminationException(int status) {
+			this.status = status;
+		}
+		
+		int getStatus() {
+			return this.status;
+		}
+	}
+	
 
 }
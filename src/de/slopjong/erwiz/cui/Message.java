@@ -30,20 +30,40 @@ enum Message {
 	ERR_OUTPUT_EXCEPTION,
 	ERR_TEXT_PARSING,
 	ERR_DOT_GENERATION,
+	ERR_GRAPHVIZ_FAILED,
+	ERR_GRAPHVIZ_TIMED_OUT,
+	ERR_MODEL_STORE,
+	ERR_BATCH_SOURCE,
 	ERR_UNKNOWN,
 	
 	//Debug Messages
 	DBG_DEBUG_MODE_ON,
 	DBG_READING_TEXT_COMPLETED,
 	DBG_PARSING_TEXT_COMPLETED,
+	DBG_SNAPSHOT_LOADED,
+	DBG_SNAPSHOT_NOT_USED,
+	DBG_SNAPSHOT_SAVED,
+	DBG_SNAPSHOT_NOT_SAVED,
 	DBG_GENERATING_DOT_COMPLETED,
 	DBG_WRITING_DOT_COMPLETED,
+	DBG_RENDERING_COMPLETED,
+	DBG_BATCH_FILE_CONVERTED,
+	
+	//Batch Messages
+	BATCH_FILE_FAILED,
+	BATCH_OUTPUT_CONFLICT,
+	BATCH_SUMMARY,
 	
 	//Detail Messages for Cmmand Line Options
 	CLO_UNKNOWN_ERD_NOTATION,
 	CLO_UNKNOWN_COLOR_NAME,
+	CLO_INVALID_THREAD_COUNT,
+	CLO_INVALID_TIMEOUT,
 	CLO_UNKNOWN_OPTION,
 	CLO_INVALID_PARAM,
+	CLO_INVALID_WITH_BATCH,
+	CLO_INVALID_WITH_STORE,
+	CLO_REQUIRES_OPTION,
 	
 	//Misc
 	MISC_STDIN,
@@ -51,26 +71,34 @@ enum Message {
 	;
 	
 	private static final String RESOURCE_NAME = Message.class.getPackage().getName()+".resources.messages";
-	private static MessageGenerator MESSAGE_GENERATOR;
+	private static volatile MessageGenerator MESSAGE_GENERATOR;
 	
 	/**
 	 * Initialize resource data to generate user messages.
-	 * If error occured, the process is terminated.
+	 * The resource data is loaded only at the first call, so this method can be called
+	 * by multiple threads. The generator isn't modified after it is published.
+	 * 
+	 * @throws IllegalStateException if the resource data can't be loaded
 	 */
-	public static void initialize() {
+	public static synchronized void initialize() {
+		if (MESSAGE_GENERATOR != null) {
+			return;
+		}
+		
 		try {
 			//initialize
-			MESSAGE_GENERATOR = new MessageGenerator();
-			MESSAGE_GENERATOR.setResourceBundle(ResourceUtils.getResourceBundle(RESOURCE_NAME));
-			MESSAGE_GENERATOR.addMessage(APP_NAME, ResourceUtils.readAppNameText());
+			final MessageGenerator generator = new MessageGenerator();
+			generator.setResourceBundle(ResourceUtils.getResourceBundle(RESOURCE_NAME));
+			generator.addMessage(APP_NAME, ResourceUtils.readAppNameText());
 			
 			//validate
 			final EnumSet<Message> es = EnumSet.allOf(Message.class);
-			MESSAGE_GENERATOR.validate(es);
+			generator.validate(es);
+			
+			MESSAGE_GENERATOR = generator;
 			
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.exit(1);
+		} catch (RuntimeException ex) {
+			throw new IllegalStateException("can't load the messages [" + RESOURCE_NAME + "]", ex);
 		}
 	}
 	
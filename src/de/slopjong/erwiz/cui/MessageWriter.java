@@ -21,6 +21,10 @@ final class MessageWriter {
 		this.debugMode = debugMode;
 	}
 	
+	public boolean isDebugMode() {
+		return this.debugMode;
+	}
+	
 	public void write(String msg, int numOfNewLines) {
 		try {
 			//system default encoding
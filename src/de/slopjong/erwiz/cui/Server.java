@@ -0,0 +1,325 @@
+package de.slopjong.erwiz.cui;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import de.slopjong.erwiz.common.IoUtils;
+import de.slopjong.erwiz.dot.GraphGenerator;
+import de.slopjong.erwiz.model.ColorPair;
+import de.slopjong.erwiz.model.ErdNotation;
+import de.slopjong.erwiz.plain.ModelParser;
+
+/**
+ * This is the resident server of this application, which converts the requests of the clients
+ * ({@code bin/erwizc}) in this process, so the clients don't pay the startup of the JVM
+ * and the loading of the messages.
+ * 
+ * The server listens on a TCP port of the loopback address, and writes the port and 
+ * a random token to the connection file, which can be read only by the owner.
+ * A request which doesn't have the token is refused.
+ * 
+ * The protocol (the lines are terminated by '\n', and encoded in UTF-8):
+ * 
+ * <pre>
+ * request:  ERWIZ1 &lt;token&gt;
+ *           &lt;current directory of the client&gt;
+ *           &lt;number of arguments&gt;
+ *           &lt;argument&gt; (for each argument)
+ *           &lt;length of the standard input&gt;
+ *           &lt;bytes of the standard input&gt;
+ * response: &lt;exit status&gt; &lt;number of lines of the standard error&gt;
+ *           &lt;line of the standard error&gt; (for each line)
+ *           &lt;bytes of the standard output&gt; (until the end of the stream)
+ * </pre>
+ * 
+ * The lengths of the lines, the number of arguments and the length of the standard input
+ * are limited, and the first line is read only up to the length of the valid one, 
+ * so a client which doesn't have the token can't make the server read a long line.
+ * A request which is broken or exceeds the limits is closed without a response.
+ * 
+ * The requests are converted one by one, because the console of this application 
+ * is the standard input, output and error of the system, which are replaced for each request.
+ * The request whose only argument is {@code --stop-daemon} stops the server.
+ * 
+ * Usage: {@code java de.slopjong.erwiz.cui.Server [<connection file>]}
+ * (the default is {@code ~/.erwiz/daemon})
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.cui.Main
+ */
+public final class Server {
+	
+	private static final String PROTOCOL = "ERWIZ1";
+	private static final String STOP_ARGUMENT = "--stop-daemon";
+	private static final String DEFAULT_CONNECTION_FILE = ".erwiz" + File.separator + "daemon";
+	
+	//the timeout to read a request from a client
+	private static final int REQUEST_TIMEOUT_MILLIS = 30 * 1000;
+	
+	private static final int TOKEN_LENGTH = 16;
+	
+	//the limits of a request
+	private static final int MAX_LINE_LENGTH = 64 * 1024;
+	private static final int MAX_ARGUMENT_COUNT = 1024;
+	private static final int MAX_INPUT_LENGTH = 256 * 1024 * 1024;
+	
+	//the size of a chunk of the standard input (the buffer grows while the input is read)
+	private static final int INPUT_CHUNK_LENGTH = 64 * 1024;
+	
+	private final File connectionFile;
+	private final String token;
+	private ServerSocket serverSocket = null;
+	private boolean stopped = false;
+	
+	/**
+	 * Main method of the server.
+	 * 
+	 * @param args the connection file (optional)
+	 */
+	public static void main(String[] args) {
+		final File file = (args.length >= 1) 
+			? new File(args[0]) 
+			: new File(System.getProperty("user.home"), DEFAULT_CONNECTION_FILE);
+			
+		try {
+			new Server(file).serve();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			System.exit(1);
+		} catch (RuntimeException ex) {
+			ex.printStackTrace();
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+	
+	/**
+	 * Constructs an object of this class.
+	 * 
+	 * @param connectionFile the file to write the port and the token
+	 */
+	Server(File connectionFile) {
+		this.connectionFile = connectionFile;
+		this.token = createToken();
+	}
+	
+	/**
+	 * Listens on the port, and converts the requests until the stop request is received.
+	 * 
+	 * @throws IOException if the port can't be opened, or the connection file can't be written
+	 */
+	void serve() throws IOException {
+		Message.initialize();
+		warmUp();
+		
+		this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		try {
+			writeConnectionFile(this.serverSocket.getLocalPort());
+			
+			while (!this.stopped) {
+				final Socket socket = this.serverSocket.accept();
+				try {
+					socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+					handle(socket);
+				} catch (IOException ex) {
+					//the error of a client doesn't stop the server
+				} catch (RuntimeException ex) {
+					//nor an unexpected error of a request
+					ex.printStackTrace();
+				} finally {
+					socket.close();
+				}
+			}
+			
+		} finally {
+			this.serverSocket.close();
+			this.connectionFile.delete();
+		}
+	}
+	
+	//read a request, convert it, and write the response
+	private void handle(Socket socket) throws IOException {
+		final InputStream in = new BufferedInputStream(socket.getInputStream());
+		
+		final String firstLine = PROTOCOL + " " + this.token;
+		if (!readLine(in, firstLine.length()).equals(firstLine)) {
+			return;
+		}
+		final File baseDir = new File(readLine(in, MAX_LINE_LENGTH));
+		final String[] args = new String[readCount(in, MAX_ARGUMENT_COUNT)];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = readLine(in, MAX_LINE_LENGTH);
+		}
+		final byte[] input = readBytes(in, readCount(in, MAX_INPUT_LENGTH));
+		
+		final OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+		
+		if (Arrays.asList(args).equals(Arrays.asList(STOP_ARGUMENT))) {
+			this.stopped = true;
+			writeResponse(out, 0, new byte[0], new byte[0]);
+			return;
+		}
+		
+		//replace the console of the system while converting
+		final ByteArrayOutputStream outputBuffer = new ByteArrayOutputStream();
+		final ByteArrayOutputStream errorBuffer = new ByteArrayOutputStream();
+		final InputStream systemIn = System.in;
+		final PrintStream systemOut = System.out;
+		final PrintStream systemErr = System.err;
+		final int status;
+		try {
+			System.setIn(new ByteArrayInputStream(input));
+			System.setOut(new PrintStream(outputBuffer, true));
+			System.setErr(new PrintStream(errorBuffer, true));
+			
+			status = Main.run(args, baseDir);
+			
+		} finally {
+			System.out.flush();
+			System.err.flush();
+			System.setIn(systemIn);
+			System.setOut(systemOut);
+			System.setErr(systemErr);
+		}
+		
+		writeResponse(out, status, errorBuffer.toByteArray(), outputBuffer.toByteArray());
+	}
+	
+	//write the status, the lines of the standard error, and the standard output
+	private static void writeResponse(OutputStream out, int status, byte[] error, byte[] output) 
+			throws IOException {
+			
+		int lineCount = 0;
+		for (byte b : error) {
+			if (b == '\n') {
+				lineCount++;
+			}
+		}
+		final boolean terminated = (error.length == 0 || error[error.length - 1] == '\n');
+		if (!terminated) {
+			lineCount++;
+		}
+		
+		out.write((status + " " + lineCount + "\n").getBytes("UTF-8"));
+		out.write(error);
+		if (!terminated) {
+			out.write('\n');
+		}
+		out.write(output);
+		out.flush();
+	}
+	
+	//write the port and the token to the connection file which only the owner can read
+	//(written to a temporary file first, so that the clients don't read a partial file.)
+	private void writeConnectionFile(int port) throws IOException {
+		final File dir = this.connectionFile.getAbsoluteFile().getParentFile();
+		if (dir != null) {
+			dir.mkdirs();
+		}
+		
+		final File tempFile = new File(this.connectionFile.getPath() + ".tmp");
+		tempFile.delete();
+		if (!tempFile.createNewFile()) {
+			throw new IOException("can't create " + tempFile.getAbsolutePath());
+		}
+		tempFile.setReadable(false, false);
+		tempFile.setReadable(true, true);
+		tempFile.setWritable(false, false);
+		tempFile.setWritable(true, true);
+		
+		IoUtils.writeFileText(tempFile, port + " " + this.token + "\n");
+		
+		this.connectionFile.delete();
+		if (!tempFile.renameTo(this.connectionFile)) {
+			throw new IOException("can't rename " + tempFile.getAbsolutePath());
+		}
+	}
+	
+	//load the classes and compile the common paths before the first request
+	private static void warmUp() {
+		final ModelParser parser = new ModelParser(Arrays.asList(
+				"{title: warm up}", 
+				"[A]", "*id", "name", 
+				"[B]", "*id", "a_id*", 
+				"A 1--* B"));
+		parser.parse();
+		
+		for (ErdNotation notation : ErdNotation.values()) {
+			if (notation != ErdNotation.NONE) {
+				new GraphGenerator(parser.getModel(), notation, null, ColorPair.WHITE).execute();
+			}
+		}
+	}
+	
+	//read a line which is terminated by '\n' (the bytes of the line are limited)
+	private static String readLine(InputStream in, int maxLength) throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != '\n') {
+			if (b < 0) {
+				throw new EOFException("the request is incomplete");
+			}
+			if (buffer.size() >= maxLength) {
+				throw new IOException("the line of the request is too long");
+			}
+			buffer.write(b);
+		}
+		return buffer.toString("UTF-8");
+	}
+	
+	//read a line of a count from 0 to the maximum
+	private static int readCount(InputStream in, int max) throws IOException {
+		final String line = readLine(in, String.valueOf(max).length());
+		final int count;
+		try {
+			count = Integer.parseInt(line);
+		} catch (NumberFormatException ex) {
+			throw new IOException("invalid count in the request: " + line);
+		}
+		if (count < 0 || count > max) {
+			throw new IOException("invalid count in the request: " + line);
+		}
+		return count;
+	}
+	
+	//read the specified number of bytes
+	//(the buffer grows while the bytes are read, so a large count doesn't allocate the memory alone)
+	private static byte[] readBytes(InputStream in, int length) throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(length, INPUT_CHUNK_LENGTH));
+		final byte[] chunk = new byte[INPUT_CHUNK_LENGTH];
+		while (buffer.size() < length) {
+			final int read = in.read(chunk, 0, Math.min(chunk.length, length - buffer.size()));
+			if (read < 0) {
+				throw new EOFException("the request is incomplete");
+			}
+			buffer.write(chunk, 0, read);
+		}
+		return buffer.toByteArray();
+	}
+	
+	private static String createToken() {
+		final byte[] bytes = new byte[TOKEN_LENGTH];
+		new SecureRandom().nextBytes(bytes);
+		
+		final StringBuilder sb = new StringBuilder();
+		for (byte b : bytes) {
+			sb.append(String.format("%02x", b & 0xff));
+		}
+		return sb.toString();
+	}
+	
+}
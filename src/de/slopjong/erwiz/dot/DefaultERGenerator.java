@@ -1,7 +1,7 @@
 package de.slopjong.erwiz.dot;
 
+import static de.slopjong.erwiz.dot.PackageUtils.appendEscapedLabel;
 import static de.slopjong.erwiz.dot.PackageUtils.escapeLabel;
-import static de.slopjong.erwiz.dot.PackageUtils.joinDotAttributes;
 import static de.slopjong.erwiz.dot.PackageUtils.wrapLabel;
 
 import java.util.ArrayList;
@@ -25,12 +25,19 @@ import de.slopjong.erwiz.model.VerbPhrase;
  * Default entity/relationship dot generator.
  * This class may have some subclasses.
  * 
+ * Each line is built in one buffer: the labels are escaped into the buffer
+ * (see {@code PackageUtils#appendEscapedLabel()}), and the attributes are appended
+ * by {@code DotAttributeBuilder}, because this code runs for every entity and attribute.
+ * 
  * @author kono
  * @version 1.0
  * @see de.slopjong.erwiz.dot.ERGenerator
  */
 class DefaultERGenerator implements ERGenerator {
 
+	//the escaped mark of foreign keys
+	private static final String FOREIGN_KEY_MARK = escapeLabel(" (FK)");
+	
 	private final RankDirection direction;
 	private final OptionMap globalOptions;
 	
@@ -88,8 +95,7 @@ class DefaultERGenerator implements ERGenerator {
 	 * @return a comment line
 	 */
 	private final String generateEntityCommentLine(Entity entity) {
-		final String format = "//E [%s]";
-		return String.format(format, entity.getName());
+		return "//E [" + entity.getName() + "]";
 	}
 	
 	/**
@@ -99,8 +105,7 @@ class DefaultERGenerator implements ERGenerator {
 	 * @return a comment line
 	 */
 	private final String generateRelCommentLine(Relationship rel) {
-		final String format = "//R [%s]--[%s]";
-		return String.format(format, rel.getNameOfEntity1(), rel.getNameOfEntity2());
+		return "//R [" + rel.getNameOfEntity1() + "]--[" + rel.getNameOfEntity2() + "]";
 	}
 	
 	/**
@@ -111,32 +116,29 @@ class DefaultERGenerator implements ERGenerator {
 	 */
 	private final String generateEntityLine(Entity entity) {
 		
-		String[] array = new String[6];
+		final StringBuilder sb = new StringBuilder(128 + entity.getAttributeCount() * 32);
+		sb.append(entity.getId()).append(" [");
 		
-		array[0] = "shape=" + generateNodeShape(entity);
+		final DotAttributeBuilder attributes = new DotAttributeBuilder(sb);
+		attributes.add("shape", generateNodeShape(entity));
 		
-		String nodeLabel = generateNodeLabel(entity);
+		attributes.begin("label").append('"');
 		if (direction == RankDirection.TOP_TO_BOTTOM) {
 			//As of this version, TOP_TO_BOTTOM is never specified by the invoker.
-			nodeLabel = "{" + nodeLabel + "}";
+			sb.append('{');
+			appendNodeLabel(sb, entity);
+			sb.append('}');
+		} else {
+			appendNodeLabel(sb, entity);
 		}
-		array[1] = "label=\"" + nodeLabel + "\"";
-		
-		final String dc = generateDarkColor(entity);
-		array[2] = !dc.equals("") ? ("color=\"" + dc + "\"") : "";
-		
-		final String lc = generateLightColor(entity);
-		array[3] = !lc.equals("") ? ("fillcolor=\"" + lc + "\"") : "";
-		
-		final String url = generateURL(entity);
-		array[4] = !url.equals("") ? ("URL=\"" + url + "\"") : "";
+		sb.append('"');
 		
-		final String tooltip = generateToolTip(entity);
-		array[5] = !tooltip.equals("") ? ("tooltip=\"" + tooltip + "\"") : "";
+		attributes.addQuoted("color", generateDarkColor(entity));
+		attributes.addQuoted("fillcolor", generateLightColor(entity));
+		attributes.addQuoted("URL", generateURL(entity));
+		attributes.addLabel("tooltip", entity.getName());
 		
-		final String format = "%s [%s]";
-		final String attributes = joinDotAttributes(array);
-		return String.format(format, entity.getId(), attributes);
+		return sb.append(']').toString();
 	}
 	
 	/**
@@ -151,49 +153,41 @@ class DefaultERGenerator implements ERGenerator {
 		
 		//the first entity side and the second entity side
 		final CardinalityWithOptionality cwo = rel.getCardinality();
-		final CardinalityElement[] ceArray = {cwo.getCardinality1(), cwo.getCardinality2()};
-		final OptionalityElement[] oeArray = {cwo.getOptionality1(), cwo.getOptionality2()};
 		final ParentOrChild[] parentOrChildArray = rel.getParentOrChildArray();
-		final String[] numberArray = {
-				rel.getOptions().getString(OptionName.N1),
-				rel.getOptions().getString(OptionName.N2)
-		};
-		final String[] arrowNames = {"arrowtail", "arrowhead"};
-		final String[] labelNames = {"taillabel", "headlabel"};
+		
+		final StringBuilder sb = new StringBuilder(160);
+		sb.append(eid1).append(" -> ").append(eid2).append(" [");
 		
 		//arrow style and arow label
-		String[] array = new String[6];
+		final DotAttributeBuilder attributes = new DotAttributeBuilder(sb);
 		for (int i = 0; i < 2; i++) {
+			final CardinalityElement ce = (i == 0) ? cwo.getCardinality1() : cwo.getCardinality2();
+			final OptionalityElement oe = (i == 0) ? cwo.getOptionality1() : cwo.getOptionality2();
+			final String number = rel.getOptions().getString((i == 0) ? OptionName.N1 : OptionName.N2);
 			
 			//NOTE: generateArrowStyle() and generateArrowLabel() may be overridden.
 			
-			String arrow = generateArrowStyle(ceArray[i], oeArray[i], parentOrChildArray[i]);
-			array[2 * i] = arrowNames[i] + "=" + arrow;
+			attributes.add((i == 0) ? "arrowtail" : "arrowhead", 
+					generateArrowStyle(ce, oe, parentOrChildArray[i]));
 			
-			String label = numberArray[i];
-			if (!label.equals("")) { //N1 or N2 specified
-				label = escapeLabel(wrapLabel(numberArray[i]));
+			attributes.begin((i == 0) ? "taillabel" : "headlabel").append('"');
+			if (!number.equals("")) { //N1 or N2 specified
+				appendEscapedLabel(sb, wrapLabel(number));
 			} else {
-				label = generateArrowLabel(ceArray[i], oeArray[i], parentOrChildArray[i]);
+				sb.append(generateArrowLabel(ce, oe, parentOrChildArray[i]));
 			}
-			
-			array[2 * i + 1] = labelNames[i] + "=\"" + label + "\"";
+			sb.append('"');
 		}
 		
 		//edge style
-		{
-			array[4] = "style=" + generateEdgeStyle(rel);
-		}
+		attributes.add("style", generateEdgeStyle(rel));
 		
 		//edge label
-		{
-			array[5] = "label=\"" + generateEdgeLabel(rel) + "\"";
-		}
+		attributes.begin("label").append('"');
+		appendEdgeLabel(sb, rel);
+		sb.append('"');
 		
-		//result
-		final String format = "%s -> %s [%s]";
-		final String attributes = joinDotAttributes(array);
-		return String.format(format, eid1, eid2, attributes);
+		return sb.append(']').toString();
 	}
 	
 	/**
@@ -212,70 +206,71 @@ class DefaultERGenerator implements ERGenerator {
 	}
 	
 	/**
-	 * Generates node label string to wite dot file.
+	 * Appends node label string to wite dot file.
 	 * This method is overridable.
 	 * 
+	 * @param sb the buffer
 	 * @param entity the entity
-	 * @return the generated string
 	 */
-	String generateNodeLabel(Entity entity) {
+	void appendNodeLabel(StringBuilder sb, Entity entity) {
 		
-		final StringBuilder sb = new StringBuilder();
 		final String betweenNameAndMark = "  "; //space:2
 		final List<EntityAttribute> attrList = entity.getAttributeList();
 		
 		//entity name
 		{
-			String entityName = entity.getName();
-			String mark = entity.getOptions().getString(OptionName.MARK);
+			appendEscapedLabel(sb, entity.getName());
+			
+			final String mark = entity.getOptions().getString(OptionName.MARK);
 			if (!mark.equals("")) {
-				entityName += betweenNameAndMark + mark;
+				appendEscapedLabel(sb, betweenNameAndMark);
+				appendEscapedLabel(sb, mark);
 			}
-			entityName = escapeLabel(entityName);
-			sb.append(entityName);
 			
 			if (attrList.isEmpty()) {
-				return sb.toString(); //no attributes
+				return; //no attributes
 			}
 		}
 		
 		sb.append("|{{");
 		
+		//the attributes may be the views which are created on each call (see Entity),
+		//so the last attribute is found by the index
+		final int lastIndex = attrList.size() - 1;
+		
 		//the first column to show primary keys
-		for (EntityAttribute attr : attrList) {
-			sb.append(attr.isPrimaryKey() ? "*" : " "); //PRIMARY KEY
-			if (attr != attrList.get(attrList.size() - 1)) {
-				sb.append("|"); // not last
+		for (int i = 0; i <= lastIndex; i++) {
+			final EntityAttribute attr = attrList.get(i);
+			sb.append(attr.isPrimaryKey() ? '*' : ' '); //PRIMARY KEY
+			if (i != lastIndex) {
+				sb.append('|'); // not last
 			}
 		}
 		
 		sb.append("}|{");
 		
 		//the second column to show attribute names and foreign keys
-		for (EntityAttribute attr : attrList) {
-			String attrName = escapeLabel(attr.getName());
-			sb.append(attrName);
+		for (int i = 0; i <= lastIndex; i++) {
+			final EntityAttribute attr = attrList.get(i);
+			appendEscapedLabel(sb, attr.getName());
 			
 			if (attr.isForeignKey()) {
-				sb.append(escapeLabel(" (FK)")); //FOREIGN KEY
+				sb.append(FOREIGN_KEY_MARK); //FOREIGN KEY
 			}
 			
-			String mark = attr.getOptions().getString(OptionName.MARK);
+			final String mark = attr.getOptions().getString(OptionName.MARK);
 			if (!mark.equals("")) {
-				mark = betweenNameAndMark + mark;
-				mark = escapeLabel(mark);
-				sb.append(mark);
+				appendEscapedLabel(sb, betweenNameAndMark);
+				appendEscapedLabel(sb, mark);
 			}
 			
 			sb.append("\\l"); //left-align
-			if (attr != attrList.get(attrList.size() - 1)) {
-				sb.append("|"); // not last
+			if (i != lastIndex) {
+				sb.append('|'); // not last
 			}
 		}
 		
 		sb.append("}}");
-		
-		return sb.toString();
 	}
 	
 	/**
@@ -320,39 +315,43 @@ class DefaultERGenerator implements ERGenerator {
 	}
 	
 	/**
-	 * Generates edge label string to wite dot file.
+	 * Appends edge label string to wite dot file.
 	 * This method is overridable.
 	 * 
+	 * @param sb the buffer
 	 * @param rel the relationship
-	 * @return the generated string
 	 */
-	String generateEdgeLabel(Relationship rel) {
+	void appendEdgeLabel(StringBuilder sb, Relationship rel) {
 		final VerbPhrase vp = rel.getVerbPhrase();
 		
 		if (vp.getText().equals("")) {
-			return "";
+			return;
 		}
 		
-		String label;
+		//the label is wrapped by spaces (see wrapLabel()), and each part is escaped
 		switch (vp.getDirection()) {
 			case FIRST_TO_SECOND:
-				label = "[" + vp.getText() + ">";
+				appendEscapedLabel(sb, " [");
+				appendEscapedLabel(sb, vp.getText());
+				appendEscapedLabel(sb, "> ");
 				break;
 			case SECOND_TO_FIRST:
-				label = "<" + vp.getText() + "]";
+				appendEscapedLabel(sb, " <");
+				appendEscapedLabel(sb, vp.getText());
+				appendEscapedLabel(sb, "] ");
 				break;
 			case NONE:
-				//label = "[" + vp.getText() + "]";
-				label = vp.getText();
+				appendEscapedLabel(sb, " ");
+				appendEscapedLabel(sb, vp.getText());
+				appendEscapedLabel(sb, " ");
 				break;
 			default:
 				assert false : "unknown verb direction [" + vp.getDirection() + "]";
-				//label = "[" + vp.getText() + "]";
-				label = vp.getText();
+				appendEscapedLabel(sb, " ");
+				appendEscapedLabel(sb, vp.getText());
+				appendEscapedLabel(sb, " ");
 				break;
 		}
-		
-		return escapeLabel(wrapLabel(label));
 	}
 	
 	//private utility method for readability
@@ -379,17 +378,12 @@ class DefaultERGenerator implements ERGenerator {
 	private final String generateURL(Entity entity) {
 		String value = this.globalOptions.getString(OptionName.LINK_FILES);
 		if (value != null && !value.equals("")) {
-			return value.replaceAll("\\$\\{entity\\}", entity.getName()); //${entity} -> entity name
+			return value.replace("${entity}", entity.getName()); //${entity} -> entity name (no regex)
 		} else {
 			return "";
 		}
 	}
 	
-	//private utility method for readability
-	private final String generateToolTip(Entity entity) {
-		return escapeLabel(entity.getName());
-	}
-	
 	//private utility method for readability
 	private Relationship reverseVerbDirection(Relationship rel) {
 		return new Relationship(
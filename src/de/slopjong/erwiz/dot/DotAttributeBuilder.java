@@ -0,0 +1,86 @@
+package de.slopjong.erwiz.dot;
+
+import static de.slopjong.erwiz.dot.PackageUtils.appendEscapedLabel;
+
+/**
+ * This class appends the attribute list of a node or an edge to a buffer.
+ * 
+ * The attributes are separated by commas, and the names and the values are appended
+ * directly to the buffer, so no temporary strings are created.
+ * 
+ * Usage:
+ * 
+ * <ol>
+ *   <li>Append the node id or the edge and " [" to the buffer.
+ *   <li>Create an object of this class with the buffer, and add the attributes.
+ *   <li>Append "]" to the buffer.
+ * </ol>
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.dot.DefaultERGenerator
+ */
+final class DotAttributeBuilder {
+	
+	private final StringBuilder sb;
+	private boolean isEmpty = true;
+	
+	/**
+	 * Creates an instance of this class.
+	 * 
+	 * @param sb the buffer which the attributes are appended to
+	 */
+	DotAttributeBuilder(StringBuilder sb) {
+		this.sb = sb;
+	}
+	
+	/**
+	 * Begins an attribute. The value should be appended to the returned buffer.
+	 * 
+	 * @param name the attribute name
+	 * @return the buffer
+	 */
+	StringBuilder begin(String name) {
+		if (!this.isEmpty) {
+			this.sb.append(", ");
+		}
+		this.isEmpty = false;
+		return this.sb.append(name).append('=');
+	}
+	
+	/**
+	 * Adds an attribute whose value isn't quoted.
+	 * 
+	 * @param name the attribute name
+	 * @param value the attribute value
+	 */
+	void add(String name, String value) {
+		begin(name).append(value);
+	}
+	
+	/**
+	 * Adds an attribute whose value is quoted, if the value isn't empty.
+	 * 
+	 * @param name the attribute name
+	 * @param value the attribute value
+	 */
+	void addQuoted(String name, String value) {
+		if (value.length() > 0) {
+			begin(name).append('"').append(value).append('"');
+		}
+	}
+	
+	/**
+	 * Adds an attribute whose value is the escaped label text, if the text isn't empty.
+	 * 
+	 * @param name the attribute name
+	 * @param text the label text which isn't escaped
+	 */
+	void addLabel(String name, String text) {
+		if (text.length() > 0) {
+			begin(name).append('"');
+			appendEscapedLabel(this.sb, text).append('"');
+		}
+	}
+	
+}
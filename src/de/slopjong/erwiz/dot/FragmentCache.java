@@ -0,0 +1,167 @@
+package de.slopjong.erwiz.dot;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class is a cache of the dot fragments of entities and relationships.
+ * 
+ * A fragment is the text which {@code GraphGenerator} writes for one entity or relationship.
+ * The fragments are keyed by all contents which affect the text: the element itself, 
+ * the notation, the color pair and the global options (see {@code FragmentKeyBuilder}).
+ * The keys are looked up by the hashes of the contents, and a fragment is found only if 
+ * the contents are equal, so the cache holds the contents as well as the fragments.
+ * When a model is generated again after a small edit with the same cache 
+ * (see {@code GraphGenerator#setFragmentCache()}), the fragments of the unchanged elements
+ * are reused, and only the changed elements are generated.
+ * 
+ * The cache holds the fragments which are used most recently, up to the specified count.
+ * This class is thread-safe, so a cache can be shared by the generators which run
+ * in parallel, and by the generation of different models.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.dot.GraphGenerator
+ */
+public final class FragmentCache {
+	
+	//the fragments in the order of access (the eldest is the first)
+	private final Map<Key, String> map;
+	
+	//counters
+	private long hitCount = 0;
+	private long missCount = 0;
+	
+	/**
+	 * Creates an empty cache.
+	 * 
+	 * @param maxEntries the maximum number of the fragments which this cache holds
+	 * @throws IllegalArgumentException if the specified number is less than 1
+	 */
+	public FragmentCache(final int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("the number of entries is less than 1: " + maxEntries);
+		}
+		
+		this.map = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+	
+	/**
+	 * Retrieves the count of lookups which have found the fragments.
+	 * 
+	 * @return the count of hits
+	 */
+	public synchronized long getHitCount() {
+		return this.hitCount;
+	}
+	
+	/**
+	 * Retrieves the count of lookups which haven't found the fragments.
+	 * 
+	 * @return the count of misses
+	 */
+	public synchronized long getMissCount() {
+		return this.missCount;
+	}
+	
+	/**
+	 * Retrieves the number of the fragments in this cache.
+	 * 
+	 * @return the number of the fragments
+	 */
+	public synchronized int size() {
+		return this.map.size();
+	}
+	
+	/**
+	 * Removes all fragments. The counters aren't reset.
+	 */
+	public synchronized void clear() {
+		this.map.clear();
+	}
+	
+	/**
+	 * Retrieves the fragment for the specified key, and counts a hit or a miss.
+	 * 
+	 * @param key the key of the fragment
+	 * @return the fragment, or null if this cache doesn't have it
+	 */
+	synchronized String get(Key key) {
+		final String fragment = this.map.get(key);
+		if (fragment != null) {
+			this.hitCount++;
+		} else {
+			this.missCount++;
+		}
+		return fragment;
+	}
+	
+	/**
+	 * Adds the fragment for the specified key.
+	 * 
+	 * @param key the key of the fragment
+	 * @param fragment the fragment
+	 */
+	synchronized void put(Key key, String fragment) {
+		this.map.put(key, fragment);
+	}
+	
+	/**
+	 * This class represents the key of a fragment, which is the contents and the 128 bits hash 
+	 * of them. The contents of the context (null for the key of a context) precede the contents.
+	 * The keys are equal only if the contents are equal, and the hashes are compared first.
+	 * This class is immutable.
+	 */
+	static final class Key {
+		
+		private final long high;
+		private final long low;
+		private final Key context;
+		private final int[] contents;
+		
+		Key(long high, long low, Key context, int[] contents) {
+			this.high = high;
+			this.low = low;
+			this.context = context;
+			this.contents = contents;
+		}
+		
+		long getHigh() {
+			return this.high;
+		}
+		
+		long getLow() {
+			return this.low;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key)obj;
+			if (this.high != other.high || this.low != other.low) {
+				return false;
+			}
+			
+			final boolean sameContext = (this.context == null) 
+				? (other.context == null) 
+				: this.context.equals(other.context);
+			return sameContext && Arrays.equals(this.contents, other.contents);
+		}
+		
+		@Override
+		public int hashCode() {
+			return (int)this.low;
+		}
+	}
+	
+}
@@ -0,0 +1,225 @@
+package de.slopjong.erwiz.dot;
+
+import java.util.Arrays;
+
+import de.slopjong.erwiz.model.CardinalityWithOptionality;
+import de.slopjong.erwiz.model.ColorPair;
+import de.slopjong.erwiz.model.Entity;
+import de.slopjong.erwiz.model.EntityAttribute;
+import de.slopjong.erwiz.model.OptionMap;
+import de.slopjong.erwiz.model.Relationship;
+
+/**
+ * This class builds the keys of the fragments in {@code FragmentCache}.
+ * 
+ * The contents are added as a sequence of ints, with their lengths, so the boundaries of them
+ * are distinguished. The key has the sequence itself and two 64 bits hashes (FNV-1a and 
+ * a multiply-rotate hash) of it: the hashes are used for the lookup, and the sequences are 
+ * compared when the hashes are equal, so a fragment is never found for different contents.
+ * The key of an element refers to the key of its context instead of copying the contents of it.
+ * All options of this package (see {@code OptionName}) are added for each option map, 
+ * so the key doesn't depend on which options are used by the generators.
+ * 
+ * Usage: create the builder for the context (the notation, the color pair and the global options), 
+ * and create the builder for each element from the context key.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.dot.FragmentCache
+ */
+final class FragmentKeyBuilder {
+	
+	//constants of the hashes
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final long SEED = 0x9e3779b97f4a7c15L;
+	private static final long MULTIPLIER = 0xc2b2ae3d27d4eb4fL;
+	
+	//the marker of null values
+	private static final int NULL = -1;
+	
+	private static final OptionName[] OPTION_NAMES = OptionName.values();
+	
+	private final FragmentCache.Key context;
+	private long high;
+	private long low;
+	
+	//the contents which have been added (the key material)
+	private int[] contents = new int[64];
+	private int length = 0;
+	
+	/**
+	 * Creates a builder without contents.
+	 */
+	FragmentKeyBuilder() {
+		this.context = null;
+		this.high = FNV_OFFSET_BASIS;
+		this.low = SEED;
+	}
+	
+	/**
+	 * Creates a builder whose contents follow the contents of the specified key.
+	 * 
+	 * @param context the key of the context
+	 */
+	FragmentKeyBuilder(FragmentCache.Key context) {
+		this.context = context;
+		this.high = context.getHigh();
+		this.low = context.getLow();
+	}
+	
+	/**
+	 * Creates the key of the contents which have been added.
+	 * 
+	 * @return the key
+	 */
+	FragmentCache.Key build() {
+		return new FragmentCache.Key(mix(this.high), mix(this.low), 
+				this.context, Arrays.copyOf(this.contents, this.length));
+	}
+	
+	/**
+	 * Adds the context of the generation.
+	 * 
+	 * @param notationName the name of the notation
+	 * @param colorPair the color pair
+	 * @param rankDir the rank direction
+	 * @param globalOptions the global options
+	 * @return this builder
+	 */
+	FragmentKeyBuilder addContext(String notationName, ColorPair colorPair, RankDirection rankDir, 
+			OptionMap globalOptions) {
+		addString(notationName);
+		addEnum(colorPair);
+		addEnum(rankDir);
+		addOptions(globalOptions);
+		return this;
+	}
+	
+	/**
+	 * Adds the contents of an entity.
+	 * 
+	 * @param entity the entity
+	 * @return this builder
+	 */
+	FragmentKeyBuilder addEntity(Entity entity) {
+		addInt('E');
+		addString(entity.getId());
+		addString(entity.getName());
+		addEnum(entity.getDependency());
+		addOptions(entity.getOptions());
+		
+		final int count = entity.getAttributeCount();
+		addInt(count);
+		for (int i = 0; i < count; i++) {
+			final EntityAttribute attr = entity.getAttribute(i);
+			addString(attr.getName());
+			addInt((attr.isPrimaryKey() ? 1 : 0) | (attr.isForeignKey() ? 2 : 0));
+			addOptions(attr.getOptions());
+		}
+		return this;
+	}
+	
+	/**
+	 * Adds the contents of a relationship.
+	 * 
+	 * @param rel the relationship
+	 * @param eid1 the id of the first entity
+	 * @param eid2 the id of the second entity
+	 * @return this builder
+	 */
+	FragmentKeyBuilder addRelationship(Relationship rel, String eid1, String eid2) {
+		addInt('R');
+		addString(eid1);
+		addString(eid2);
+		addString(rel.getNameOfEntity1());
+		addString(rel.getNameOfEntity2());
+		addEnum(rel.getDependencyOfEntity1());
+		addEnum(rel.getDependencyOfEntity2());
+		
+		final CardinalityWithOptionality cwo = rel.getCardinality();
+		addEnum(cwo.getCardinality1());
+		addEnum(cwo.getOptionality1());
+		addEnum(cwo.getCardinality2());
+		addEnum(cwo.getOptionality2());
+		
+		addString(rel.getVerbPhrase().getText());
+		addEnum(rel.getVerbPhrase().getDirection());
+		addOptions(rel.getOptions());
+		return this;
+	}
+	
+	//add the values of all options of this package
+	private void addOptions(OptionMap options) {
+		if (options == null) {
+			addInt(NULL);
+			return;
+		}
+		
+		for (OptionName name : OPTION_NAMES) {
+			final Class<?> type = name.getOptionInfo().getValueType();
+			if (type == String.class) {
+				addString(options.getString(name));
+			} else if (type == Boolean.class) {
+				final Boolean value = options.getBoolean(name);
+				addInt((value != null) ? (value ? 1 : 0) : NULL);
+			} else if (type == Integer.class) {
+				final Integer value = options.getInteger(name);
+				addInt((value != null) ? 1 : NULL);
+				addInt((value != null) ? value : 0);
+			} else if (type == Double.class) {
+				final Double value = options.getDouble(name);
+				final long bits = (value != null) ? Double.doubleToLongBits(value) : 0L;
+				addInt((value != null) ? 1 : NULL);
+				addInt((int)(bits >>> 32));
+				addInt((int)bits);
+			} else if (type == ColorPair.class) {
+				addEnum(options.getColorPair(name));
+			} else {
+				assert false : "unknown option type [" + type + "]";
+			}
+		}
+	}
+	
+	private void addString(String s) {
+		if (s == null) {
+			addInt(NULL);
+			return;
+		}
+		
+		//two characters are added at once
+		final int length = s.length();
+		addInt(length);
+		for (int i = 1; i < length; i += 2) {
+			addInt(s.charAt(i - 1) | (s.charAt(i) << 16));
+		}
+		if ((length & 1) != 0) {
+			addInt(s.charAt(length - 1));
+		}
+	}
+	
+	private void addEnum(Enum<?> e) {
+		addInt((e != null) ? e.ordinal() : NULL);
+	}
+	
+	private void addInt(int value) {
+		if (this.length == this.contents.length) {
+			this.contents = Arrays.copyOf(this.contents, this.length * 2);
+		}
+		this.contents[this.length++] = value;
+		
+		this.high = (this.high ^ value) * FNV_PRIME;
+		this.low = Long.rotateLeft(this.low + value * MULTIPLIER, 31) * SEED;
+	}
+	
+	//the finalizer of MurmurHash3 (64 bits)
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	
+}
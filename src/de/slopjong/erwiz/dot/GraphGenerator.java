@@ -1,10 +1,20 @@
 package de.slopjong.erwiz.dot;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import de.slopjong.erwiz.common.ResourceUtils;
 import de.slopjong.erwiz.dot.ResourceName;
@@ -12,6 +22,7 @@ import de.slopjong.erwiz.model.ColorPair;
 import de.slopjong.erwiz.model.Entity;
 import de.slopjong.erwiz.model.ErdNotation;
 import de.slopjong.erwiz.model.Model;
+import de.slopjong.erwiz.model.ModelGraph;
 import de.slopjong.erwiz.model.Relationship;
 
 
@@ -21,6 +32,25 @@ import static de.slopjong.erwiz.dot.PackageUtils.escapeLabel;
  * This class is a generator of a string to write dot files.
  * This class is used by other classes which are defined in other packages.
  * 
+ * An object of this class is used by one thread, but the objects for different models
+ * can be used by multiple threads at the same time. The lines of the global attributes
+ * are read from the resources only once, and shared by all objects.
+ * 
+ * If the thread count is set to more than 1 by {@code setThreadCount()} method, 
+ * the lines of entities and relationships are generated in parallel by chunks.
+ * The chunks are written in the order of the model, so the output is the same as
+ * the sequential generation. Only a limited number of chunks are generated ahead
+ * of the output, so the whole text isn't kept in the memory.
+ * 
+ * If a {@code FragmentCache} object is set by {@code setFragmentCache()} method, 
+ * the lines of the entities and relationships whose contents are the same as
+ * the previous generation are taken from the cache instead of being generated.
+ * 
+ * If the reproducible mode is set by {@code setReproducible()} method, the output depends
+ * only on the model, the options and the version of this application: the header comment 
+ * has no time stamp, and the global attributes are written in the canonical form 
+ * ({@code name=value}) in the order of the names.
+ * 
  * @author kono
  * @version 1.0
  */
@@ -31,11 +61,23 @@ public final class GraphGenerator {
 	private final String fontName;
 	private final ColorPair colorPair;
 	private final RankDirection rankDir = RankDirection.LEFT_TO_RIGHT; //fixed as of this version
-	private StringBuilder sb;
+	private int threadCount = 1;
+	private FragmentCache fragmentCache = null;
+	private boolean reproducible = false;
 
 	private static final String INDENT1 = "\t";
 	private static final String INDENT2 = "\t\t";
 	
+	//the number of elements which are generated by one task in parallel generation
+	private static final int ELEMENTS_PER_CHUNK = 256;
+	
+	//the number of chunks which are generated ahead for each thread in parallel generation
+	private static final int CHUNKS_AHEAD_PER_THREAD = 4;
+	
+	//the lines of the global attributes which are read from the resources (unmodifiable)
+	private static final ConcurrentMap<ResourceName, List<String>> RESOURCE_LINES_CACHE = 
+		new ConcurrentHashMap<ResourceName, List<String>>();
+	
 	/**
 	 * Creates an instance of this class.
 	 * 
@@ -51,68 +93,251 @@ public final class GraphGenerator {
 		this.colorPair = colorPair;
 	}
 	
+	/**
+	 * Sets the number of threads which generate the lines of entities and relationships.
+	 * The default is 1, which means the lines are generated sequentially 
+	 * in the thread calling {@code execute()} or {@code writeTo()} method.
+	 * 
+	 * @param threadCount the number of threads
+	 * @throws IllegalArgumentException if the specified number is less than 1
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("the thread count is less than 1: " + threadCount);
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Sets the cache of the lines of entities and relationships.
+	 * The default is null, which means all lines are generated.
+	 * 
+	 * @param fragmentCache the cache, or null
+	 */
+	public void setFragmentCache(FragmentCache fragmentCache) {
+		this.fragmentCache = fragmentCache;
+	}
+	
+	/**
+	 * Sets the reproducible mode, in which the same model and options always generate
+	 * the same text. The default is false, which means the header comment has the time stamp.
+	 * 
+	 * @param reproducible true to generate the reproducible text
+	 */
+	public void setReproducible(boolean reproducible) {
+		this.reproducible = reproducible;
+	}
+	
 	/**
 	 * Generates a string for the specified model.
 	 * 
 	 * @return the generated string
-	 * @throws IOException if resource error has occured
+	 * @throws IllegalStateException if resource error has occured
 	 */
-	public String execute() throws IOException {
-		this.sb = new StringBuilder();
-		
+	public String execute() {
+		final StringBuilder sb = new StringBuilder();
+		try {
+			writeTo(sb);
+		} catch (IOException ex) {
+			assert false : "StringBuilder never throws IOException";
+			throw new IllegalStateException(ex);
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Writes the dot text for the specified model to the specified output.
+	 * 
+	 * The lines of each entity and relationship are written as soon as they are generated,
+	 * so the whole text isn't kept in the memory. If the output is a {@code Writer}, 
+	 * it should be buffered. The output isn't flushed nor closed.
+	 * 
+	 * @param out the output of the dot text
+	 * @throws IOException if an I/O error occurs while writing to the output
+	 *                     ({@code InterruptedIOException} if the thread is interrupted
+	 *                     in parallel generation)
+	 * @throws IllegalStateException if resource error has occured
+	 */
+	public void writeTo(Appendable out) throws IOException {
 		//header comment
 		final String hc = generateHeaderCommentLine();
-		this.sb.append("/* \n");
-		this.sb.append(" * ").append(hc).append("\n");
-		this.sb.append(" */\n");
-		this.sb.append("\n");
+		out.append("/* \n");
+		out.append(" * ").append(hc).append("\n");
+		out.append(" */\n");
+		out.append("\n");
 		
 		//begin graph
-		this.sb.append("digraph ERD {\n");
-		this.sb.append("\n");
+		out.append("digraph ERD {\n");
+		out.append("\n");
 		
 		//global
-		this.sb.append(generateGlobalAttributes(ResourceName.GraphAttributes));
-		this.sb.append(generateGlobalAttributes(ResourceName.NodeAttributes));
-		this.sb.append(generateGlobalAttributes(ResourceName.EdgeAttributes));
+		out.append(generateGlobalAttributes(ResourceName.GraphAttributes));
+		out.append(generateGlobalAttributes(ResourceName.NodeAttributes));
+		out.append(generateGlobalAttributes(ResourceName.EdgeAttributes));
 		
 		//generator for entities and relationships
 		final ERGenerator gen = FactoryMethods.createERGenerator(
 				this.notation, RankDirection.LEFT_TO_RIGHT, this.model.getOptions());
 		
-		//entities
-		for (Entity entity : this.model.getEntityList()) {
-			final List<String> lines = gen.generateEntityLines(entity);
+		//key of the context of the fragments (null if the cache isn't used)
+		final FragmentCache.Key context = (this.fragmentCache != null) 
+			? new FragmentKeyBuilder().addContext(this.notation.name(), this.colorPair, 
+					this.rankDir, this.model.getOptions()).build()
+			: null;
+		
+		//entities and relationships
+		if (this.threadCount > 1) {
+			writeElementsInParallel(out, gen, context);
+		} else {
+			writeEntities(out, gen, context, 0, this.model.getEntityCount());
+			writeRelationships(out, gen, context, 0, this.model.getRelationshipCount());
+		}
+		
+		//end graph
+		out.append("}\n");
+	}
+	
+	//write the lines of the entities in the specified range
+	private void writeEntities(Appendable out, ERGenerator gen, FragmentCache.Key context, 
+			int from, int to) throws IOException {
+		for (int i = from; i < to; i++) {
+			final Entity entity = this.model.getEntity(i);
+			
+			if (context == null) {
+				appendLines(out, gen.generateEntityLines(entity));
+				continue;
+			}
 			
-			for (String line : lines) {
-				this.sb.append(INDENT1).append(line).append("\n");
+			final FragmentCache.Key key = new FragmentKeyBuilder(context).addEntity(entity).build();
+			String fragment = this.fragmentCache.get(key);
+			if (fragment == null) {
+				final StringBuilder sb = new StringBuilder();
+				appendLines(sb, gen.generateEntityLines(entity));
+				fragment = sb.toString();
+				this.fragmentCache.put(key, fragment);
 			}
-			this.sb.append("\n");
+			out.append(fragment);
 		}
-		
-		//relationships
-		for (Relationship rel : this.model.getRelationshipList()) {
-			final Map<String, Entity> map = this.model.getEntityMap();
-			final String eid1 = map.get(rel.getNameOfEntity1()).getId();
-			final String eid2 = map.get(rel.getNameOfEntity2()).getId();
+	}
+	
+	//write the lines of the relationships in the specified range
+	private void writeRelationships(Appendable out, ERGenerator gen, FragmentCache.Key context, 
+			int from, int to) throws IOException {
+		final ModelGraph graph = this.model.getGraph();
+		for (int i = from; i < to; i++) {
+			final Relationship rel = this.model.getRelationship(i);
+			final String eid1 = this.model.getEntity(graph.getEntity1Index(i)).getId();
+			final String eid2 = this.model.getEntity(graph.getEntity2Index(i)).getId();
 			
-			final List<String> lines = gen.generateRelLines(rel, eid1, eid2);
+			if (context == null) {
+				appendLines(out, gen.generateRelLines(rel, eid1, eid2));
+				continue;
+			}
 			
-			for (String line : lines) {
-				this.sb.append(INDENT1).append(line).append("\n");
+			final FragmentCache.Key key = 
+				new FragmentKeyBuilder(context).addRelationship(rel, eid1, eid2).build();
+			String fragment = this.fragmentCache.get(key);
+			if (fragment == null) {
+				final StringBuilder sb = new StringBuilder();
+				appendLines(sb, gen.generateRelLines(rel, eid1, eid2));
+				fragment = sb.toString();
+				this.fragmentCache.put(key, fragment);
 			}
-			this.sb.append("\n");
+			out.append(fragment);
+		}
+	}
+	
+	//write the lines of an entity or a relationship, and the blank line
+	private static void appendLines(Appendable out, List<String> lines) throws IOException {
+		for (String line : lines) {
+			out.append(INDENT1).append(line).append("\n");
 		}
+		out.append("\n");
+	}
+	
+	//generate the chunks of entities and relationships in parallel, and write them in order.
+	//the generator has no mutable state and the model is frozen, so they are shared by the tasks.
+	private void writeElementsInParallel(Appendable out, final ERGenerator gen, 
+			final FragmentCache.Key context) throws IOException {
+		final int entityCount = this.model.getEntityCount();
+		final int chunkCount = chunkCount(entityCount) + chunkCount(this.model.getRelationshipCount());
+		final int maxAhead = this.threadCount * CHUNKS_AHEAD_PER_THREAD;
 		
-		//end graph
-		this.sb.append("}\n");
+		this.model.getGraph(); //created before the tasks
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+		try {
+			final LinkedList<Future<StringBuilder>> futures = new LinkedList<Future<StringBuilder>>();
+			int submitted = 0;
+			
+			for (int written = 0; written < chunkCount; written++) {
+				while (submitted < chunkCount && futures.size() < maxAhead) {
+					futures.add(executor.submit(createChunkTask(gen, context, submitted, entityCount)));
+					submitted++;
+				}
+				out.append(getResult(futures.removeFirst()));
+			}
+			
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while generating the dot text");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	//the task to generate the chunk of the specified index
+	//(the chunks of the entities come first, and the chunks of the relationships follow them)
+	private Callable<StringBuilder> createChunkTask(final ERGenerator gen, final FragmentCache.Key context, 
+			int chunk, int entityCount) {
+		final int entityChunkCount = chunkCount(entityCount);
+		final boolean isEntityChunk = (chunk < entityChunkCount);
+		final int from = (isEntityChunk ? chunk : chunk - entityChunkCount) * ELEMENTS_PER_CHUNK;
+		final int count = isEntityChunk ? entityCount : this.model.getRelationshipCount();
+		final int to = Math.min(from + ELEMENTS_PER_CHUNK, count);
 		
-		return this.sb.toString();
+		return new Callable<StringBuilder>() {
+			public StringBuilder call() throws IOException {
+				final StringBuilder sb = new StringBuilder();
+				if (isEntityChunk) {
+					writeEntities(sb, gen, context, from, to);
+				} else {
+					writeRelationships(sb, gen, context, from, to);
+				}
+				return sb;
+			}
+		};
+	}
+	
+	private static int chunkCount(int elementCount) {
+		return (elementCount + ELEMENTS_PER_CHUNK - 1) / ELEMENTS_PER_CHUNK;
+	}
+	
+	//private utility method to wait for the result of a task.
+	//an unchecked exception thrown in the task is rethrown.
+	private static <T> T getResult(Future<T> future) throws InterruptedException, IOException {
+		try {
+			return future.get();
+		} catch (ExecutionException ex) {
+			final Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if (cause instanceof Error) {
+				throw (Error)cause;
+			} else if (cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			throw new IllegalStateException(cause);
+		}
 	}
 	
 	private String generateHeaderCommentLine() {
 		final String appName = ResourceUtils.readAppNameText();
 		
+		if (this.reproducible) {
+			return String.format("This file was generated by [%s]", appName);
+		}
+		
 		final String dtFmt = "yyyy/MM/dd HH:mm:ss.SSS Z";
 		final String datetime = new SimpleDateFormat(dtFmt).format(new Date());
 		
@@ -120,38 +345,44 @@ public final class GraphGenerator {
 		return String.format(msgFmt, appName, datetime);
 	}
 	
-	private String generateGlobalAttributes(ResourceName resource) throws IOException {
+	//the lines are read at the first call (they may be read twice by concurrent calls).
+	//the error of resources is thrown as IllegalStateException, so that IOException of
+	//writeTo() means the error of the output.
+	private static List<String> readResourceLines(ResourceName resource) {
+		List<String> lines = RESOURCE_LINES_CACHE.get(resource);
+		if (lines == null) {
+			try {
+				lines = Collections.unmodifiableList(
+						ResourceUtils.readResouceLines(resource.getPath(), resource.getClass()));
+			} catch (IOException ex) {
+				throw new IllegalStateException("can't read the resource [" + resource.getPath() + "]", ex);
+			}
+			RESOURCE_LINES_CACHE.putIfAbsent(resource, lines);
+		}
+		return lines;
+	}
+	
+	private String generateGlobalAttributes(ResourceName resource) {
 		
-		List<String> confLines = ResourceUtils.readResouceLines(resource.getPath(), resource.getClass());
+		List<String> lines = new ArrayList<String>(readResourceLines(resource));
 		StringBuilder sb = new StringBuilder();
 		
-		//begin
-		sb.append(INDENT1).append(resource.getName()).append(" [\n");
-		
-		//write lines
-		for (String line : confLines) {
-			sb.append(INDENT2).append(line).append("\n");
-		}
-		
 		//dynamic data
 		switch (resource) {
 			case GraphAttributes: {
 				if (this.fontName != null) {
-					sb.append(INDENT2).append("fontname=\"").append(this.fontName).append("\"\n");
+					lines.add("fontname=\"" + this.fontName + "\"");
 				}
-				String line = INDENT2 + "rankdir=" + this.rankDir.getValue() + "\n";
-				sb.append(line);
+				lines.add("rankdir=" + this.rankDir.getValue());
 				
 				String title = this.model.getOptions().getString(OptionName.TITLE);
 				if (!title.equals("")) {
 					title = escapeLabel(title) + "\\n\\n";
 				}
-				line = INDENT2 + "label=\"" + title + "\"\n";
-				sb.append(line);
+				lines.add("label=\"" + title + "\"");
 				
 				final int titleSize = this.model.getOptions().getInteger(OptionName.TITLE_SIZE);
-				line = INDENT2 + "fontsize=" + titleSize + "\n";
-				sb.append(line);
+				lines.add("fontsize=" + titleSize);
 				
 				break;
 			}
@@ -160,15 +391,15 @@ public final class GraphGenerator {
 				final String light = this.colorPair.getLightColor();
 				
 				if (this.fontName != null) {
-					sb.append(INDENT2).append("fontname=\"").append(this.fontName).append("\"\n");
+					lines.add("fontname=\"" + this.fontName + "\"");
 				}
-				sb.append(INDENT2).append("color=\"").append(dark).append("\"\n");
-				sb.append(INDENT2).append("fillcolor=\"").append(light).append("\"\n");
+				lines.add("color=\"" + dark + "\"");
+				lines.add("fillcolor=\"" + light + "\"");
 				break;
 			}
 			case EdgeAttributes:{
 				if (this.fontName != null) {
-					sb.append(INDENT2).append("fontname=\"").append(this.fontName).append("\"\n");
+					lines.add("fontname=\"" + this.fontName + "\"");
 				}
 				break;
 			}
@@ -178,6 +409,18 @@ public final class GraphGenerator {
 			}
 		}
 		
+		if (this.reproducible) {
+			lines = toCanonicalAttributeLines(lines);
+		}
+		
+		//begin
+		sb.append(INDENT1).append(resource.getName()).append(" [\n");
+		
+		//write lines
+		for (String line : lines) {
+			sb.append(INDENT2).append(line).append("\n");
+		}
+		
 		//end
 		sb.append(INDENT1).append("]\n");
 		sb.append("\n");
@@ -185,4 +428,27 @@ public final class GraphGenerator {
 		return sb.toString();
 	}
 	
+	//the attribute lines in the form of "name=value" in the order of the names.
+	//the blank lines are removed. (the names are unique, so the order of the values doesn't matter)
+	private static List<String> toCanonicalAttributeLines(List<String> lines) {
+		final List<String> canonicalLines = new ArrayList<String>(lines.size());
+		
+		for (String line : lines) {
+			final String trimmed = line.trim();
+			if (trimmed.equals("")) {
+				continue;
+			}
+			
+			final int eq = trimmed.indexOf('=');
+			if (eq < 0) {
+				canonicalLines.add(trimmed);
+			} else {
+				canonicalLines.add(trimmed.substring(0, eq).trim() + "=" + trimmed.substring(eq + 1).trim());
+			}
+		}
+		
+		Collections.sort(canonicalLines);
+		return canonicalLines;
+	}
+	
 }
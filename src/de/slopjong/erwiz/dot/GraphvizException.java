@@ -0,0 +1,52 @@
+package de.slopjong.erwiz.dot;
+
+import java.io.IOException;
+
+/**
+ * An exception that provides information on an error of the graphviz process.
+ * The messages which the process has written to the standard error are kept 
+ * as the diagnostics.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.dot.GraphvizRenderer
+ */
+public final class GraphvizException extends IOException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final String diagnostics;
+	private final boolean timedOut;
+	
+	/**
+	 * Constructs an object of this class.
+	 * 
+	 * @param message exception message
+	 * @param diagnostics the messages of the process (may be empty)
+	 * @param timedOut true if the process was terminated by the timeout
+	 */
+	GraphvizException(String message, String diagnostics, boolean timedOut) {
+		super(message);
+		this.diagnostics = diagnostics;
+		this.timedOut = timedOut;
+	}
+	
+	/**
+	 * Retrieves the messages which the process has written to the standard error.
+	 * 
+	 * @return the messages, or an empty string if there are no messages
+	 */
+	public String getDiagnostics() {
+		return this.diagnostics;
+	}
+	
+	/**
+	 * Returns true if the process was terminated because it didn't finish in time.
+	 * 
+	 * @return true if the process was timed out, otherwise false
+	 */
+	public boolean isTimedOut() {
+		return this.timedOut;
+	}
+	
+}
@@ -0,0 +1,409 @@
+package de.slopjong.erwiz.dot;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class renders the dot text of a {@code GraphGenerator} object to an image 
+ * by the dot command of graphviz.
+ * 
+ * The dot text is written to the standard input of the dot process while it is generated,
+ * and the image is written by the process to the output file directly 
+ * (or copied from the standard output of the process to the specified stream),
+ * so no temporary files are used.
+ * The dot text can be copied to another writer at the same time (e.g. to keep it in a cache).
+ * The messages of the process (the standard error) are returned as the diagnostics,
+ * or kept in the {@code GraphvizException} object if the process fails.
+ * 
+ * An object of this class can be shared by multiple threads. The number of the processes 
+ * which run at the same time is limited for each object, and the other threads wait
+ * until a process finishes. A process which doesn't finish in the timeout is destroyed.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.dot.GraphGenerator
+ */
+public final class GraphvizRenderer {
+	
+	/** The default command of graphviz */
+	public static final String DEFAULT_COMMAND = "dot";
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	//the time to wait for the streams of the destroyed process
+	//(the streams may be kept open by the child processes of the process)
+	private static final long STREAM_WAIT_AFTER_TIMEOUT_MILLIS = 1000;
+	
+	//the timer to destroy the processes which are timed out (the thread is created on demand)
+	private static final ScheduledExecutorService TIMER = 
+		Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("erwiz-graphviz-timer"));
+		
+	private final String command;
+	private final Semaphore processPermits;
+	private volatile long timeoutMillis = 0;
+	
+	/**
+	 * Creates an instance of this class.
+	 * 
+	 * @param command the path of the dot command (only the name if it is in the search path)
+	 * @param maxProcesses the maximum number of the processes which run at the same time
+	 * @throws IllegalArgumentException if the number of processes is less than 1
+	 */
+	public GraphvizRenderer(String command, int maxProcesses) {
+		if (maxProcesses < 1) {
+			throw new IllegalArgumentException("the number of processes is less than 1: " + maxProcesses);
+		}
+		this.command = command;
+		this.processPermits = new Semaphore(maxProcesses, true);
+	}
+	
+	/**
+	 * Sets the timeout of each process. The time which is spent waiting for other processes 
+	 * isn't included. The default is 0, which means the processes are never timed out.
+	 * 
+	 * @param timeoutMillis the timeout in milliseconds, or 0
+	 * @throws IllegalArgumentException if the timeout is negative
+	 */
+	public void setTimeout(long timeoutMillis) {
+		if (timeoutMillis < 0) {
+			throw new IllegalArgumentException("the timeout is negative: " + timeoutMillis);
+		}
+		this.timeoutMillis = timeoutMillis;
+	}
+	
+	/**
+	 * Renders the dot text of the specified generator to the specified file.
+	 * 
+	 * @param generator the generator of the dot text
+	 * @param outputType the output type of graphviz (png, svg, pdf, ...)
+	 * @param outputFile the image file
+	 * @return the messages which the process has written to the standard error (may be empty)
+	 * @throws GraphvizException if the process can't be started, fails or is timed out
+	 * @throws IOException if an I/O error occurs
+	 *                     ({@code InterruptedIOException} if the thread is interrupted)
+	 * @throws IllegalStateException if resource error has occured in the generator
+	 */
+	public String render(GraphGenerator generator, String outputType, File outputFile) throws IOException {
+		final List<String> commandLine = createCommandLine(outputType);
+		commandLine.add("-o" + outputFile.getAbsolutePath());
+		return execute(commandLine, generator, null, null);
+	}
+	
+	/**
+	 * Renders the dot text of the specified generator to the specified file,
+	 * and writes the same dot text to the specified writer. The writer isn't flushed nor closed.
+	 * 
+	 * @param generator the generator of the dot text
+	 * @param outputType the output type of graphviz (png, svg, pdf, ...)
+	 * @param outputFile the image file
+	 * @param dotCopy the writer of the copy of the dot text
+	 * @return the messages which the process has written to the standard error (may be empty)
+	 * @throws GraphvizException if the process can't be started, fails or is timed out
+	 * @throws IOException if an I/O error occurs (also while writing the copy)
+	 *                     ({@code InterruptedIOException} if the thread is interrupted)
+	 * @throws IllegalStateException if resource error has occured in the generator
+	 */
+	public String render(GraphGenerator generator, String outputType, File outputFile, Writer dotCopy) 
+			throws IOException {
+		final List<String> commandLine = createCommandLine(outputType);
+		commandLine.add("-o" + outputFile.getAbsolutePath());
+		return execute(commandLine, generator, null, dotCopy);
+	}
+	
+	/**
+	 * Renders the dot text of the specified generator to the specified stream.
+	 * The stream isn't flushed nor closed.
+	 * 
+	 * @param generator the generator of the dot text
+	 * @param outputType the output type of graphviz (png, svg, pdf, ...)
+	 * @param out the stream of the image
+	 * @return the messages which the process has written to the standard error (may be empty)
+	 * @throws GraphvizException if the process can't be started, fails or is timed out
+	 * @throws IOException if an I/O error occurs while writing to the stream
+	 *                     ({@code InterruptedIOException} if the thread is interrupted)
+	 * @throws IllegalStateException if resource error has occured in the generator
+	 */
+	public String render(GraphGenerator generator, String outputType, OutputStream out) throws IOException {
+		return execute(createCommandLine(outputType), generator, out, null);
+	}
+	
+	/**
+	 * Renders the dot text of the specified generator to the specified stream,
+	 * and writes the same dot text to the specified writer. 
+	 * The stream and the writer aren't flushed nor closed.
+	 * 
+	 * @param generator the generator of the dot text
+	 * @param outputType the output type of graphviz (png, svg, pdf, ...)
+	 * @param out the stream of the image
+	 * @param dotCopy the writer of the copy of the dot text
+	 * @return the messages which the process has written to the standard error (may be empty)
+	 * @throws GraphvizException if the process can't be started, fails or is timed out
+	 * @throws IOException if an I/O error occurs while writing to the stream or the copy
+	 *                     ({@code InterruptedIOException} if the thread is interrupted)
+	 * @throws IllegalStateException if resource error has occured in the generator
+	 */
+	public String render(GraphGenerator generator, String outputType, OutputStream out, Writer dotCopy) 
+			throws IOException {
+		return execute(createCommandLine(outputType), generator, out, dotCopy);
+	}
+	
+	private List<String> createCommandLine(String outputType) {
+		final List<String> commandLine = new ArrayList<String>();
+		commandLine.add(this.command);
+		commandLine.add("-T" + outputType);
+		return commandLine;
+	}
+	
+	//run the process while the number of the processes is limited
+	private String execute(List<String> commandLine, GraphGenerator generator, OutputStream out, 
+			Writer dotCopy) throws IOException {
+		try {
+			this.processPermits.acquire();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for graphviz");
+		}
+		
+		try {
+			return executeProcess(commandLine, generator, out, dotCopy);
+		} finally {
+			this.processPermits.release();
+		}
+	}
+	
+	//run the process, write the dot text, and wait for the process.
+	//the standard output and the standard error are read by other threads,
+	//so the process isn't blocked while the dot text is being written.
+	private String executeProcess(List<String> commandLine, GraphGenerator generator, OutputStream out, 
+			Writer dotCopy) throws IOException {
+			
+		final Process process;
+		try {
+			process = new ProcessBuilder(commandLine).start();
+		} catch (IOException ex) {
+			final GraphvizException gex = new GraphvizException(
+					"can't start graphviz [" + this.command + "]: " + ex.getMessage(), "", false);
+			gex.initCause(ex);
+			throw gex;
+		}
+		
+		final ByteArrayOutputStream errorBuffer = new ByteArrayOutputStream();
+		final StreamPump outputPump = new StreamPump(process.getInputStream(), out);
+		final StreamPump errorPump = new StreamPump(process.getErrorStream(), errorBuffer);
+		outputPump.start();
+		errorPump.start();
+		
+		final AtomicBoolean timedOut = new AtomicBoolean(false);
+		final ScheduledFuture<?> timeout = scheduleTimeout(process, timedOut);
+		
+		boolean finished = false;
+		try {
+			//the process may exit before reading the whole text (e.g. syntax error),
+			//so the error of writing is reported after the status of the process.
+			IOException writeError = null;
+			final Writer writer = new BufferedWriter(
+					new OutputStreamWriter(process.getOutputStream(), "UTF-8"), BUFFER_SIZE);
+			final CopyingWriter copyingWriter = (dotCopy != null) ? new CopyingWriter(writer, dotCopy) : null;
+			try {
+				generator.writeTo(copyingWriter != null ? copyingWriter : writer);
+				writer.close();
+			} catch (InterruptedIOException ex) {
+				throw ex;
+			} catch (IOException ex) {
+				writeError = ex;
+				closeQuietly(writer);
+			}
+			
+			final int status = process.waitFor();
+			if (timedOut.get()) {
+				outputPump.join(STREAM_WAIT_AFTER_TIMEOUT_MILLIS);
+				errorPump.join(STREAM_WAIT_AFTER_TIMEOUT_MILLIS);
+			} else {
+				outputPump.join();
+				errorPump.join();
+			}
+			finished = true;
+			
+			final String diagnostics = errorBuffer.toString("UTF-8").trim();
+			if (timedOut.get()) {
+				throw new GraphvizException("graphviz was timed out after " + this.timeoutMillis + " ms", 
+						diagnostics, true);
+			}
+			if (status != 0) {
+				throw new GraphvizException("graphviz exited with status " + status, diagnostics, false);
+			}
+			if (writeError != null) {
+				throw writeError;
+			}
+			if (copyingWriter != null && copyingWriter.getError() != null) {
+				throw copyingWriter.getError();
+			}
+			if (outputPump.getError() != null) {
+				throw outputPump.getError();
+			}
+			return diagnostics;
+			
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for graphviz");
+		} finally {
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+			if (!finished) {
+				process.destroy();
+			}
+		}
+	}
+	
+	//schedule the task to destroy the process (null if the timeout isn't set)
+	private ScheduledFuture<?> scheduleTimeout(final Process process, final AtomicBoolean timedOut) {
+		final long timeout = this.timeoutMillis;
+		if (timeout == 0) {
+			return null;
+		}
+		
+		return TIMER.schedule(new Runnable() {
+			public void run() {
+				timedOut.set(true);
+				process.destroy();
+			}
+		}, timeout, TimeUnit.MILLISECONDS);
+	}
+	
+	private static void closeQuietly(Writer writer) {
+		try {
+			writer.close();
+		} catch (IOException ex) {
+		}
+	}
+	
+	//private class to copy a stream of the process to another stream (discarded if null)
+	private static final class StreamPump extends Thread {
+		
+		private final InputStream in;
+		private final OutputStream out;
+		private volatile IOException error = null;
+		
+		StreamPump(InputStream in, OutputStream out) {
+			super("erwiz-graphviz-stream");
+			setDaemon(true);
+			this.in = in;
+			this.out = out;
+		}
+		
+		IOException getError() {
+			return this.error;
+		}
+		
+		@Override
+		public void run() {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			try {
+				int length;
+				while ((length = this.in.read(buffer)) >= 0) {
+					if (this.out != null && this.error == null) {
+						try {
+							this.out.write(buffer, 0, length);
+						} catch (IOException ex) {
+							//the rest is read and discarded, so the process isn't blocked
+							this.error = ex;
+						}
+					}
+				}
+			} catch (IOException ex) {
+				//the stream is closed when the process is destroyed
+			} finally {
+				try {
+					this.in.close();
+				} catch (IOException ex) {
+				}
+			}
+		}
+	}
+	
+	//private class to write the dot text to the process and the copy.
+	//the error of the copy is kept, so the process gets the whole text.
+	private static final class CopyingWriter extends Writer {
+		
+		private final Writer out;
+		private final Writer copy;
+		private IOException error = null;
+		
+		CopyingWriter(Writer out, Writer copy) {
+			this.out = out;
+			this.copy = copy;
+		}
+		
+		IOException getError() {
+			return this.error;
+		}
+		
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			this.out.write(cbuf, off, len);
+			if (this.error == null) {
+				try {
+					this.copy.write(cbuf, off, len);
+				} catch (IOException ex) {
+					this.error = ex;
+				}
+			}
+		}
+		
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			this.out.write(str, off, len);
+			if (this.error == null) {
+				try {
+					this.copy.write(str, off, len);
+				} catch (IOException ex) {
+					this.error = ex;
+				}
+			}
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			this.out.flush();
+		}
+		
+		@Override
+		public void close() throws IOException {
+			this.out.close();
+		}
+	}
+	
+	//private class to create the daemon threads, so the timer doesn't keep the JVM alive
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		
+		private final String name;
+		
+		DaemonThreadFactory(String name) {
+			this.name = name;
+		}
+		
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, this.name);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+	
+}
@@ -17,6 +17,11 @@ import static de.slopjong.erwiz.dot.PackageUtils.wrapLabel;
  */
 final class Idef1xERGenerator extends DefaultERGenerator {
 	
+	//the escaped arrow labels
+	private static final String LABEL_ONE = escapeLabel(wrapLabel("1"));
+	private static final String LABEL_ZERO_OR_ONE = escapeLabel(wrapLabel("Z"));
+	private static final String LABEL_ONE_OR_MORE = escapeLabel(wrapLabel("P"));
+	
 	/**
 	 * Creates an instance of this class.
 	 * 
@@ -85,21 +90,21 @@ final class Idef1xERGenerator extends DefaultERGenerator {
 			
 			if (ce == CardinalityElement.ONE && oe == OptionalityElement.MANDATORY) {
 				
-				label = "1";
+				label = LABEL_ONE;
 				
 			} else if (ce == CardinalityElement.ONE && oe == OptionalityElement.OPTIONAL) {
 				
-				label = "Z";
+				label = LABEL_ZERO_OR_ONE;
 				
 			} else if (ce == CardinalityElement.MANY && oe == OptionalityElement.MANDATORY) {
 				
-				label = "P";
+				label = LABEL_ONE_OR_MORE;
 				
 			}
 			
 		}
 		
-		return escapeLabel(wrapLabel(label));
+		return label;
 	}
 	
 }
@@ -10,29 +10,19 @@ package de.slopjong.erwiz.dot;
  */
 final class PackageUtils {
 	
-	/**
-	 * Any instance of this class doesn't created.
-	 */
-	private PackageUtils() {
+	//the escape sequences of the special characters in labels, indexed by the characters
+	private static final String[] LABEL_ESCAPES = new String[128];
+	static {
+		for (char ch : "\\[]()<>{}| ".toCharArray()) {
+			LABEL_ESCAPES[ch] = "\\" + ch;
+		}
+		LABEL_ESCAPES['\t'] = "\\ \\ \\ \\ "; //4 spaces
 	}
 	
 	/**
-	 * Joins dot attributes with comma.
-	 * This method neglects blank strings of parameters.
-	 * 
-	 * @param params strings which will be joined
-	 * @return the result string
+	 * Any instance of this class doesn't created.
 	 */
-	static String joinDotAttributes(String... params) {
-		StringBuilder sb = new StringBuilder();
-		
-		for (String s : params) {
-			if (s != null && !s.trim().equals("")) {
-				sb.append(s.trim()).append(", ");
-			}
-		}
-		
-		return sb.toString().replaceFirst(", $", "");
+	private PackageUtils() {
 	}
 	
 	/**
@@ -48,24 +38,52 @@ final class PackageUtils {
 	
 	/**
 	 * Replaces the special characters in a label text to the escape sequences.
+	 * If the text has no special characters, the text itself is returned.
 	 * 
 	 * @param text the label text
 	 * @return the replaced text
 	 */
 	static String escapeLabel(String text) {
-		text= text.replace("\\", "\\\\"); //this replace must be the first
-		text= text.replace("[", "\\[");
-		text= text.replace("]", "\\]");
-		text= text.replace("(", "\\(");
-		text= text.replace(")", "\\)");
-		text= text.replace("<", "\\<");
-		text= text.replace(">", "\\>");
-		text= text.replace("{", "\\{");
-		text= text.replace("}", "\\}");
-		text= text.replace("|", "\\|");
-		text= text.replace(" ", "\\ "); //space
-		text= text.replace("\t", "\\ \\ \\ \\ "); //4 spaces
+		for (int i = 0; i < text.length(); i++) {
+			if (getLabelEscape(text.charAt(i)) != null) {
+				final StringBuilder sb = new StringBuilder(text.length() + 16);
+				sb.append(text, 0, i);
+				appendEscapedLabel(sb, text, i);
+				return sb.toString();
+			}
+		}
 		return text;
 	}
 	
+	/**
+	 * Appends the specified label text whose special characters are replaced
+	 * to the escape sequences. The text is scanned only once, and the characters 
+	 * are appended directly to the buffer.
+	 * 
+	 * @param sb the buffer
+	 * @param text the label text
+	 * @return the buffer
+	 */
+	static StringBuilder appendEscapedLabel(StringBuilder sb, CharSequence text) {
+		return appendEscapedLabel(sb, text, 0);
+	}
+	
+	//append the escaped text from the specified index (the runs of normal characters are appended at once)
+	private static StringBuilder appendEscapedLabel(StringBuilder sb, CharSequence text, int start) {
+		int runStart = start;
+		for (int i = start; i < text.length(); i++) {
+			final String escape = getLabelEscape(text.charAt(i));
+			if (escape != null) {
+				sb.append(text, runStart, i).append(escape);
+				runStart = i + 1;
+			}
+		}
+		return sb.append(text, runStart, text.length());
+	}
+	
+	//the escape sequence of the character (null if the character isn't escaped)
+	private static String getLabelEscape(char ch) {
+		return (ch < LABEL_ESCAPES.length) ? LABEL_ESCAPES[ch] : null;
+	}
+	
 }
@@ -0,0 +1,228 @@
+package de.slopjong.erwiz.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * This class stores the attributes of all entities of a model in columns.
+ * 
+ * The attributes are stored in the order of the entities, and the attributes of an entity
+ * are the positions from {@code offsets[entity]} (inclusive) to {@code offsets[entity + 1]}
+ * (exclusive) in the columns:
+ * 
+ * <ul>
+ *   <li>the names are stored as the indices in the table of the distinct names,
+ *   <li>the primary key flags and the foreign key flags are packed in bits,
+ *   <li>the options are the shared default options, except the attributes which are
+ *       stored in the sparse table of the overriding options.
+ * </ul>
+ * 
+ * The frozen copies of the options are stored when they are added, so the shared options
+ * are returned to the callers without copying.
+ * 
+ * The {@code EntityAttribute} objects are created on demand as the views of the columns.
+ * 
+ * The columns are built by calling {@code addAttribute()} and {@code closeEntity()}
+ * for each entity, and {@code trim()} at the end. The object of this class is read only
+ * after that, and used by {@code Entity} objects.
+ * 
+ * This class is package private. The instance of this class is created
+ * by {@code CompactEntityBuilder} and {@code ModelSnapshot}.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.Model
+ * @see de.slopjong.erwiz.model.Entity
+ */
+final class AttributeColumns {
+	
+	private static final int INITIAL_CAPACITY = 16;
+	
+	//the table of the distinct names (the map is discarded by trim())
+	private String[] names = new String[INITIAL_CAPACITY];
+	private int nameCount = 0;
+	private Map<String, Integer> nameMap = new HashMap<String, Integer>();
+	
+	//the columns of the attributes
+	private int[] nameIds = new int[INITIAL_CAPACITY];
+	private long[] keyFlags = new long[1]; //2 bits for each attribute (primary key, foreign key)
+	private int attrCount = 0;
+	
+	//the ranges of the attributes of each entity
+	private int[] offsets = new int[INITIAL_CAPACITY + 1];
+	private int entityCount = 0;
+	
+	//the options of the attributes
+	private OptionMap defaultOptions = null;
+	private int[] overrideIndices = new int[0]; //ascending
+	private OptionMap[] overrideOptions = new OptionMap[0];
+	private int overrideCount = 0;
+	
+	/**
+	 * Constructs an object of this class without attributes.
+	 */
+	AttributeColumns() {
+	}
+	
+	/**
+	 * Adds an attribute to the entity which is being built.
+	 * 
+	 * @param name the name of the attribute
+	 * @param isPrimaryKey true if the attribute is the part of the primary key of the entity
+	 * @param isForeignKey true if the attribute is the part of the foreign key of the entity
+	 * @param attrOptions the {@code OptionMap} object of the attribute (the frozen copy is stored)
+	 */
+	void addAttribute(String name, boolean isPrimaryKey, boolean isForeignKey, OptionMap attrOptions) {
+		
+		final OptionMap options = attrOptions.frozenCopy();
+		
+		final int index = this.attrCount;
+		
+		if (index == this.nameIds.length) {
+			this.nameIds = Arrays.copyOf(this.nameIds, index * 2);
+		}
+		this.nameIds[index] = getNameId(name);
+		
+		if ((index >>> 5) == this.keyFlags.length) {
+			this.keyFlags = Arrays.copyOf(this.keyFlags, this.keyFlags.length * 2);
+		}
+		final long bits = (isPrimaryKey ? 1L : 0L) | (isForeignKey ? 2L : 0L);
+		this.keyFlags[index >>> 5] |= bits << ((index & 31) * 2);
+		
+		//the first options which have no values are shared by the attributes
+		if (this.defaultOptions == null && !options.hasValues()) {
+			this.defaultOptions = options;
+		}
+		if (this.defaultOptions == null || !options.sharesValuesWith(this.defaultOptions)) {
+			addOverride(index, options);
+		}
+		
+		this.attrCount++;
+	}
+	
+	/**
+	 * Closes the entity which is being built.
+	 * The attributes which are added after this call, are the attributes of the next entity.
+	 * 
+	 * @return the index of the closed entity in the columns
+	 */
+	int closeEntity() {
+		if (this.entityCount + 1 == this.offsets.length) {
+			this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+		}
+		this.entityCount++;
+		this.offsets[this.entityCount] = this.attrCount;
+		return this.entityCount - 1;
+	}
+	
+	/**
+	 * Releases the unused capacity and the data which is used only for building.
+	 */
+	void trim() {
+		this.names = Arrays.copyOf(this.names, this.nameCount);
+		this.nameMap = null;
+		this.nameIds = Arrays.copyOf(this.nameIds, this.attrCount);
+		this.keyFlags = Arrays.copyOf(this.keyFlags, (this.attrCount + 31) >>> 5);
+		this.offsets = Arrays.copyOf(this.offsets, this.entityCount + 1);
+		this.overrideIndices = Arrays.copyOf(this.overrideIndices, this.overrideCount);
+		this.overrideOptions = Arrays.copyOf(this.overrideOptions, this.overrideCount);
+	}
+	
+	/**
+	 * Retrieves count of attributes of the specified entity.
+	 * 
+	 * @param entity the index of the entity in the columns
+	 * @return count of attributes
+	 */
+	int getAttributeCount(int entity) {
+		return this.offsets[entity + 1] - this.offsets[entity];
+	}
+	
+	/**
+	 * Creates the view of the specified attribute.
+	 * 
+	 * @param entity the index of the entity in the columns
+	 * @param index the index of the attribute in the entity
+	 * @return an {@code EntityAttribute} object
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	EntityAttribute getAttribute(int entity, int index) {
+		if (index < 0 || index >= getAttributeCount(entity)) {
+			throw new IndexOutOfBoundsException("Index: " + index);
+		}
+		
+		final int position = this.offsets[entity] + index;
+		final int bits = (int)(this.keyFlags[position >>> 5] >>> ((position & 31) * 2)) & 3;
+		
+		return new EntityAttribute(this.names[this.nameIds[position]],
+				(bits & 1) != 0, (bits & 2) != 0, getOptions(position));
+	}
+	
+	/**
+	 * Creates the unmodifiable list view of the attributes of the specified entity.
+	 * 
+	 * @param entity the index of the entity in the columns
+	 * @return a {@code List} object whose elements are created on demand
+	 */
+	List<EntityAttribute> getAttributeList(int entity) {
+		return new AttributeList(entity);
+	}
+	
+	//index of the name in the table of the distinct names
+	private int getNameId(String name) {
+		final Integer id = this.nameMap.get(name);
+		if (id != null) {
+			return id;
+		}
+		
+		if (this.nameCount == this.names.length) {
+			this.names = Arrays.copyOf(this.names, this.nameCount * 2);
+		}
+		this.names[this.nameCount] = name;
+		this.nameMap.put(name, this.nameCount);
+		return this.nameCount++;
+	}
+	
+	//add the options which aren't the default options
+	private void addOverride(int index, OptionMap options) {
+		if (this.overrideCount == this.overrideIndices.length) {
+			final int capacity = Math.max(INITIAL_CAPACITY, this.overrideCount * 2);
+			this.overrideIndices = Arrays.copyOf(this.overrideIndices, capacity);
+			this.overrideOptions = Arrays.copyOf(this.overrideOptions, capacity);
+		}
+		this.overrideIndices[this.overrideCount] = index;
+		this.overrideOptions[this.overrideCount] = options;
+		this.overrideCount++;
+	}
+	
+	//the options of the attribute at the specified position (frozen, so they are shared)
+	private OptionMap getOptions(int position) {
+		final int i = Arrays.binarySearch(this.overrideIndices, 0, this.overrideCount, position);
+		return (i >= 0) ? this.overrideOptions[i] : this.defaultOptions;
+	}
+	
+	//private class for the list view of the attributes of an entity
+	private final class AttributeList extends AbstractList<EntityAttribute> implements RandomAccess {
+		
+		private final int entity;
+		
+		AttributeList(int entity) {
+			this.entity = entity;
+		}
+		
+		@Override
+		public EntityAttribute get(int index) {
+			return getAttribute(this.entity, index);
+		}
+		
+		@Override
+		public int size() {
+			return getAttributeCount(this.entity);
+		}
+	}
+	
+}
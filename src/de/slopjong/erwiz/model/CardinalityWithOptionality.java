@@ -15,6 +15,9 @@ package de.slopjong.erwiz.model;
  */
 public final class CardinalityWithOptionality {
 	
+	//the canonical instances of all combinations, indexed by the ordinals
+	private static final CardinalityWithOptionality[] CANONICAL_INSTANCES = createCanonicalInstances();
+	
 	private final CardinalityElement ce1;
 	private final OptionalityElement oe1;
 	private final CardinalityElement ce2;
@@ -37,6 +40,55 @@ public final class CardinalityWithOptionality {
 		this.oe2 = oe2;
 	}
 	
+	/**
+	 * Retrieves the canonical instance of the specified combination.
+	 * The same instance is returned for the same arguments, so the instances can be compared
+	 * by the identity.
+	 * 
+	 * @param ce1 the cardinality element of the first entity side
+	 * @param oe1 the optionality element of the first entity side
+	 * @param ce2 the cardinality element of the second entity side
+	 * @param oe2 the optionality element of the second entity side
+	 * @return the canonical instance
+	 */
+	public static CardinalityWithOptionality valueOf(CardinalityElement ce1, OptionalityElement oe1, 
+			CardinalityElement ce2, OptionalityElement oe2) {
+		
+		if (ce1 == null || oe1 == null || ce2 == null || oe2 == null) {
+			return new CardinalityWithOptionality(ce1, oe1, ce2, oe2);
+		}
+		return CANONICAL_INSTANCES[index(ce1, oe1, ce2, oe2)];
+	}
+	
+	//private utility method to create all instances
+	private static CardinalityWithOptionality[] createCanonicalInstances() {
+		final CardinalityElement[] ces = CardinalityElement.values();
+		final OptionalityElement[] oes = OptionalityElement.values();
+		
+		final CardinalityWithOptionality[] instances = 
+			new CardinalityWithOptionality[ces.length * oes.length * ces.length * oes.length];
+		
+		for (CardinalityElement ce1 : ces) {
+			for (OptionalityElement oe1 : oes) {
+				for (CardinalityElement ce2 : ces) {
+					for (OptionalityElement oe2 : oes) {
+						instances[index(ce1, oe1, ce2, oe2)] = new CardinalityWithOptionality(ce1, oe1, ce2, oe2);
+					}
+				}
+			}
+		}
+		return instances;
+	}
+	
+	//private utility method to calculate the index of a combination
+	private static int index(CardinalityElement ce1, OptionalityElement oe1, 
+			CardinalityElement ce2, OptionalityElement oe2) {
+		
+		final int ceCount = CardinalityElement.values().length;
+		final int oeCount = OptionalityElement.values().length;
+		return ((ce1.ordinal() * oeCount + oe1.ordinal()) * ceCount + ce2.ordinal()) * oeCount + oe2.ordinal();
+	}
+	
 	/**
 	 * Retrieves the cardinality element of the first entity side.
 	 * 
@@ -73,6 +125,30 @@ public final class CardinalityWithOptionality {
 		return this.oe2;
 	}
 	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true; //canonical instances
+		}
+		if (!(obj instanceof CardinalityWithOptionality)) {
+			return false;
+		}
+		
+		final CardinalityWithOptionality other = (CardinalityWithOptionality)obj;
+		return this.ce1 == other.ce1 && this.oe1 == other.oe1 && 
+				this.ce2 == other.ce2 && this.oe2 == other.oe2;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = 17;
+		hash = hash * 31 + ((this.ce1 != null) ? this.ce1.hashCode() : 0);
+		hash = hash * 31 + ((this.oe1 != null) ? this.oe1.hashCode() : 0);
+		hash = hash * 31 + ((this.ce2 != null) ? this.ce2.hashCode() : 0);
+		hash = hash * 31 + ((this.oe2 != null) ? this.oe2.hashCode() : 0);
+		return hash;
+	}
+	
 	/**
 	 * Returns a string representation of this object.
 	 * 
@@ -0,0 +1,65 @@
+package de.slopjong.erwiz.model;
+
+/**
+ * This class builds the entities of a compact model (see {@code Model#compact()}) one by one.
+ * 
+ * The attributes of an entity are added to the shared columns when the entity is added,
+ * so the entity with the list of attributes can be discarded right after that, and
+ * the whole model isn't built before it is compacted. The entities are the same as
+ * the entities of the compact model, if they are added in the order of the model.
+ * 
+ * Usage:
+ * 
+ * <ol>
+ *   <li>Creates an object of this class for a model.
+ *   <li>Convert each entity by calling {@code add()}.
+ *   <li>Release the data for building by calling {@code finish()}.
+ * </ol>
+ * 
+ * This class isn't thread-safe.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.Model
+ * @see de.slopjong.erwiz.model.Entity
+ */
+public final class CompactEntityBuilder {
+	
+	private final AttributeColumns columns = new AttributeColumns();
+	private boolean finished = false;
+	
+	/**
+	 * Creates an object of this class without entities.
+	 */
+	public CompactEntityBuilder() {
+	}
+	
+	/**
+	 * Adds the attributes of the specified entity to the columns, and retrieves the entity
+	 * whose attributes are stored in the columns. The all member values including the id
+	 * aren't changed, and the frozen copies of the option maps of the attributes are stored
+	 * (the maps of the specified entity aren't frozen).
+	 * 
+	 * @param entity the entity
+	 * @return the entity whose attributes are stored in the columns
+	 * @throws IllegalStateException if {@code finish()} has been called
+	 */
+	public Entity add(Entity entity) {
+		if (this.finished) {
+			throw new IllegalStateException("the columns have been finished");
+		}
+		return entity.toColumns(this.columns);
+	}
+	
+	/**
+	 * Releases the unused capacity and the data which is used only for building.
+	 * The entities which have been added can be used after this call.
+	 */
+	public void finish() {
+		if (!this.finished) {
+			this.columns.trim();
+			this.finished = true;
+		}
+	}
+	
+}
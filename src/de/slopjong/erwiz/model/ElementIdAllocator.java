@@ -0,0 +1,206 @@
+package de.slopjong.erwiz.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class allocates the id numbers of the elements of a model from their contents.
+ * 
+ * The id number of an entity is the hash of its name, and the id number of a relationship is 
+ * the hash of the names of both entities and the ordinal of the relationship among 
+ * the relationships between the same entities. So the ids of the elements don't change 
+ * when other elements are added or removed, and the dot text of the unchanged elements
+ * is the same after an edit.
+ * 
+ * The hash is FNV-1a (32 bits) of the characters, and its bits are mixed at the end.
+ * If the hashes of elements collide, the elements are processed in the order of their keys,
+ * and the next free number is given to the later element, so the allocation doesn't depend
+ * on the order of the elements in the model. Zero isn't used because it means "not assigned".
+ * If no hashes collide (the common case), the hashes are the id numbers, 
+ * and the keys aren't sorted.
+ * 
+ * This class is package private. The methods are called by {@code Model}.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.Model
+ */
+final class ElementIdAllocator {
+	
+	//constants of FNV-1a
+	private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+	private static final int FNV_PRIME = 0x01000193;
+	
+	//the separator of the parts of a key, which isn't contained in names
+	private static final char SEPARATOR = '\n';
+	
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	
+	/**
+	 * Any instance of this class doesn't created.
+	 */
+	private ElementIdAllocator() {
+	}
+	
+	/**
+	 * Allocates the id numbers of the specified entities.
+	 * 
+	 * @param entityList the entities
+	 * @return the id numbers in the order of the entities
+	 */
+	static int[] allocateEntityIds(List<Entity> entityList) {
+		final String[] names = new String[entityList.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = entityList.get(i).getName();
+		}
+		return allocateEntityIds(names);
+	}
+	
+	/**
+	 * Allocates the id numbers of the entities which have the specified names.
+	 * 
+	 * @param names the names of the entities
+	 * @return the id numbers in the order of the names
+	 */
+	static int[] allocateEntityIds(String[] names) {
+		return allocate(names);
+	}
+	
+	/**
+	 * Allocates the id numbers of the specified relationships.
+	 * 
+	 * @param relList the relationships
+	 * @return the id numbers in the order of the relationships
+	 */
+	static int[] allocateRelationshipIds(List<Relationship> relList) {
+		final String[] names1 = new String[relList.size()];
+		final String[] names2 = new String[relList.size()];
+		for (int i = 0; i < names1.length; i++) {
+			names1[i] = relList.get(i).getNameOfEntity1();
+			names2[i] = relList.get(i).getNameOfEntity2();
+		}
+		return allocateRelationshipIds(names1, names2);
+	}
+	
+	/**
+	 * Allocates the id numbers of the relationships between the entities of the specified names.
+	 * 
+	 * @param names1 the names of the first entities of the relationships
+	 * @param names2 the names of the second entities of the relationships
+	 * @return the id numbers in the order of the relationships
+	 */
+	static int[] allocateRelationshipIds(String[] names1, String[] names2) {
+		final String[] keys = new String[names1.length];
+		final Map<String, Integer> ordinalMap = new HashMap<String, Integer>();
+		
+		for (int i = 0; i < keys.length; i++) {
+			final String endpoints = names1[i] + SEPARATOR + names2[i];
+			
+			final Integer count = ordinalMap.get(endpoints);
+			final int ordinal = (count != null) ? count : 0;
+			ordinalMap.put(endpoints, ordinal + 1);
+			
+			keys[i] = endpoints + SEPARATOR + ordinal;
+		}
+		return allocate(keys);
+	}
+	
+	/**
+	 * Creates the id of an element from its id number.
+	 * 
+	 * @param prefix the prefix of the id
+	 * @param idNum the id number
+	 * @return the prefix followed by the id number in 8 hexadecimal digits
+	 */
+	static String toId(String prefix, int idNum) {
+		final StringBuilder sb = new StringBuilder(prefix.length() + 8);
+		sb.append(prefix);
+		for (int shift = 28; shift >= 0; shift -= 4) {
+			sb.append(HEX_DIGITS[(idNum >>> shift) & 0xf]);
+		}
+		return sb.toString();
+	}
+	
+	//allocate the hashes of the keys, and resolve the collisions in the order of the keys
+	private static int[] allocate(final String[] keys) {
+		final int[] ids = new int[keys.length];
+		
+		//no collision (the order of the keys doesn't matter)
+		if (allocateUniqueHashes(keys, ids)) {
+			return ids;
+		}
+		
+		final Integer[] order = new Integer[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return keys[i1].compareTo(keys[i2]);
+			}
+		});
+		
+		final Set<Integer> usedSet = new HashSet<Integer>(keys.length * 2);
+		for (int i : order) {
+			int id = hash(keys[i]);
+			while (id == 0 || !usedSet.add(id)) {
+				id++;
+			}
+			ids[i] = id;
+		}
+		
+		return ids;
+	}
+	
+	//set the hashes of the keys to the ids, and check that they are unique and not zero.
+	//(the hashes are checked with an open addressing table, in which zero means empty.)
+	private static boolean allocateUniqueHashes(String[] keys, int[] ids) {
+		int capacity = 16;
+		while (capacity < keys.length * 2) {
+			capacity *= 2;
+		}
+		final int[] table = new int[capacity];
+		final int mask = capacity - 1;
+		
+		for (int i = 0; i < keys.length; i++) {
+			final int id = hash(keys[i]);
+			if (id == 0) {
+				return false;
+			}
+			
+			int slot = id & mask; //the bits are mixed by the finalizer of the hash
+			while (table[slot] != 0) {
+				if (table[slot] == id) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id;
+			ids[i] = id;
+		}
+		return true;
+	}
+	
+	//FNV-1a of the characters, with the finalizer of MurmurHash3
+	private static int hash(String key) {
+		int h = FNV_OFFSET_BASIS;
+		for (int i = 0; i < key.length(); i++) {
+			h ^= key.charAt(i);
+			h *= FNV_PRIME;
+		}
+		
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+	
+}
@@ -9,6 +9,13 @@ import java.util.List;
  * 
  * This class is immutable. All input arguments is given at the object construction.
  * 
+ * The id number is assigned by the model which contains this entity (see {@code Model}).
+ * It is derived from the name, so the id doesn't change when other entities are changed.
+ * 
+ * The attributes are stored in the list of {@code EntityAttribute} objects, or
+ * in the columns which are shared by all entities of a compact model (see {@code Model#compact()}).
+ * In the latter case, the {@code EntityAttribute} objects are the views which are created on demand.
+ * 
  * @author kono
  * @version 1.0
  * @see de.slopjong.erwiz.model.Model
@@ -17,15 +24,17 @@ import java.util.List;
  */
 public final class Entity {
 
-	private static int objectCount = 0;
-	
 	private final int idNum;
 	private final String id;
 	private final String name;
-	private final List<EntityAttribute> attributeList = new ArrayList<EntityAttribute>();
+	private final List<EntityAttribute> attributeList;
 	private final Dependency dependency;
 	private final OptionMap options;
 	
+	//the columns which store the attributes (null if the attributes are stored in the list)
+	private final AttributeColumns columns;
+	private final int columnIndex;
+	
 	/**
 	 * Constructs an entity attribute object.
 	 * 
@@ -37,30 +46,65 @@ public final class Entity {
 	public Entity(String name, Dependency dependency, List<EntityAttribute> attrList, 
 			OptionMap options) {
 		
-		this(0, name, dependency, attrList, options);
+		this(0, name, dependency, new ArrayList<EntityAttribute>(attrList), null, -1, options);
+	}
+	
+	/**
+	 * Constructs an entity object with the specified id number.
+	 * 
+	 * @param idNum id number (zero means not assigned)
+	 * @param name the name of this entity
+	 * @param dependency the dependency of this entity
+	 * @param attrList a {@code List} object that contains all attribute objects of this entity (not copied)
+	 * @param options the {@code OptionMap} object
+	 */
+	Entity(int idNum, String name, Dependency dependency, List<EntityAttribute> attrList, 
+			OptionMap options) {
+		
+		this(idNum, name, dependency, attrList, null, -1, options);
+	}
+	
+	/**
+	 * Constructs an entity object whose attributes are stored in the specified columns.
+	 * 
+	 * @param name the name of this entity
+	 * @param dependency the dependency of this entity
+	 * @param columns the columns which store the attributes of this entity
+	 * @param columnIndex the index of this entity in the columns
+	 * @param options the {@code OptionMap} object
+	 */
+	Entity(String name, Dependency dependency, AttributeColumns columns, int columnIndex, 
+			OptionMap options) {
+		
+		this(0, name, dependency, null, columns, columnIndex, options);
 	}
 	
 	/**
 	 * Constructs an entity attribute object.
 	 * 
-	 * @param idNum id number (zero means auto number)
+	 * @param idNum id number (zero means not assigned)
 	 * @param name the name of this entity
 	 * @param dependency the dependency of this entity
-	 * @param attrList a {@code List} object that contains all attribute objects of this entity
+	 * @param attrList a {@code List} object that contains all attribute objects of this entity 
+	 *                 (not copied, null if the columns are used)
+	 * @param columns the columns which store the attributes of this entity (null if the list is used)
+	 * @param columnIndex the index of this entity in the columns
 	 * @param options the {@code OptionMap} object
 	 */
 	private Entity(int idNum, String name, Dependency dependency, List<EntityAttribute> attrList, 
-			OptionMap options) {
+			AttributeColumns columns, int columnIndex, OptionMap options) {
 		
 		if (name == null) {
 			throw new NullPointerException("the specified name is null");
 		}
 		
-		this.idNum = (idNum > 0) ? idNum : ++objectCount;
-		this.id = "entity_" + this.idNum;
+		this.idNum = idNum;
+		this.id = ElementIdAllocator.toId("entity_", this.idNum);
 		this.name = name;
 		this.dependency = dependency;
-		this.attributeList.addAll(attrList);
+		this.attributeList = attrList;
+		this.columns = columns;
+		this.columnIndex = columnIndex;
 		this.options = options;
 	}
 	
@@ -73,6 +117,30 @@ public final class Entity {
 		return this.id;
 	}
 	
+	/**
+	 * Retrieves the id number of this entity object.
+	 * 
+	 * @return the id number which is the suffix of the id (in hexadecimal)
+	 */
+	int getIdNumber() {
+		return this.idNum;
+	}
+	
+	/**
+	 * Retrieves the entity which has the specified id number.
+	 * The all member values except for the id, aren't changed.
+	 * 
+	 * @param idNum id number
+	 * @return this entity if the id number is the same, otherwise the copy of this entity
+	 */
+	Entity withIdNumber(int idNum) {
+		if (this.idNum == idNum) {
+			return this;
+		}
+		return new Entity(idNum, this.name, this.dependency, 
+				this.attributeList, this.columns, this.columnIndex, this.options);
+	}
+	
 	/**
 	 * Retrieves the name of this entity object.
 	 * 
@@ -98,6 +166,9 @@ public final class Entity {
 	 * @return an unmodifiable {@code List} object that contains all attribute objects of this entity
 	 */
 	public List<EntityAttribute> getAttributeList() {
+		if (this.columns != null) {
+			return this.columns.getAttributeList(this.columnIndex);
+		}
 		return Collections.unmodifiableList(this.attributeList);
 	}
 	
@@ -107,6 +178,9 @@ public final class Entity {
 	 * @return count of attributs which this entity contains.
 	 */
 	public int getAttributeCount() {
+		if (this.columns != null) {
+			return this.columns.getAttributeCount(this.columnIndex);
+		}
 		return this.attributeList.size();
 	}
 	
@@ -117,6 +191,9 @@ public final class Entity {
 	 * @return a {@code EntityAttribute} object corresponding the specified index
 	 */
 	public EntityAttribute getAttribute(int index) {
+		if (this.columns != null) {
+			return this.columns.getAttribute(this.columnIndex, index);
+		}
 		return this.attributeList.get(index);
 	}
 	
@@ -140,10 +217,59 @@ public final class Entity {
 			return this;
 		} else {
 			//the same entity id is used.
-			return new Entity(this.idNum, this.name, Dependency.DEPENDENT, this.attributeList, this.options);
+			return new Entity(this.idNum, this.name, Dependency.DEPENDENT, 
+					this.attributeList, this.columns, this.columnIndex, this.options);
 		}
 	}
 	
+	/**
+	 * Retrieves the entity whose option maps and the option maps of its attributes are frozen.
+	 * The maps which aren't frozen are replaced with the frozen copies, so the maps of this entity
+	 * can still be modified. The options in the columns are frozen when they are added to the columns.
+	 * 
+	 * @return this entity if all option maps are frozen, otherwise the copy of this entity
+	 */
+	Entity withFrozenOptions() {
+		final OptionMap frozenOptions = (this.options != null) ? this.options.frozenCopy() : null;
+		
+		List<EntityAttribute> frozenAttrList = this.attributeList;
+		if (this.attributeList != null) {
+			for (int i = 0; i < this.attributeList.size(); i++) {
+				final EntityAttribute attr = this.attributeList.get(i);
+				final EntityAttribute frozenAttr = attr.withFrozenOptions();
+				if (frozenAttr != attr) {
+					if (frozenAttrList == this.attributeList) {
+						frozenAttrList = new ArrayList<EntityAttribute>(this.attributeList);
+					}
+					frozenAttrList.set(i, frozenAttr);
+				}
+			}
+		}
+		
+		if (frozenOptions == this.options && frozenAttrList == this.attributeList) {
+			return this;
+		}
+		return new Entity(this.idNum, this.name, this.dependency, 
+				frozenAttrList, this.columns, this.columnIndex, frozenOptions);
+	}
+	
+	/**
+	 * Retrieves the entity whose attributes are stored in the specified columns.
+	 * The attributes of this entity are added to the columns, 
+	 * and the all member values including the id aren't changed.
+	 * 
+	 * @param columns the columns which store the attributes
+	 * @return the entity whose attributes are stored in the columns
+	 */
+	Entity toColumns(AttributeColumns columns) {
+		for (EntityAttribute attr : getAttributeList()) {
+			columns.addAttribute(attr.getName(), attr.isPrimaryKey(), attr.isForeignKey(), attr.getOptions());
+		}
+		final int index = columns.closeEntity();
+		
+		return new Entity(this.idNum, this.name, this.dependency, null, columns, index, this.options);
+	}
+	
 	/**
 	 * Returns a string representation of this object.
 	 * 
@@ -165,7 +291,7 @@ public final class Entity {
 		
 		sb.append(indent);
 		sb.append("attribute-list:\n");
-		for (EntityAttribute attribute : this.attributeList) {
+		for (EntityAttribute attribute : getAttributeList()) {
 			sb.append(attribute.toString(memberIndent)).append("\n");
 		}
 		
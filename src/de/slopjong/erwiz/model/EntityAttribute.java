@@ -68,6 +68,19 @@ public final class EntityAttribute {
 		return this.options;
 	}
 	
+	/**
+	 * Retrieves the attribute whose option map is frozen.
+	 * If the option map isn't frozen, it is replaced with the frozen copy.
+	 * 
+	 * @return this attribute if the option map is frozen, otherwise the copy of this attribute
+	 */
+	EntityAttribute withFrozenOptions() {
+		if (this.options == null || this.options.isFrozen()) {
+			return this;
+		}
+		return new EntityAttribute(this.name, this.isPrimaryKey, this.isForeignKey, this.options.frozenCopy());
+	}
+	
 	/**
 	 * Returns a string representation of this object.
 	 * 
@@ -9,18 +9,41 @@ import java.util.Map;
 /**
  * This class represents an Entity-Relationship model.
  * 
+ * The elements are stored in the lists on the heap, or in a model store file
+ * (see {@code ModelStore}). In the latter case, the lists and the map are the views of the file, 
+ * and the elements are created on demand.
+ * 
+ * A model is frozen when it is created: the ids of the elements are derived from their contents
+ * (see {@code ElementIdAllocator}), and all option maps are frozen (see {@code OptionMap#freeze()}).
+ * The model contains the frozen copies of the option maps which are given to it,
+ * so the maps of the caller aren't frozen.
+ * So the id of an entity is stable while its name isn't changed, the output for a model doesn't 
+ * depend on the other models which are created in the same process, and a model can be 
+ * read by multiple threads.
+ * 
  * @author kono
  * @version 1.0
  * @see de.slopjong.erwiz.model.Entity
  * @see de.slopjong.erwiz.model.Relationship
+ * @see de.slopjong.erwiz.model.ModelGraph
+ * @see de.slopjong.erwiz.model.ModelStore
  */
 public final class Model {
 	
-	private final List<Entity> entityList = new ArrayList<Entity>();
-	private final Map<String, Entity> entityMap = new HashMap<String, Entity>();
-	private final List<Relationship> relList = new ArrayList<Relationship>();
+	private final List<Entity> entityList;
+	private final Map<String, Entity> entityMap;
+	private final List<Relationship> relList;
 	private final OptionMap options;
 	
+	//the store which the elements are read from (null if the elements are on the heap)
+	private final ModelStore store;
+	
+	//unmodifiable view of the entity map
+	private final Map<String, Entity> unmodifiableEntityMap;
+	
+	//the graph is created on demand
+	private volatile ModelGraph graph = null;
+	
 	/**
 	 * Creates an instance of this class without entities and relationships.
 	 */
@@ -31,6 +54,10 @@ public final class Model {
 	
 	/**
 	 * Creates an instance of this class with entities and relationships.
+	 * The elements whose ids are different from the allocated ids are replaced with the copies
+	 * which have the allocated ids. The option maps of the elements and the global options
+	 * aren't frozen in place: the elements whose maps aren't frozen are replaced with the copies 
+	 * which have the frozen copies of the maps, so the specified objects can still be modified.
 	 * 
 	 * @param entityList entities which is added to this model
 	 * @param relList relationships which is added to this model
@@ -38,27 +65,53 @@ public final class Model {
 	 */
 	public Model(List<Entity> entityList, List<Relationship> relList, OptionMap options) {
 		
+		this.entityList = new ArrayList<Entity>();
+		this.entityMap = new HashMap<String, Entity>();
+		this.relList = new ArrayList<Relationship>();
+		this.store = null;
+		
 		if (entityList != null) {
-			//copy all elements
-			this.entityList.addAll(entityList);
-			
-			//utility maps
+			//copy all elements with the ids of their contents
+			final int[] ids = ElementIdAllocator.allocateEntityIds(entityList);
 			for (Entity e : entityList) {
-				this.entityMap.put(e.getName(), e);
+				final Entity entity = e.withIdNumber(ids[this.entityList.size()]).withFrozenOptions();
+				this.entityList.add(entity);
+				
+				//utility maps
+				this.entityMap.put(entity.getName(), entity);
 			}
 		}
 		
 		if (relList != null) {
-			//copy all elements
-			this.relList.addAll(relList);
+			//copy all elements with the ids of their contents
+			final int[] ids = ElementIdAllocator.allocateRelationshipIds(relList);
+			for (Relationship r : relList) {
+				final Relationship rel = r.withIdNumber(ids[this.relList.size()]).withFrozenOptions();
+				this.relList.add(rel);
+			}
 		}
 		
 		if (options != null) {
-			this.options = options;
+			this.options = options.frozenCopy();
 		} else {
-			this.options = new OptionMap(); //empty
+			this.options = new OptionMap().frozenCopy(); //empty
 		}
 		
+		this.unmodifiableEntityMap = Collections.unmodifiableMap(this.entityMap);
+	}
+	
+	/**
+	 * Creates an instance of this class whose elements are read from the specified store.
+	 * 
+	 * @param store the model store
+	 */
+	Model(ModelStore store) {
+		this.entityList = store.getEntityList();
+		this.entityMap = store.getEntityMap();
+		this.relList = store.getRelationshipList();
+		this.options = store.getOptions();
+		this.store = store;
+		this.unmodifiableEntityMap = Collections.unmodifiableMap(this.entityMap);
 	}
 	
 	/**
@@ -78,7 +131,7 @@ public final class Model {
 	 * @return an {@code Map} object that contains all entities
 	 */
 	public Map<String, Entity> getEntityMap() {
-		return 	Collections.unmodifiableMap(this.entityMap);
+		return this.unmodifiableEntityMap;
 	}
 	
 	/**
@@ -129,6 +182,50 @@ public final class Model {
 		return this.relList.get(index);
 	}
 	
+	/**
+	 * Retrieves the graph of this Entity-Relationship model.
+	 * The graph is created at the first call, and the same object is returned after that.
+	 * 
+	 * @return the graph of this model
+	 */
+	public ModelGraph getGraph() {
+		ModelGraph g = this.graph;
+		if (g == null) {
+			//the graph is immutable, so it may be created twice by concurrent calls.
+			if (this.store != null) {
+				g = this.store.createGraph(); //from the records without creating elements
+			} else {
+				g = new ModelGraph(this.entityList, this.relList);
+			}
+			this.graph = g;
+		}
+		return g;
+	}
+	
+	/**
+	 * Creates the compact model which has the same elements as this model.
+	 * 
+	 * The attributes of all entities are stored in the columns in the compact model: 
+	 * the indices of the distinct names, the bits of the key flags, the ranges of each entity 
+	 * and the sparse table of the attributes which don't have the default options.
+	 * The entities of the compact model have the same ids, and the {@code EntityAttribute} objects 
+	 * are created on demand, so the compact model is suitable for very large models which are
+	 * read only.
+	 * 
+	 * @return the compact model
+	 */
+	public Model compact() {
+		final CompactEntityBuilder builder = new CompactEntityBuilder();
+		
+		final List<Entity> compactEntityList = new ArrayList<Entity>(this.entityList.size());
+		for (Entity e : this.entityList) {
+			compactEntityList.add(builder.add(e));
+		}
+		builder.finish();
+		
+		return new Model(compactEntityList, this.relList, this.options);
+	}
+	
 	/**
 	 * Retrieves a {@code OptionMap} object.
 	 * 
@@ -0,0 +1,316 @@
+package de.slopjong.erwiz.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents the graph of an Entity-Relationship model as primitive arrays.
+ * The entities are the vertices, and the relationships are the edges
+ * which are directed from the first entity to the second entity.
+ * 
+ * The entities and the relationships are identified by the indices in the model.
+ * The edges are stored in the compressed sparse row (CSR) format for each direction:
+ * the edges from (or to) the entity {@code e} are the positions from
+ * {@code getOutStart(e)} (inclusive) to {@code getOutEnd(e)} (exclusive).
+ * 
+ * <pre>
+ *   for (int i = graph.getOutStart(e); i &lt; graph.getOutEnd(e); i++) {
+ *       int target = graph.getOutTarget(i);
+ *       Relationship rel = model.getRelationship(graph.getOutRelationship(i));
+ *   }
+ * </pre>
+ * 
+ * This class is immutable. The instance of this class is created by {@code Model#getGraph()}
+ * (or by {@code ModelStore} from the records of a model store).
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.Model
+ */
+public final class ModelGraph {
+	
+	private final Map<String, Integer> indexMap;
+	
+	//the indices of the entities of each relationship (-1 if undefined)
+	private final int[] relEntity1;
+	private final int[] relEntity2;
+	
+	//outgoing edges
+	private final int[] outOffsets;
+	private final int[] outTargets;
+	private final int[] outRels;
+	
+	//incoming edges
+	private final int[] inOffsets;
+	private final int[] inSources;
+	private final int[] inRels;
+	
+	/**
+	 * Constructs the graph of the specified entities and relationships.
+	 * 
+	 * @param entityList the entities of a model
+	 * @param relList the relationships of a model
+	 */
+	ModelGraph(List<Entity> entityList, List<Relationship> relList) {
+		this(entityList.size(), createIndexMap(entityList), relList);
+	}
+	
+	/**
+	 * Constructs the graph of the specified relationships.
+	 * 
+	 * @param entityCount count of the entities of a model
+	 * @param indexMap the map which maps the names of the entities to the indices
+	 * @param relList the relationships of a model
+	 */
+	private ModelGraph(int entityCount, Map<String, Integer> indexMap, List<Relationship> relList) {
+		this(entityCount, indexMap, 
+				resolveEntities(indexMap, relList, true), resolveEntities(indexMap, relList, false));
+	}
+	
+	/**
+	 * Constructs the graph whose relationships are resolved already.
+	 * 
+	 * @param entityCount count of the entities of a model
+	 * @param indexMap the map which maps the names of the entities to the indices (not copied)
+	 * @param relEntity1 the indices of the first entities of the relationships (-1 if undefined)
+	 * @param relEntity2 the indices of the second entities of the relationships (-1 if undefined)
+	 */
+	ModelGraph(int entityCount, Map<String, Integer> indexMap, int[] relEntity1, int[] relEntity2) {
+		
+		final int relCount = relEntity1.length;
+		
+		//count the edges of each entity
+		this.indexMap = indexMap;
+		this.relEntity1 = relEntity1;
+		this.relEntity2 = relEntity2;
+		this.outOffsets = new int[entityCount + 1];
+		this.inOffsets = new int[entityCount + 1];
+		
+		int edgeCount = 0;
+		for (int r = 0; r < relCount; r++) {
+			final int e1 = relEntity1[r];
+			final int e2 = relEntity2[r];
+			
+			if (e1 >= 0 && e2 >= 0) {
+				this.outOffsets[e1 + 1]++;
+				this.inOffsets[e2 + 1]++;
+				edgeCount++;
+			}
+		}
+		
+		for (int e = 0; e < entityCount; e++) {
+			this.outOffsets[e + 1] += this.outOffsets[e];
+			this.inOffsets[e + 1] += this.inOffsets[e];
+		}
+		
+		//fill the edges in the order of the relationships
+		this.outTargets = new int[edgeCount];
+		this.outRels = new int[edgeCount];
+		this.inSources = new int[edgeCount];
+		this.inRels = new int[edgeCount];
+		
+		final int[] outNext = new int[entityCount];
+		final int[] inNext = new int[entityCount];
+		System.arraycopy(this.outOffsets, 0, outNext, 0, entityCount);
+		System.arraycopy(this.inOffsets, 0, inNext, 0, entityCount);
+		
+		for (int r = 0; r < relCount; r++) {
+			final int e1 = this.relEntity1[r];
+			final int e2 = this.relEntity2[r];
+			if (e1 < 0 || e2 < 0) {
+				continue;
+			}
+			
+			final int o = outNext[e1]++;
+			this.outTargets[o] = e2;
+			this.outRels[o] = r;
+			
+			final int i = inNext[e2]++;
+			this.inSources[i] = e1;
+			this.inRels[i] = r;
+		}
+	}
+	
+	//private utility method to create the map of the entity indices
+	private static Map<String, Integer> createIndexMap(List<Entity> entityList) {
+		final Map<String, Integer> map = new HashMap<String, Integer>();
+		for (int i = 0; i < entityList.size(); i++) {
+			map.put(entityList.get(i).getName(), i);
+		}
+		return map;
+	}
+	
+	//private utility method to resolve the first (or second) entities of the relationships
+	private static int[] resolveEntities(Map<String, Integer> indexMap, List<Relationship> relList, 
+			boolean first) {
+		
+		final int[] indices = new int[relList.size()];
+		for (int r = 0; r < indices.length; r++) {
+			final Relationship rel = relList.get(r);
+			final Integer index = indexMap.get(first ? rel.getNameOfEntity1() : rel.getNameOfEntity2());
+			indices[r] = (index != null) ? index : -1;
+		}
+		return indices;
+	}
+	
+	/**
+	 * Retrieves the count of entities (vertices).
+	 * 
+	 * @return the count of entities
+	 */
+	public int getEntityCount() {
+		return this.outOffsets.length - 1;
+	}
+	
+	/**
+	 * Retrieves the count of relationships.
+	 * 
+	 * @return the count of relationships
+	 */
+	public int getRelationshipCount() {
+		return this.relEntity1.length;
+	}
+	
+	/**
+	 * Retrieves the count of edges. The relationships whose entities are undefined
+	 * aren't the edges.
+	 * 
+	 * @return the count of edges
+	 */
+	public int getEdgeCount() {
+		return this.outTargets.length;
+	}
+	
+	/**
+	 * Retrieves the index of the entity which has the specified name.
+	 * 
+	 * @param name the name of an entity
+	 * @return the index of the entity, or -1 if the entity isn't found
+	 */
+	public int getEntityIndex(String name) {
+		final Integer index = this.indexMap.get(name);
+		return (index != null) ? index : -1;
+	}
+	
+	/**
+	 * Retrieves the index of the first entity of the specified relationship.
+	 * 
+	 * @param rel the index of a relationship
+	 * @return the index of the entity, or -1 if the entity is undefined
+	 */
+	public int getEntity1Index(int rel) {
+		return this.relEntity1[rel];
+	}
+	
+	/**
+	 * Retrieves the index of the second entity of the specified relationship.
+	 * 
+	 * @param rel the index of a relationship
+	 * @return the index of the entity, or -1 if the entity is undefined
+	 */
+	public int getEntity2Index(int rel) {
+		return this.relEntity2[rel];
+	}
+	
+	/**
+	 * Retrieves the start position of the outgoing edges of the specified entity.
+	 * 
+	 * @param entity the index of an entity
+	 * @return the start position (inclusive)
+	 */
+	public int getOutStart(int entity) {
+		return this.outOffsets[entity];
+	}
+	
+	/**
+	 * Retrieves the end position of the outgoing edges of the specified entity.
+	 * 
+	 * @param entity the index of an entity
+	 * @return the end position (exclusive)
+	 */
+	public int getOutEnd(int entity) {
+		return this.outOffsets[entity + 1];
+	}
+	
+	/**
+	 * Retrieves the index of the target entity of the outgoing edge at the specified position.
+	 * 
+	 * @param position the position of an outgoing edge
+	 * @return the index of the second entity of the relationship
+	 */
+	public int getOutTarget(int position) {
+		return this.outTargets[position];
+	}
+	
+	/**
+	 * Retrieves the index of the relationship of the outgoing edge at the specified position.
+	 * 
+	 * @param position the position of an outgoing edge
+	 * @return the index of the relationship
+	 */
+	public int getOutRelationship(int position) {
+		return this.outRels[position];
+	}
+	
+	/**
+	 * Retrieves the start position of the incoming edges of the specified entity.
+	 * 
+	 * @param entity the index of an entity
+	 * @return the start position (inclusive)
+	 */
+	public int getInStart(int entity) {
+		return this.inOffsets[entity];
+	}
+	
+	/**
+	 * Retrieves the end position of the incoming edges of the specified entity.
+	 * 
+	 * @param entity the index of an entity
+	 * @return the end position (exclusive)
+	 */
+	public int getInEnd(int entity) {
+		return this.inOffsets[entity + 1];
+	}
+	
+	/**
+	 * Retrieves the index of the source entity of the incoming edge at the specified position.
+	 * 
+	 * @param position the position of an incoming edge
+	 * @return the index of the first entity of the relationship
+	 */
+	public int getInSource(int position) {
+		return this.inSources[position];
+	}
+	
+	/**
+	 * Retrieves the index of the relationship of the incoming edge at the specified position.
+	 * 
+	 * @param position the position of an incoming edge
+	 * @return the index of the relationship
+	 */
+	public int getInRelationship(int position) {
+		return this.inRels[position];
+	}
+	
+	/**
+	 * Retrieves the count of the outgoing edges of the specified entity.
+	 * 
+	 * @param entity the index of an entity
+	 * @return the count of the outgoing edges
+	 */
+	public int getOutDegree(int entity) {
+		return this.outOffsets[entity + 1] - this.outOffsets[entity];
+	}
+	
+	/**
+	 * Retrieves the count of the incoming edges of the specified entity.
+	 * 
+	 * @param entity the index of an entity
+	 * @return the count of the incoming edges
+	 */
+	public int getInDegree(int entity) {
+		return this.inOffsets[entity + 1] - this.inOffsets[entity];
+	}
+	
+}
@@ -0,0 +1,81 @@
+package de.slopjong.erwiz.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class is the pool of the canonical value objects which are used while a model is built.
+ * 
+ * Large models repeat the same names (for example, foreign key attribute names),
+ * the same cardinalities and the same verb phrases many times.
+ * The elements of a model refer to one instance for each value through this pool,
+ * so the values are stored only once, and can be compared by the identity first.
+ * 
+ * <ul>
+ *   <li>Strings (entity names and attribute names) are deduplicated in this pool.
+ *   <li>{@code CardinalityWithOptionality} objects are the canonical instances
+ *       of {@code CardinalityWithOptionality#valueOf()}.
+ *   <li>{@code VerbPhrase} objects are deduplicated in this pool, and the empty verb phrases
+ *       are replaced by {@code VerbPhrase#EMPTY}.
+ * </ul>
+ * 
+ * This class is thread-safe, so the pool can be shared by the parsers which run in parallel.
+ * The pool should be discarded after the model is built.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.Model
+ */
+public final class ModelInternPool {
+	
+	private final ConcurrentMap<String, String> stringMap = new ConcurrentHashMap<String, String>();
+	private final ConcurrentMap<VerbPhrase, VerbPhrase> verbPhraseMap = new ConcurrentHashMap<VerbPhrase, VerbPhrase>();
+	
+	/**
+	 * Creates an empty pool.
+	 */
+	public ModelInternPool() {
+	}
+	
+	/**
+	 * Retrieves the canonical instance of the specified string.
+	 * 
+	 * @param s a string
+	 * @return the string which is equal to the specified string in this pool, or null if null is specified
+	 */
+	public String intern(String s) {
+		if (s == null) {
+			return null;
+		}
+		
+		final String canonical = this.stringMap.putIfAbsent(s, s);
+		return (canonical != null) ? canonical : s;
+	}
+	
+	/**
+	 * Retrieves the canonical instance of the specified cardinality.
+	 * 
+	 * @param cwo a cardinality
+	 * @return the canonical instance which is equal to the specified cardinality
+	 */
+	public CardinalityWithOptionality intern(CardinalityWithOptionality cwo) {
+		return CardinalityWithOptionality.valueOf(
+				cwo.getCardinality1(), cwo.getOptionality1(), cwo.getCardinality2(), cwo.getOptionality2());
+	}
+	
+	/**
+	 * Retrieves the canonical instance of the specified verb phrase.
+	 * 
+	 * @param verbPhrase a verb phrase
+	 * @return the verb phrase which is equal to the specified verb phrase in this pool
+	 */
+	public VerbPhrase intern(VerbPhrase verbPhrase) {
+		if (verbPhrase.isEmpty()) {
+			return VerbPhrase.EMPTY;
+		}
+		
+		final VerbPhrase canonical = this.verbPhraseMap.putIfAbsent(verbPhrase, verbPhrase);
+		return (canonical != null) ? canonical : verbPhrase;
+	}
+	
+}
@@ -0,0 +1,469 @@
+package de.slopjong.erwiz.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes and reads a compact binary snapshot of a {@code Model} object.
+ * 
+ * A snapshot is written with the digest of the input text which the model was parsed from.
+ * When the same input text is converted again, the model can be read from the snapshot
+ * instead of parsing the text.
+ * 
+ * The format of a snapshot is as follows.
+ * 
+ * <ol>
+ *   <li>The header: the magic number, the format version and the digest of the input text.
+ *   <li>The string table: all distinct strings in the model.
+ *   <li>The option table: all distinct option maps in the model.
+ *   <li>The global options, the entities (with their attributes) and the relationships.
+ *       The strings and the option maps are written as the indices in the tables.
+ * </ol>
+ * 
+ * The enum values are written as their ordinals, so {@code FORMAT_VERSION} must be
+ * increased when the model classes or the parsing rules are changed.
+ * The snapshot whose version or digest is different is regarded as stale, and ignored.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.Model
+ */
+public final class ModelSnapshot {
+	
+	/** The version of the snapshot format. */
+	public static final int FORMAT_VERSION = 1;
+	
+	//constant
+	private static final int MAGIC = 0x45525753; //"ERWS"
+	
+	//the tags of option value types
+	private static final int TAG_NULL = 0;
+	private static final int TAG_STRING = 1;
+	private static final int TAG_INTEGER = 2;
+	private static final int TAG_DOUBLE = 3;
+	private static final int TAG_BOOLEAN = 4;
+	private static final int TAG_COLOR_PAIR = 5;
+	
+	//the ordinal which means null
+	private static final int NULL_ORDINAL = 0xff;
+	
+	/**
+	 * This class has only static methods.
+	 */
+	private ModelSnapshot() {
+	}
+	
+	/**
+	 * Writes the snapshot of the specified model to the specified stream.
+	 * The stream is not closed.
+	 * 
+	 * @param model the model
+	 * @param digest the digest of the input text which the model was parsed from
+	 * @param out the output stream
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void write(Model model, byte[] digest, OutputStream out) throws IOException {
+		
+		final Map<String, Integer> stringTable = new HashMap<String, Integer>();
+		final List<String> stringList = new ArrayList<String>();
+		final Map<Map<String, Object>, Integer> optionsTable = new HashMap<Map<String, Object>, Integer>();
+		final List<Map<String, Object>> optionsList = new ArrayList<Map<String, Object>>();
+		
+		//the body is written first to collect the strings
+		final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+		final DataOutputStream body = new DataOutputStream(bodyBytes);
+		
+		writeOptions(body, model.getOptions(), optionsTable, optionsList);
+		
+		writeVarInt(body, model.getEntityCount());
+		for (Entity entity : model.getEntityList()) {
+			writeString(body, entity.getName(), stringTable, stringList);
+			writeEnum(body, entity.getDependency());
+			
+			writeVarInt(body, entity.getAttributeCount());
+			for (EntityAttribute attr : entity.getAttributeList()) {
+				writeString(body, attr.getName(), stringTable, stringList);
+				body.writeByte((attr.isPrimaryKey() ? 1 : 0) | (attr.isForeignKey() ? 2 : 0));
+				writeOptions(body, attr.getOptions(), optionsTable, optionsList);
+			}
+			
+			writeOptions(body, entity.getOptions(), optionsTable, optionsList);
+		}
+		
+		writeVarInt(body, model.getRelationshipCount());
+		for (Relationship rel : model.getRelationshipList()) {
+			writeString(body, rel.getNameOfEntity1(), stringTable, stringList);
+			writeEnum(body, rel.getDependencyOfEntity1());
+			writeString(body, rel.getNameOfEntity2(), stringTable, stringList);
+			writeEnum(body, rel.getDependencyOfEntity2());
+			
+			final CardinalityWithOptionality cwo = rel.getCardinality();
+			writeEnum(body, cwo.getCardinality1());
+			writeEnum(body, cwo.getOptionality1());
+			writeEnum(body, cwo.getCardinality2());
+			writeEnum(body, cwo.getOptionality2());
+			
+			final VerbPhrase verbPhrase = rel.getVerbPhrase();
+			writeString(body, verbPhrase.getText(), stringTable, stringList);
+			writeEnum(body, verbPhrase.getDirection());
+			
+			writeOptions(body, rel.getOptions(), optionsTable, optionsList);
+		}
+		body.flush();
+		
+		//the option maps are written next to collect the strings
+		final ByteArrayOutputStream optionsBytes = new ByteArrayOutputStream();
+		final DataOutputStream optionsData = new DataOutputStream(optionsBytes);
+		writeVarInt(optionsData, optionsList.size());
+		for (Map<String, Object> map : optionsList) {
+			writeOptionValues(optionsData, map, stringTable, stringList);
+		}
+		optionsData.flush();
+		
+		//header
+		final DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(FORMAT_VERSION);
+		writeVarInt(data, digest.length);
+		data.write(digest);
+		
+		//string table
+		writeVarInt(data, stringList.size());
+		for (String s : stringList) {
+			data.writeUTF(s);
+		}
+		
+		optionsBytes.writeTo(data);
+		bodyBytes.writeTo(data);
+		data.flush();
+	}
+	
+	/**
+	 * Reads a model from the snapshot in the specified stream.
+	 * The option holders should have been loaded, because the snapshot which has 
+	 * an option name without a slot (see {@code OptionInfo}) is regarded as broken.
+	 * The stream is not closed.
+	 * 
+	 * @param in the input stream
+	 * @param digest the digest of the current input text
+	 * @return the model, or null if the snapshot is stale
+	 * @throws IOException if an I/O error occurs, or the snapshot is broken
+	 */
+	public static Model read(InputStream in, byte[] digest) throws IOException {
+		
+		final DataInputStream data = new DataInputStream(in);
+		
+		//header
+		if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+			return null;
+		}
+		final byte[] snapshotDigest = new byte[readVarInt(data)];
+		data.readFully(snapshotDigest);
+		if (!Arrays.equals(snapshotDigest, digest)) {
+			return null;
+		}
+		
+		//string table
+		final String[] strings = new String[readVarInt(data)];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = data.readUTF();
+		}
+		
+		//option table
+		final OptionMap[] optionMaps = new OptionMap[readVarInt(data)];
+		for (int i = 0; i < optionMaps.length; i++) {
+			optionMaps[i] = readOptionValues(data, strings);
+		}
+		
+		final OptionMap modelOptions = readOptions(data, optionMaps);
+		
+		final Dependency[] dependencies = Dependency.values();
+		final CardinalityElement[] cardinalities = CardinalityElement.values();
+		final OptionalityElement[] optionalities = OptionalityElement.values();
+		final VerbDirection[] directions = VerbDirection.values();
+		
+		//the attributes are read into the columns of a compact model
+		final int entityCount = readVarInt(data);
+		final List<Entity> entityList = new ArrayList<Entity>(entityCount);
+		final AttributeColumns columns = new AttributeColumns();
+		for (int i = 0; i < entityCount; i++) {
+			final String name = readString(data, strings);
+			final Dependency dependency = readEnum(data, dependencies);
+			
+			final int attrCount = readVarInt(data);
+			for (int j = 0; j < attrCount; j++) {
+				final String attrName = readString(data, strings);
+				final int flags = data.readUnsignedByte();
+				final OptionMap attrOptions = readOptions(data, optionMaps);
+				columns.addAttribute(attrName, (flags & 1) != 0, (flags & 2) != 0, attrOptions);
+			}
+			
+			final OptionMap options = readOptions(data, optionMaps);
+			entityList.add(new Entity(name, dependency, columns, columns.closeEntity(), options));
+		}
+		columns.trim();
+		
+		final int relCount = readVarInt(data);
+		final List<Relationship> relList = new ArrayList<Relationship>(relCount);
+		final ModelInternPool pool = new ModelInternPool();
+		for (int i = 0; i < relCount; i++) {
+			final String name1 = readString(data, strings);
+			final Dependency dependency1 = readEnum(data, dependencies);
+			final String name2 = readString(data, strings);
+			final Dependency dependency2 = readEnum(data, dependencies);
+			
+			final CardinalityElement ce1 = readEnum(data, cardinalities);
+			final OptionalityElement oe1 = readEnum(data, optionalities);
+			final CardinalityElement ce2 = readEnum(data, cardinalities);
+			final OptionalityElement oe2 = readEnum(data, optionalities);
+			final CardinalityWithOptionality cwo = CardinalityWithOptionality.valueOf(ce1, oe1, ce2, oe2);
+			
+			final String verbText = readString(data, strings);
+			final VerbPhrase verbPhrase = pool.intern(new VerbPhrase(verbText, readEnum(data, directions)));
+			
+			final OptionMap options = readOptions(data, optionMaps);
+			relList.add(new Relationship(name1, dependency1, name2, dependency2, cwo, verbPhrase, options));
+		}
+		
+		return new Model(entityList, relList, modelOptions);
+	}
+	
+	/**
+	 * Writes the specified option maps with the strings which they contain.
+	 * This method is used to write the option table of a model store.
+	 * 
+	 * @param out the output stream
+	 * @param optionsList the maps of option values (see {@code OptionMap#getValueMap()})
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void writeOptionTable(DataOutputStream out, List<Map<String, Object>> optionsList) 
+			throws IOException {
+		
+		final Map<String, Integer> stringTable = new HashMap<String, Integer>();
+		final List<String> stringList = new ArrayList<String>();
+		
+		//the option maps are written first to collect the strings
+		final ByteArrayOutputStream optionsBytes = new ByteArrayOutputStream();
+		final DataOutputStream optionsData = new DataOutputStream(optionsBytes);
+		writeVarInt(optionsData, optionsList.size());
+		for (Map<String, Object> map : optionsList) {
+			writeOptionValues(optionsData, map, stringTable, stringList);
+		}
+		optionsData.flush();
+		
+		writeVarInt(out, stringList.size());
+		for (String s : stringList) {
+			out.writeUTF(s);
+		}
+		optionsBytes.writeTo(out);
+	}
+	
+	/**
+	 * Reads the option maps which are written by {@code writeOptionTable()}.
+	 * 
+	 * @param in the input stream
+	 * @return the option maps
+	 * @throws IOException if an I/O error occurs, or the data is broken
+	 */
+	static OptionMap[] readOptionTable(DataInputStream in) throws IOException {
+		
+		final String[] strings = new String[readVarInt(in)];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = in.readUTF();
+		}
+		
+		final OptionMap[] optionMaps = new OptionMap[readVarInt(in)];
+		for (int i = 0; i < optionMaps.length; i++) {
+			optionMaps[i] = readOptionValues(in, strings);
+		}
+		return optionMaps;
+	}
+	
+	//private utility method to write an option map as the index in the option table
+	private static void writeOptions(DataOutputStream out, OptionMap options,
+			Map<Map<String, Object>, Integer> optionsTable, List<Map<String, Object>> optionsList)
+			throws IOException {
+			
+		final Map<String, Object> map = options.getValueMap();
+		
+		Integer index = optionsTable.get(map);
+		if (index == null) {
+			index = optionsList.size();
+			optionsTable.put(map, index);
+			optionsList.add(map);
+		}
+		writeVarInt(out, index);
+	}
+	
+	//private utility method to read an option map from the option table
+	//(the option map is copied, and the values are shared until it is modified.)
+	private static OptionMap readOptions(DataInputStream in, OptionMap[] optionMaps) throws IOException {
+		final int index = readVarInt(in);
+		if (index >= optionMaps.length) {
+			throw new IOException("invalid option map index: " + index);
+		}
+		
+		return optionMaps[index].copy();
+	}
+	
+	//private utility method to write the values of an option map
+	private static void writeOptionValues(DataOutputStream out, Map<String, Object> map,
+			Map<String, Integer> stringTable, List<String> stringList) throws IOException {
+			
+		writeVarInt(out, map.size());
+		
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			writeString(out, entry.getKey(), stringTable, stringList);
+			
+			final Object value = entry.getValue();
+			if (value == null) {
+				out.writeByte(TAG_NULL);
+			} else if (value instanceof String) {
+				out.writeByte(TAG_STRING);
+				writeString(out, (String)value, stringTable, stringList);
+			} else if (value instanceof Integer) {
+				out.writeByte(TAG_INTEGER);
+				out.writeInt((Integer)value);
+			} else if (value instanceof Double) {
+				out.writeByte(TAG_DOUBLE);
+				out.writeDouble((Double)value);
+			} else if (value instanceof Boolean) {
+				out.writeByte(TAG_BOOLEAN);
+				out.writeBoolean((Boolean)value);
+			} else if (value instanceof ColorPair) {
+				out.writeByte(TAG_COLOR_PAIR);
+				writeEnum(out, (ColorPair)value);
+			} else {
+				throw new IOException("unsupported option value type: " + value.getClass().getName());
+			}
+		}
+	}
+	
+	//private utility method to read the values of an option map.
+	//the values are the default values of the map, so the map has no values set
+	//like the maps which are parsed without options, and it can be shared in the attribute columns.
+	private static OptionMap readOptionValues(DataInputStream in, String[] strings) throws IOException {
+		
+		final Object[] values = new Object[OptionInfo.getSlotCount()];
+		final int size = readVarInt(in);
+		
+		for (int i = 0; i < size; i++) {
+			final String name = readString(in, strings);
+			
+			final Object value;
+			final int tag = in.readUnsignedByte();
+			switch (tag) {
+				case TAG_NULL:
+					value = null;
+					break;
+				case TAG_STRING:
+					value = readString(in, strings);
+					break;
+				case TAG_INTEGER:
+					value = in.readInt();
+					break;
+				case TAG_DOUBLE:
+					value = in.readDouble();
+					break;
+				case TAG_BOOLEAN:
+					value = in.readBoolean();
+					break;
+				case TAG_COLOR_PAIR:
+					value = readEnum(in, ColorPair.values());
+					break;
+				default:
+					throw new IOException("unknown option value tag: " + tag);
+			}
+			
+			final int slot = OptionInfo.findSlot(name);
+			if (slot < 0) {
+				throw new IOException("unknown option name: " + name);
+			}
+			values[slot] = value;
+		}
+		
+		return OptionMap.withDefaults(values);
+	}
+	
+	//private utility method to write a string as the index in the string table
+	private static void writeString(DataOutputStream out, String s,
+			Map<String, Integer> stringTable, List<String> stringList) throws IOException {
+			
+		if (s == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+		
+		Integer index = stringTable.get(s);
+		if (index == null) {
+			index = stringList.size();
+			stringTable.put(s, index);
+			stringList.add(s);
+		}
+		writeVarInt(out, index + 1); //zero means null
+	}
+	
+	//private utility method to read a string from the string table
+	private static String readString(DataInputStream in, String[] strings) throws IOException {
+		final int index = readVarInt(in);
+		if (index == 0) {
+			return null;
+		}
+		if (index > strings.length) {
+			throw new IOException("invalid string index: " + index);
+		}
+		return strings[index - 1];
+	}
+	
+	//private utility method to write an enum value
+	private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+		out.writeByte((value != null) ? value.ordinal() : NULL_ORDINAL);
+	}
+	
+	//private utility method to read an enum value
+	private static <E extends Enum<E>> E readEnum(DataInputStream in, E[] values) throws IOException {
+		final int ordinal = in.readUnsignedByte();
+		if (ordinal == NULL_ORDINAL) {
+			return null;
+		}
+		if (ordinal >= values.length) {
+			throw new IOException("invalid enum ordinal: " + ordinal);
+		}
+		return values[ordinal];
+	}
+	
+	//private utility method to write a non-negative integer in 7 bits per byte
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+	
+	//private utility method to read a non-negative integer in 7 bits per byte
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final int b = in.readUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0) {
+					break;
+				}
+				return value;
+			}
+		}
+		throw new IOException("invalid variable length integer");
+	}
+	
+}
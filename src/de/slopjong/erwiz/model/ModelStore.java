@@ -0,0 +1,508 @@
+package de.slopjong.erwiz.model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * This class represents a model store, which is a file to keep a model out of the heap.
+ * 
+ * A model is written to a store file by {@code ModelStoreWriter}, which writes the elements
+ * one by one while they are parsed, or by {@code write()} from a {@code Model} object.
+ * The store file is opened by {@code open()} as a {@code Model} object. The file is mapped to the memory, and
+ * the entities, the attributes and the relationships of the model are created on demand
+ * from the records in the file, so the model can be larger than the heap.
+ * The elements are created for each call, but they have the same ids as the written model.
+ * 
+ * The format of a store file is as follows. All numbers are big-endian.
+ * 
+ * <ol>
+ *   <li>The header: the magic number, the format version, the counts of the elements and
+ *       the offset of the option table.
+ *   <li>The entity records (24 bytes): the id number, the name, the dependency,
+ *       the first attribute, the count of attributes and the options.
+ *   <li>The attribute records (12 bytes): the name, the key flags and the options.
+ *   <li>The relationship records (48 bytes): the id number, the names and dependencies of
+ *       both entities, the indices of both entities, the cardinality, the verb phrase and the options.
+ *   <li>The name index: the indices of the entities in the order of their names.
+ *   <li>The string table: the offsets and lengths (8 bytes for each string),
+ *       and the strings in UTF-8.
+ *   <li>The option table: all distinct option maps in the model.
+ * </ol>
+ * 
+ * The strings and the option maps are written as the indices in the tables, and
+ * the enum values are written as their ordinals (-1 means null).
+ * Each section must be smaller than 2 GB, because it is mapped to one buffer.
+ * Only the option table is read into the heap when the store is opened.
+ * 
+ * The model of a store is read only, and it can be read by multiple threads.
+ * The option maps in the option table are frozen, and shared by the created elements.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.Model
+ * @see de.slopjong.erwiz.model.ModelSnapshot
+ */
+public final class ModelStore {
+	
+	/** The version of the store format. */
+	public static final int FORMAT_VERSION = 2;
+	
+	//constant (the layout is shared with ModelStoreWriter)
+	static final int MAGIC = 0x4552574d; //"ERWM"
+	static final int HEADER_SIZE = 64;
+	static final int ENTITY_RECORD_SIZE = 24;
+	static final int ATTR_RECORD_SIZE = 12;
+	static final int REL_RECORD_SIZE = 48;
+	static final int STRING_RECORD_SIZE = 8;
+	static final int NAME_RECORD_SIZE = 4;
+	
+	//the index which means null
+	static final int NULL_INDEX = -1;
+	
+	//the ordinal which means null in the packed cardinality
+	private static final int NULL_ORDINAL = 0xff;
+	
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	private static final Dependency[] DEPENDENCIES = Dependency.values();
+	private static final CardinalityElement[] CARDINALITIES = CardinalityElement.values();
+	private static final OptionalityElement[] OPTIONALITIES = OptionalityElement.values();
+	private static final VerbDirection[] DIRECTIONS = VerbDirection.values();
+	
+	//the counts of the elements
+	private final int entityCount;
+	private final int relCount;
+	
+	//the mapped sections of the file
+	private final ByteBuffer entities;
+	private final ByteBuffer attributes;
+	private final ByteBuffer relationships;
+	private final ByteBuffer nameIndex;
+	private final ByteBuffer stringIndex;
+	private final ByteBuffer stringData;
+	
+	//the option table and the global options (on the heap)
+	private final OptionMap[] optionMaps;
+	private final OptionMap options;
+	
+	/**
+	 * Opens the specified store file, and maps the sections.
+	 */
+	private ModelStore(File file) throws IOException {
+		
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			if (channel.size() < HEADER_SIZE) {
+				throw new IOException("not a model store: " + file);
+			}
+			
+			//header
+			final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt(0) != MAGIC) {
+				throw new IOException("not a model store: " + file);
+			}
+			if (header.getInt(4) != FORMAT_VERSION) {
+				throw new IOException("unsupported model store version: " + header.getInt(4));
+			}
+			
+			this.entityCount = header.getInt(8);
+			final int attrCount = header.getInt(12);
+			this.relCount = header.getInt(16);
+			final int stringCount = header.getInt(20);
+			final int modelOptionsIndex = header.getInt(24);
+			final long stringDataSize = header.getLong(32);
+			final long optionTableOffset = header.getLong(40);
+			
+			//sections
+			long position = HEADER_SIZE;
+			this.entities = map(channel, position, (long)this.entityCount * ENTITY_RECORD_SIZE);
+			position += this.entities.capacity();
+			this.attributes = map(channel, position, (long)attrCount * ATTR_RECORD_SIZE);
+			position += this.attributes.capacity();
+			this.relationships = map(channel, position, (long)this.relCount * REL_RECORD_SIZE);
+			position += this.relationships.capacity();
+			this.nameIndex = map(channel, position, (long)this.entityCount * NAME_RECORD_SIZE);
+			position += this.nameIndex.capacity();
+			this.stringIndex = map(channel, position, (long)stringCount * STRING_RECORD_SIZE);
+			position += this.stringIndex.capacity();
+			this.stringData = map(channel, position, stringDataSize);
+			position += this.stringData.capacity();
+			
+			if (position != optionTableOffset) {
+				throw new IOException("broken model store: " + file);
+			}
+			
+			//option table
+			channel.position(optionTableOffset);
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(Channels.newInputStream(channel)));
+			this.optionMaps = ModelSnapshot.readOptionTable(in);
+			for (OptionMap optionMap : this.optionMaps) {
+				optionMap.freeze();
+			}
+			this.options = readOptions(modelOptionsIndex);
+			
+		} finally {
+			//the mapped buffers are valid after the file is closed
+			raf.close();
+		}
+	}
+	
+	/**
+	 * Writes the specified model to the specified store file.
+	 * If the file exists, it is overwritten.
+	 * 
+	 * @param model the model
+	 * @param file the store file
+	 * @throws IOException if an I/O error occurs, or a section is too large
+	 */
+	public static void write(Model model, File file) throws IOException {
+		final ModelStoreWriter writer = new ModelStoreWriter(file);
+		try {
+			for (Entity entity : model.getEntityList()) {
+				writer.addEntity(entity);
+			}
+			for (Relationship rel : model.getRelationshipList()) {
+				writer.addRelationship(rel);
+			}
+			writer.finish(model.getOptions());
+		} finally {
+			writer.abort(); //nothing is done if the store has been finished
+		}
+	}
+	
+	/**
+	 * Opens the specified store file as a model.
+	 * 
+	 * @param file the store file
+	 * @return the model whose elements are read from the store file
+	 * @throws IOException if an I/O error occurs, or the file isn't a valid store file
+	 */
+	public static Model open(File file) throws IOException {
+		return new Model(new ModelStore(file));
+	}
+	
+	/**
+	 * Retrieves the list view of the entities.
+	 * 
+	 * @return an unmodifiable {@code List} object whose elements are created on demand
+	 */
+	List<Entity> getEntityList() {
+		return new EntityList();
+	}
+	
+	/**
+	 * Retrieves the map view of the entities, which maps entity names to entity objects.
+	 * The entities are found by the binary search on the name index.
+	 * 
+	 * @return an unmodifiable {@code Map} object whose values are created on demand
+	 */
+	Map<String, Entity> getEntityMap() {
+		return new EntityMap();
+	}
+	
+	/**
+	 * Retrieves the list view of the relationships.
+	 * 
+	 * @return an unmodifiable {@code List} object whose elements are created on demand
+	 */
+	List<Relationship> getRelationshipList() {
+		return new RelationshipList();
+	}
+	
+	/**
+	 * Retrieves the global options.
+	 * 
+	 * @return the global options
+	 */
+	OptionMap getOptions() {
+		return this.options;
+	}
+	
+	/**
+	 * Creates the graph of the model from the indices of the entities in the relationship records.
+	 * 
+	 * @return the graph of the model
+	 */
+	ModelGraph createGraph() {
+		final int[] relEntity1 = new int[this.relCount];
+		final int[] relEntity2 = new int[this.relCount];
+		for (int i = 0; i < this.relCount; i++) {
+			final int base = i * REL_RECORD_SIZE;
+			relEntity1[i] = this.relationships.getInt(base + 20);
+			relEntity2[i] = this.relationships.getInt(base + 24);
+		}
+		
+		final Map<String, Integer> indexMap = new AbstractMap<String, Integer>() {
+			
+			@Override
+			public Integer get(Object key) {
+				final int index = (key instanceof String) ? findEntity((String)key) : NULL_INDEX;
+				return (index != NULL_INDEX) ? index : null;
+			}
+			
+			@Override
+			public boolean containsKey(Object key) {
+				return get(key) != null;
+			}
+			
+			@Override
+			public Set<Map.Entry<String, Integer>> entrySet() {
+				return new EntrySet<Integer>() {
+					@Override
+					Integer getValue(int index) {
+						return index;
+					}
+				};
+			}
+		};
+		
+		return new ModelGraph(this.entityCount, indexMap, relEntity1, relEntity2);
+	}
+	
+	//create the entity from the record
+	private Entity readEntity(int index) {
+		final int base = index * ENTITY_RECORD_SIZE;
+		final ByteBuffer records = this.entities;
+		
+		final List<EntityAttribute> attrList =
+			new AttributeList(records.getInt(base + 12), records.getInt(base + 16));
+			
+		return new Entity(records.getInt(base), readString(records.getInt(base + 4)),
+				toEnum(records.getInt(base + 8), DEPENDENCIES), attrList, readOptions(records.getInt(base + 20)));
+	}
+	
+	//create the attribute from the record
+	private EntityAttribute readAttribute(int index) {
+		final int base = index * ATTR_RECORD_SIZE;
+		final ByteBuffer records = this.attributes;
+		
+		final int flags = records.getInt(base + 4);
+		return new EntityAttribute(readString(records.getInt(base)),
+				(flags & 1) != 0, (flags & 2) != 0, readOptions(records.getInt(base + 8)));
+	}
+	
+	//create the relationship from the record
+	private Relationship readRelationship(int index) {
+		final int base = index * REL_RECORD_SIZE;
+		final ByteBuffer records = this.relationships;
+		
+		final int cwoBits = records.getInt(base + 28);
+		final CardinalityWithOptionality cwo = CardinalityWithOptionality.valueOf(
+				toEnum(unpack(cwoBits, 24), CARDINALITIES), toEnum(unpack(cwoBits, 16), OPTIONALITIES),
+				toEnum(unpack(cwoBits, 8), CARDINALITIES), toEnum(unpack(cwoBits, 0), OPTIONALITIES));
+				
+		VerbPhrase verbPhrase = new VerbPhrase(
+				readString(records.getInt(base + 32)), toEnum(records.getInt(base + 36), DIRECTIONS));
+		if (verbPhrase.isEmpty()) {
+			verbPhrase = VerbPhrase.EMPTY;
+		}
+		
+		return new Relationship(records.getInt(base),
+				readString(records.getInt(base + 4)), toEnum(records.getInt(base + 8), DEPENDENCIES),
+				readString(records.getInt(base + 12)), toEnum(records.getInt(base + 16), DEPENDENCIES),
+				cwo, verbPhrase, readOptions(records.getInt(base + 40)));
+	}
+	
+	//decode the string from the string table
+	private String readString(int index) {
+		if (index == NULL_INDEX) {
+			return null;
+		}
+		
+		final int base = index * STRING_RECORD_SIZE;
+		final byte[] bytes = new byte[this.stringIndex.getInt(base + 4)];
+		
+		//the duplicate has its own position, so the buffer can be read by multiple threads
+		final ByteBuffer data = this.stringData.duplicate();
+		data.position(this.stringIndex.getInt(base));
+		data.get(bytes);
+		
+		return new String(bytes, UTF_8);
+	}
+	
+	//the option map in the option table (frozen, so it is shared)
+	private OptionMap readOptions(int index) {
+		return this.optionMaps[index];
+	}
+	
+	//binary search on the name index
+	private int findEntity(String name) {
+		int low = 0;
+		int high = this.entityCount - 1;
+		
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int index = this.nameIndex.getInt(mid * NAME_RECORD_SIZE);
+			final String midName = readString(this.entities.getInt(index * ENTITY_RECORD_SIZE + 4));
+			
+			final int c = midName.compareTo(name);
+			if (c < 0) {
+				low = mid + 1;
+			} else if (c > 0) {
+				high = mid - 1;
+			} else {
+				return index;
+			}
+		}
+		return NULL_INDEX;
+	}
+	
+	//private utility method to map a section of the file
+	private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		if (size > Integer.MAX_VALUE || position + size > channel.size()) {
+			throw new IOException("broken model store section: " + position + "+" + size);
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+	}
+	
+	//private utility method to read an enum value
+	private static <E extends Enum<E>> E toEnum(int ordinal, E[] values) {
+		return (ordinal != NULL_INDEX) ? values[ordinal] : null;
+	}
+	
+	//private utility method to read an ordinal in the packed cardinality
+	private static int unpack(int bits, int shift) {
+		final int ordinal = (bits >>> shift) & 0xff;
+		return (ordinal != NULL_ORDINAL) ? ordinal : NULL_INDEX;
+	}
+	
+	//private class for the list view of the entities
+	private final class EntityList extends AbstractList<Entity> implements RandomAccess {
+		
+		@Override
+		public Entity get(int index) {
+			if (index < 0 || index >= ModelStore.this.entityCount) {
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+			return readEntity(index);
+		}
+		
+		@Override
+		public int size() {
+			return ModelStore.this.entityCount;
+		}
+	}
+	
+	//private class for the list view of the attributes of an entity
+	private final class AttributeList extends AbstractList<EntityAttribute> implements RandomAccess {
+		
+		private final int first;
+		private final int count;
+		
+		AttributeList(int first, int count) {
+			this.first = first;
+			this.count = count;
+		}
+		
+		@Override
+		public EntityAttribute get(int index) {
+			if (index < 0 || index >= this.count) {
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+			return readAttribute(this.first + index);
+		}
+		
+		@Override
+		public int size() {
+			return this.count;
+		}
+	}
+	
+	//private class for the list view of the relationships
+	private final class RelationshipList extends AbstractList<Relationship> implements RandomAccess {
+		
+		@Override
+		public Relationship get(int index) {
+			if (index < 0 || index >= ModelStore.this.relCount) {
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+			return readRelationship(index);
+		}
+		
+		@Override
+		public int size() {
+			return ModelStore.this.relCount;
+		}
+	}
+	
+	//private class for the map view of the entities
+	private final class EntityMap extends AbstractMap<String, Entity> {
+		
+		@Override
+		public Entity get(Object key) {
+			final int index = (key instanceof String) ? findEntity((String)key) : NULL_INDEX;
+			return (index != NULL_INDEX) ? readEntity(index) : null;
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			return (key instanceof String) && findEntity((String)key) != NULL_INDEX;
+		}
+		
+		@Override
+		public Set<Map.Entry<String, Entity>> entrySet() {
+			return new EntrySet<Entity>() {
+				@Override
+				Entity getValue(int index) {
+					return readEntity(index);
+				}
+			};
+		}
+	}
+	
+	//private class for the entry set views of the maps whose keys are the entity names
+	private abstract class EntrySet<V> extends AbstractSet<Map.Entry<String, V>> {
+		
+		//the value of the entity at the specified index
+		abstract V getValue(int index);
+		
+		@Override
+		public Iterator<Map.Entry<String, V>> iterator() {
+			return new Iterator<Map.Entry<String, V>>() {
+				
+				private int next = 0;
+				
+				public boolean hasNext() {
+					return this.next < ModelStore.this.entityCount;
+				}
+				
+				public Map.Entry<String, V> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					final int index = this.next++;
+					final String name = readString(ModelStore.this.entities.getInt(index * ENTITY_RECORD_SIZE + 4));
+					return new AbstractMap.SimpleImmutableEntry<String, V>(name, getValue(index));
+				}
+				
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+		
+		@Override
+		public int size() {
+			return ModelStore.this.entityCount;
+		}
+	}
+	
+}
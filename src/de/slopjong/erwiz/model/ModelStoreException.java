@@ -0,0 +1,42 @@
+package de.slopjong.erwiz.model;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * An exception that provides information on an I/O error of a model store file,
+ * which is distinguished from the errors of reading the input text.
+ * The original exception is kept as the cause.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.ModelStore
+ * @see de.slopjong.erwiz.model.ModelStoreWriter
+ */
+public final class ModelStoreException extends IOException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final File file;
+	
+	/**
+	 * Constructs an object of this class.
+	 * 
+	 * @param file the model store file
+	 * @param cause the original exception
+	 */
+	public ModelStoreException(File file, IOException cause) {
+		super("model store error: " + file.getPath(), cause);
+		this.file = file;
+	}
+	
+	/**
+	 * Retrieves the model store file.
+	 * 
+	 * @return the model store file
+	 */
+	public File getFile() {
+		return this.file;
+	}
+	
+}
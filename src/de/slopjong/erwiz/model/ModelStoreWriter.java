@@ -0,0 +1,489 @@
+package de.slopjong.erwiz.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes a model store file (see {@code ModelStore}) from the elements
+ * which are added one by one, so the model isn't built in the heap before it is written.
+ * 
+ * The records of the entities, the attributes, the relationships and the strings are written
+ * to temporary section files as soon as the elements are added, and the sections are joined
+ * into the store file by {@code finish()}. The id numbers, the dependencies of entities and
+ * the indices of the entities in the relationship records are patched in the store file then,
+ * so the dependency of an entity can be changed after it is added.
+ * 
+ * The heap keeps only the names of the entities, the names of the entities of each relationship,
+ * and the option table, which are needed to allocate the ids and to create the name index.
+ * The strings are deduplicated with a bounded cache, so the same string may be written twice.
+ * 
+ * Usage:
+ * 
+ * <ol>
+ *   <li>Creates an object of this class for a store file.
+ *   <li>Add the entities and the relationships in the order of the model.
+ *   <li>Write the store file by calling {@code finish()}, or discard it by {@code abort()}.
+ *   <li>Open the store file by {@code ModelStore#open()}.
+ * </ol>
+ * 
+ * This class isn't thread-safe.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.model.ModelStore
+ */
+public final class ModelStoreWriter {
+	
+	//constant
+	//the maximum number of the strings in the cache of the string indices
+	private static final int STRING_CACHE_SIZE = 64 * 1024;
+	
+	private final File file;
+	
+	//the sections which are written while the elements are added
+	private final Section entitySection;
+	private final Section attrSection;
+	private final Section relSection;
+	private final Section stringIndexSection;
+	private final Section stringDataSection;
+	
+	//the data which is needed to finish the store
+	private final List<String> entityNames = new ArrayList<String>();
+	private final BitSet dependentFlags = new BitSet();
+	private final List<String> relNames1 = new ArrayList<String>();
+	private final List<String> relNames2 = new ArrayList<String>();
+	private int attrCount = 0;
+	
+	//the string table (the cache of the indices, and the count of the written strings)
+	private final Map<String, Integer> stringCache = new HashMap<String, Integer>();
+	private int stringCount = 0;
+	
+	//the option table
+	private final Map<Map<String, Object>, Integer> optionsTable = new HashMap<Map<String, Object>, Integer>();
+	private final List<Map<String, Object>> optionsList = new ArrayList<Map<String, Object>>();
+	
+	private boolean closed = false;
+	
+	/**
+	 * Creates an object of this class which writes the specified store file.
+	 * The temporary section files are created in the directory of the store file.
+	 * 
+	 * @param file the store file, which is overwritten by {@code finish()}
+	 * @throws IOException if the temporary files can't be created
+	 */
+	public ModelStoreWriter(File file) throws IOException {
+		this.file = file;
+		
+		final List<Section> sections = new ArrayList<Section>();
+		try {
+			this.entitySection = createSection(sections);
+			this.attrSection = createSection(sections);
+			this.relSection = createSection(sections);
+			this.stringIndexSection = createSection(sections);
+			this.stringDataSection = createSection(sections);
+		} catch (IOException ex) {
+			for (Section section : sections) {
+				section.delete();
+			}
+			throw ex;
+		}
+	}
+	
+	/**
+	 * Writes the records of the specified entity and its attributes.
+	 * 
+	 * @param entity the entity
+	 * @return the index of the entity in the store
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalStateException if the store has been finished or aborted
+	 */
+	public int addEntity(Entity entity) throws IOException {
+		checkOpen();
+		
+		final int count = entity.getAttributeCount();
+		final DataOutputStream out = this.entitySection.out;
+		out.writeInt(0); //the id number is patched
+		out.writeInt(getStringIndex(entity.getName()));
+		out.writeInt(getOrdinal(entity.getDependency()));
+		out.writeInt(this.attrCount);
+		out.writeInt(count);
+		out.writeInt(getOptionsIndex(entity.getOptions()));
+		
+		final DataOutputStream attrOut = this.attrSection.out;
+		for (EntityAttribute attr : entity.getAttributeList()) {
+			attrOut.writeInt(getStringIndex(attr.getName()));
+			attrOut.writeInt((attr.isPrimaryKey() ? 1 : 0) | (attr.isForeignKey() ? 2 : 0));
+			attrOut.writeInt(getOptionsIndex(attr.getOptions()));
+		}
+		this.attrCount += count;
+		
+		this.entityNames.add(entity.getName());
+		return this.entityNames.size() - 1;
+	}
+	
+	/**
+	 * Makes the entity of the specified index dependent.
+	 * The dependency is patched by {@code finish()}.
+	 * 
+	 * @param index the index of the entity in the store
+	 * @throws IndexOutOfBoundsException if the entity hasn't been added
+	 */
+	public void setDependent(int index) {
+		if (index < 0 || index >= this.entityNames.size()) {
+			throw new IndexOutOfBoundsException("Index: " + index);
+		}
+		this.dependentFlags.set(index);
+	}
+	
+	/**
+	 * Retrieves the count of the entities which have been added.
+	 * 
+	 * @return the count of the entities
+	 */
+	public int getEntityCount() {
+		return this.entityNames.size();
+	}
+	
+	/**
+	 * Retrieves the store file which is written by {@code finish()}.
+	 * 
+	 * @return the store file
+	 */
+	public File getFile() {
+		return this.file;
+	}
+	
+	/**
+	 * Writes the record of the specified relationship.
+	 * The entities of the relationship can be added after the relationship.
+	 * 
+	 * @param rel the relationship
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalStateException if the store has been finished or aborted
+	 */
+	public void addRelationship(Relationship rel) throws IOException {
+		checkOpen();
+		
+		final CardinalityWithOptionality cwo = rel.getCardinality();
+		final VerbPhrase verbPhrase = rel.getVerbPhrase();
+		
+		final DataOutputStream out = this.relSection.out;
+		out.writeInt(0); //the id number is patched
+		out.writeInt(getStringIndex(rel.getNameOfEntity1()));
+		out.writeInt(getOrdinal(rel.getDependencyOfEntity1()));
+		out.writeInt(getStringIndex(rel.getNameOfEntity2()));
+		out.writeInt(getOrdinal(rel.getDependencyOfEntity2()));
+		out.writeInt(ModelStore.NULL_INDEX); //the indices of the entities are patched
+		out.writeInt(ModelStore.NULL_INDEX);
+		out.writeInt(
+				(getOrdinal(cwo.getCardinality1()) & 0xff) << 24 |
+				(getOrdinal(cwo.getOptionality1()) & 0xff) << 16 |
+				(getOrdinal(cwo.getCardinality2()) & 0xff) << 8 |
+				(getOrdinal(cwo.getOptionality2()) & 0xff));
+		out.writeInt(getStringIndex(verbPhrase.getText()));
+		out.writeInt(getOrdinal(verbPhrase.getDirection()));
+		out.writeInt(getOptionsIndex(rel.getOptions()));
+		out.writeInt(0); //reserved
+		
+		this.relNames1.add(rel.getNameOfEntity1());
+		this.relNames2.add(rel.getNameOfEntity2());
+	}
+	
+	/**
+	 * Writes the store file from the sections, and deletes the temporary files.
+	 * If the file exists, it is overwritten. The ids are allocated in the same way as
+	 * {@code Model}, so the elements of the store have the same ids as the heap model.
+	 * 
+	 * @param options the global options of the model
+	 * @throws IOException if an I/O error occurs, or a section is too large
+	 * @throws IllegalStateException if the store has been finished or aborted
+	 */
+	public void finish(OptionMap options) throws IOException {
+		checkOpen();
+		this.closed = true;
+		
+		try {
+			final int modelOptionsIndex = getOptionsIndex(options);
+			for (Section section : getSections()) {
+				section.out.close();
+			}
+			
+			final String[] names = this.entityNames.toArray(new String[this.entityNames.size()]);
+			final int[] nameOrder = sortByName(names);
+			
+			final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+			try {
+				raf.setLength(0);
+				final FileChannel channel = raf.getChannel();
+				
+				//records
+				long position = ModelStore.HEADER_SIZE;
+				final long entityOffset = position;
+				position += transfer(this.entitySection, channel, position);
+				position += transfer(this.attrSection, channel, position);
+				final long relOffset = position;
+				position += transfer(this.relSection, channel, position);
+				
+				//name index, string table and option table
+				raf.seek(position);
+				final DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(raf.getFD())));
+				for (int index : nameOrder) {
+					out.writeInt(index);
+				}
+				out.flush();
+				position += (long)nameOrder.length * ModelStore.NAME_RECORD_SIZE;
+				position += transfer(this.stringIndexSection, channel, position);
+				position += transfer(this.stringDataSection, channel, position);
+				
+				final long optionTableOffset = position;
+				raf.seek(optionTableOffset);
+				ModelSnapshot.writeOptionTable(out, this.optionsList);
+				out.flush();
+				
+				patchEntities(channel, entityOffset, names);
+				patchRelationships(channel, relOffset, names, nameOrder);
+				
+				//header
+				raf.seek(0);
+				raf.writeInt(ModelStore.MAGIC);
+				raf.writeInt(ModelStore.FORMAT_VERSION);
+				raf.writeInt(names.length);
+				raf.writeInt(this.attrCount);
+				raf.writeInt(this.relNames1.size());
+				raf.writeInt(this.stringCount);
+				raf.writeInt(modelOptionsIndex);
+				raf.writeInt(0); //reserved
+				raf.writeLong(this.stringDataSection.size);
+				raf.writeLong(optionTableOffset);
+				
+			} finally {
+				raf.close();
+			}
+			
+		} finally {
+			for (Section section : getSections()) {
+				section.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Discards the store, and deletes the temporary files.
+	 * The store file isn't written. This method can be called after {@code finish()}.
+	 */
+	public void abort() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		
+		for (Section section : getSections()) {
+			try {
+				section.out.close();
+			} catch (IOException ex) {
+				//the file is deleted
+			}
+			section.delete();
+		}
+	}
+	
+	//check that the store can be written
+	private void checkOpen() {
+		if (this.closed) {
+			throw new IllegalStateException("the model store has been closed: " + this.file);
+		}
+	}
+	
+	//create a temporary section file in the directory of the store file
+	private Section createSection(List<Section> sections) throws IOException {
+		final File dir = this.file.getAbsoluteFile().getParentFile();
+		final File sectionFile = File.createTempFile("erwiz", ".tmp", dir);
+		try {
+			final Section section = new Section(sectionFile);
+			sections.add(section);
+			return section;
+		} catch (IOException ex) {
+			sectionFile.delete();
+			throw ex;
+		}
+	}
+	
+	//all sections
+	private Section[] getSections() {
+		return new Section[] {this.entitySection, this.attrSection, this.relSection,
+				this.stringIndexSection, this.stringDataSection};
+	}
+	
+	//set the id numbers and the dependencies of the entity records
+	private void patchEntities(FileChannel channel, long offset, String[] names) throws IOException {
+		final int[] ids = ElementIdAllocator.allocateEntityIds(names);
+		final ByteBuffer records = map(channel, offset, (long)names.length * ModelStore.ENTITY_RECORD_SIZE);
+		
+		final int dependent = getOrdinal(Dependency.DEPENDENT);
+		for (int i = 0; i < names.length; i++) {
+			final int base = i * ModelStore.ENTITY_RECORD_SIZE;
+			records.putInt(base, ids[i]);
+			if (this.dependentFlags.get(i)) {
+				records.putInt(base + 8, dependent);
+			}
+		}
+	}
+	
+	//set the id numbers and the indices of the entities of the relationship records
+	private void patchRelationships(FileChannel channel, long offset,
+			String[] names, int[] nameOrder) throws IOException {
+			
+		final String[] names1 = this.relNames1.toArray(new String[this.relNames1.size()]);
+		final String[] names2 = this.relNames2.toArray(new String[this.relNames2.size()]);
+		final int[] ids = ElementIdAllocator.allocateRelationshipIds(names1, names2);
+		final ByteBuffer records = map(channel, offset, (long)ids.length * ModelStore.REL_RECORD_SIZE);
+		
+		for (int i = 0; i < ids.length; i++) {
+			final int base = i * ModelStore.REL_RECORD_SIZE;
+			records.putInt(base, ids[i]);
+			records.putInt(base + 20, findEntity(names1[i], names, nameOrder));
+			records.putInt(base + 24, findEntity(names2[i], names, nameOrder));
+		}
+	}
+	
+	//write a string to the string table, and retrieve its index
+	private int getStringIndex(String s) throws IOException {
+		if (s == null) {
+			return ModelStore.NULL_INDEX;
+		}
+		
+		final Integer cached = this.stringCache.get(s);
+		if (cached != null) {
+			return cached;
+		}
+		
+		final byte[] bytes = s.getBytes(ModelStore.UTF_8);
+		if (this.stringDataSection.size + bytes.length > Integer.MAX_VALUE) {
+			throw new IOException("too large string table");
+		}
+		this.stringIndexSection.out.writeInt((int)this.stringDataSection.size);
+		this.stringIndexSection.out.writeInt(bytes.length);
+		this.stringDataSection.out.write(bytes);
+		this.stringDataSection.size += bytes.length;
+		
+		if (this.stringCache.size() >= STRING_CACHE_SIZE) {
+			this.stringCache.clear();
+		}
+		this.stringCache.put(s, this.stringCount);
+		return this.stringCount++;
+	}
+	
+	//add an option map to the option table, and retrieve its index
+	private int getOptionsIndex(OptionMap options) {
+		final Map<String, Object> map = options.getValueMap();
+		
+		Integer index = this.optionsTable.get(map);
+		if (index == null) {
+			index = this.optionsList.size();
+			this.optionsTable.put(map, index);
+			this.optionsList.add(map);
+		}
+		return index;
+	}
+	
+	//private utility method to copy a section to the store file
+	private static long transfer(Section section, FileChannel channel, long position) throws IOException {
+		final FileInputStream in = new FileInputStream(section.file);
+		try {
+			final FileChannel source = in.getChannel();
+			final long size = source.size();
+			long done = 0;
+			while (done < size) {
+				done += source.transferTo(done, size - done, channel.position(position + done));
+			}
+			return size;
+		} finally {
+			in.close();
+		}
+	}
+	
+	//private utility method to map a section of the store file to patch it
+	private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("too large model store section: " + size);
+		}
+		return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+	}
+	
+	//private utility method to sort the indices of the entities by their names
+	private static int[] sortByName(final String[] names) {
+		final Integer[] indices = new Integer[names.length];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+		}
+		
+		Arrays.sort(indices, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return names[i1].compareTo(names[i2]);
+			}
+		});
+		
+		final int[] result = new int[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			result[i] = indices[i];
+		}
+		return result;
+	}
+	
+	//private utility method to find an entity by the binary search on the sorted indices
+	private static int findEntity(String name, String[] names, int[] nameOrder) {
+		int low = 0;
+		int high = nameOrder.length - 1;
+		
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int c = names[nameOrder[mid]].compareTo(name);
+			if (c < 0) {
+				low = mid + 1;
+			} else if (c > 0) {
+				high = mid - 1;
+			} else {
+				return nameOrder[mid];
+			}
+		}
+		return ModelStore.NULL_INDEX;
+	}
+	
+	//private utility method to write an enum value
+	private static int getOrdinal(Enum<?> value) {
+		return (value != null) ? value.ordinal() : ModelStore.NULL_INDEX;
+	}
+	
+	//private class for a temporary section file
+	private static final class Section {
+		
+		final File file;
+		final DataOutputStream out;
+		long size = 0; //only for the string data
+		
+		Section(File file) throws IOException {
+			this.file = file;
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		}
+		
+		void delete() {
+			this.file.delete();
+		}
+	}
+	
+}
@@ -1,8 +1,17 @@
 package de.slopjong.erwiz.model;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * This class represents a option information contained by {@code OptionMap} class.
  * 
+ * Each option name has a slot number, which is the index of the value in {@code OptionMap}.
+ * The options which have the same name share the slot, even if they are defined
+ * by different {@code OptionInfoHolder} classes. The slots are registered only by
+ * the constructor, so the option names which aren't defined by holders have no slots.
+ * 
  * This class is immutable.
  * 
  * @author kono
@@ -11,6 +20,13 @@ package de.slopjong.erwiz.model;
  */
 public final class OptionInfo {
 	
+	//the slot numbers of all option names
+	private static final Map<String, Integer> SLOT_MAP = new ConcurrentHashMap<String, Integer>();
+	
+	//the option names indexed by slot numbers (replaced with a new array on registration, never modified)
+	private static volatile String[] slotNames = new String[0];
+	
+	private final int slot;
 	private final String name;
 	private final Class<?> valueType;
 	private final Object dflt;
@@ -23,11 +39,65 @@ public final class OptionInfo {
 	 * @param dflt a default value
 	 */
 	public OptionInfo(String name, Class<?> valueType, Object dflt) {
+		this.slot = registerSlot(name);
 		this.name = name;
 		this.valueType = valueType;
 		this.dflt = dflt;
 	}
 	
+	/**
+	 * Retrieves the slot number of the option name.
+	 * 
+	 * @return the slot number
+	 */
+	int getSlot() {
+		return this.slot;
+	}
+	
+	/**
+	 * Retrieves the count of slots which are registered.
+	 * 
+	 * @return the count of slots
+	 */
+	static int getSlotCount() {
+		return slotNames.length;
+	}
+	
+	/**
+	 * Retrieves the option name of the specified slot.
+	 * 
+	 * @param slot the slot number
+	 * @return the option name
+	 */
+	static String getSlotName(int slot) {
+		return slotNames[slot];
+	}
+	
+	/**
+	 * Retrieves the slot number of the specified option name.
+	 * 
+	 * @param name the option name
+	 * @return the slot number, or -1 if the name isn't registered
+	 */
+	static int findSlot(String name) {
+		final Integer slot = SLOT_MAP.get(name);
+		return (slot != null) ? slot : -1;
+	}
+	
+	//register the option name, and retrieve the slot number
+	//(the array of names is published after the map, so the slot of a name in the array is in the map.)
+	private static synchronized int registerSlot(String name) {
+		Integer slot = SLOT_MAP.get(name);
+		if (slot == null) {
+			final String[] names = Arrays.copyOf(slotNames, slotNames.length + 1);
+			slot = slotNames.length;
+			names[slot] = name;
+			SLOT_MAP.put(name, slot);
+			slotNames = names;
+		}
+		return slot;
+	}
+	
 	/**
 	 * Retrieves the name in order to register a value to {@code OptionValues} objects.
 	 * 
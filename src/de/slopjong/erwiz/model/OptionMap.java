@@ -1,11 +1,26 @@
 package de.slopjong.erwiz.model;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This class represents a map which maps option names to option values for a model element.
  * 
+ * The values are stored in arrays indexed by the slot numbers of option names
+ * (see {@code OptionInfo}), so the options which have the same name are the same option,
+ * even if they are defined by different {@code OptionInfoHolder} classes.
+ * The default values are shared by all maps which are created with the same option holders,
+ * and each map has only the values which are set to it. The values of a map which is
+ * created by {@code copy()} are shared until one of the maps is modified.
+ * 
+ * A model contains the frozen copies of the maps which are given to it (see {@code frozenCopy()}),
+ * so the maps of the caller can still be modified. The frozen map can't be modified, 
+ * and can be read by multiple threads. The copy of a frozen map is not frozen.
+ * 
  * @author kono
  * @see de.slopjong.erwiz.model.Model
  * @see de.slopjong.erwiz.model.Entity
@@ -16,12 +31,30 @@ import java.util.Map;
  */
 public final class OptionMap {
 	
-	private Map<String, Object> map = new HashMap<String, Object>();
+	//the value which means null in the values which are set
+	private static final Object NULL_VALUE = new Object();
+	
+	//the default values for each list of options
+	private static final ConcurrentMap<List<OptionInfo>, Object[]> DEFAULTS_CACHE = 
+		new ConcurrentHashMap<List<OptionInfo>, Object[]>();
+	
+	//the default values indexed by slot numbers (shared with other maps, never modified)
+	private final Object[] defaults;
+	
+	//the values which are set to this map, indexed by slot numbers (null until a value is set)
+	private Object[] values = null;
+	
+	//false if the values may be shared with other maps (copy on write)
+	private boolean ownValues = false;
+	
+	//true if this map can't be modified
+	private boolean frozen = false;
 	
 	/**
 	 * Creates an instance of this class.
 	 */
 	public OptionMap() {
+		this.defaults = null;
 	}
 	
 	/**
@@ -30,11 +63,15 @@ public final class OptionMap {
 	 * @param optionInfoHolders the option holders which are used to set default values.
 	 */
 	public OptionMap(OptionInfoHolder... optionInfoHolders) {
-		
-		for (OptionInfoHolder holder : optionInfoHolders) {
-			setDefaultValue(holder);
-		}
-		
+		this.defaults = getDefaults(optionInfoHolders);
+	}
+	
+	/**
+	 * Creates an instance of this class which shares the specified arrays.
+	 */
+	private OptionMap(Object[] defaults, Object[] values) {
+		this.defaults = defaults;
+		this.values = values;
 	}
 	
 	/**
@@ -43,6 +80,7 @@ public final class OptionMap {
 	 * @param holder the option information holder
 	 * @param value the option value
 	 * @throws IllegalArgumentException if type error occured
+	 * @throws UnsupportedOperationException if this map is frozen
 	 */
 	public void setBoolean(OptionInfoHolder holder, Boolean value) {
 		setValue(holder, value, Boolean.class);
@@ -65,6 +103,7 @@ public final class OptionMap {
 	 * @param holder the option information holder
 	 * @param value the option value
 	 * @throws IllegalArgumentException if type error occured
+	 * @throws UnsupportedOperationException if this map is frozen
 	 */
 	public void setInteger(OptionInfoHolder holder, Integer value) {
 		setValue(holder, value, Integer.class);
@@ -87,6 +126,7 @@ public final class OptionMap {
 	 * @param holder the option information holder
 	 * @param value the option value
 	 * @throws IllegalArgumentException if type error occured
+	 * @throws UnsupportedOperationException if this map is frozen
 	 */
 	public void setDouble(OptionInfoHolder holder, Double value) {
 		setValue(holder, value, Double.class);
@@ -109,6 +149,7 @@ public final class OptionMap {
 	 * @param holder the option information holder
 	 * @param value the option value
 	 * @throws IllegalArgumentException if type error occured
+	 * @throws UnsupportedOperationException if this map is frozen
 	 */
 	public void setString(OptionInfoHolder holder, String value) {
 		setValue(holder, value, String.class);
@@ -131,6 +172,7 @@ public final class OptionMap {
 	 * @param holder the option information holder
 	 * @param value the option value
 	 * @throws IllegalArgumentException if type error occured
+	 * @throws UnsupportedOperationException if this map is frozen
 	 */
 	public void setColorPair(OptionInfoHolder holder, ColorPair value) {
 		setValue(holder, value, ColorPair.class);
@@ -148,17 +190,169 @@ public final class OptionMap {
 	}
 	
 	/**
-	 * Registers a default value.
+	 * Freezes this map. After this call, the setter methods throw an exception.
+	 */
+	public void freeze() {
+		this.frozen = true;
+	}
+	
+	/**
+	 * Returns true if this map is frozen.
+	 * 
+	 * @return true if this map can't be modified, otherwise false
+	 */
+	public boolean isFrozen() {
+		return this.frozen;
+	}
+	
+	/**
+	 * Creates a copy of this map. The values are shared until one of the maps is modified.
+	 * The copy isn't frozen even if this map is frozen.
+	 * 
+	 * @return the copy of this map
+	 */
+	OptionMap copy() {
+		if (!this.frozen) {
+			this.ownValues = false; //the frozen map is never modified, and isn't written by readers
+		}
+		return new OptionMap(this.defaults, this.values);
+	}
+	
+	/**
+	 * Retrieves a frozen map which retrieves the same values as this map.
+	 * If this map isn't frozen, a frozen copy is returned and this map can still be modified.
+	 * The values are shared until this map is modified.
+	 * 
+	 * @return this map if this map is frozen, otherwise the frozen copy of this map
+	 */
+	OptionMap frozenCopy() {
+		if (this.frozen) {
+			return this;
+		}
+		final OptionMap copy = copy();
+		copy.freeze();
+		return copy;
+	}
+	
+	/**
+	 * Returns true if a value is set to this map.
+	 * 
+	 * @return true if a value is set to this map, otherwise false
+	 */
+	boolean hasValues() {
+		return this.values != null;
+	}
+	
+	/**
+	 * Returns true if this map and the specified map share the default values and the values
+	 * which are set, so the maps retrieve the same values. This method doesn't compare the values.
+	 * 
+	 * @param other an {@code OptionMap} object
+	 * @return true if this map and the specified map share the values, otherwise false
+	 */
+	boolean sharesValuesWith(OptionMap other) {
+		return this.defaults == other.defaults && this.values == other.values;
+	}
+	
+	/**
+	 * Retrieves the map which maps option names to option values.
+	 * This method is used to write a snapshot of a model.
+	 * 
+	 * @return the map of option values in the order of slot numbers
+	 */
+	Map<String, Object> getValueMap() {
+		final Map<String, Object> map = new LinkedHashMap<String, Object>();
+		
+		final int valuesLength = (this.values != null) ? this.values.length : 0;
+		final int defaultsLength = (this.defaults != null) ? this.defaults.length : 0;
+		
+		for (int slot = 0; slot < Math.max(valuesLength, defaultsLength); slot++) {
+			if (slot < valuesLength && this.values[slot] != null || 
+					slot < defaultsLength && this.defaults[slot] != null) {
+				map.put(OptionInfo.getSlotName(slot), lookup(slot));
+			}
+		}
+		
+		return map;
+	}
+	
+	/**
+	 * Creates a map whose default values are the specified values, and which has no values set.
+	 * This method is used to read a snapshot of a model. The maps which share the default values
+	 * retrieve the same values, like the maps which are created with the same option holders.
+	 * 
+	 * @param defaults the default values indexed by slot numbers (not copied, never modified)
+	 * @return a map which has no values set
+	 */
+	static OptionMap withDefaults(Object[] defaults) {
+		return new OptionMap(defaults, null);
+	}
+	
+	/**
+	 * Retrieves the shared default values for the specified option holders.
 	 * This is a private common method.
 	 */
-	private void setDefaultValue(OptionInfoHolder holder) {
+	private static Object[] getDefaults(OptionInfoHolder[] holders) {
 		
-		final OptionInfo info = holder.getOptionInfo();
+		final OptionInfo[] infos = new OptionInfo[holders.length];
+		for (int i = 0; i < holders.length; i++) {
+			infos[i] = holders[i].getOptionInfo();
+		}
+		
+		final List<OptionInfo> key = Arrays.asList(infos);
+		Object[] defaults = DEFAULTS_CACHE.get(key);
+		
+		if (defaults == null) {
+			defaults = new Object[OptionInfo.getSlotCount()];
+			for (OptionInfo info : infos) {
+				if (defaults[info.getSlot()] == null) {
+					defaults[info.getSlot()] = info.getDefaultValue();
+				}
+			}
+			
+			final Object[] registered = DEFAULTS_CACHE.putIfAbsent(key, defaults);
+			if (registered != null) {
+				defaults = registered;
+			}
+		}
+		
+		return defaults;
+	}
+	
+	/**
+	 * Retrieves the value of the specified slot.
+	 * This is a private common method.
+	 */
+	private Object lookup(int slot) {
+		if (this.values != null && slot < this.values.length && this.values[slot] != null) {
+			final Object value = this.values[slot];
+			return (value != NULL_VALUE) ? value : null;
+		}
+		
+		if (this.defaults != null && slot < this.defaults.length) {
+			return this.defaults[slot];
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Sets the value of the specified slot. The values are copied if they may be shared.
+	 * This is a private common method.
+	 */
+	private void store(int slot, Object value) {
+		if (this.frozen) {
+			throw new UnsupportedOperationException("the option map is frozen");
+		}
 		
-		if (!this.map.containsKey(info.getName()) || this.map.get(info.getName()) == null) {
-				this.map.put(info.getName(), info.getDefaultValue());
+		if (this.values == null) {
+			this.values = new Object[Math.max(slot + 1, OptionInfo.getSlotCount())];
+		} else if (!this.ownValues || slot >= this.values.length) {
+			this.values = Arrays.copyOf(this.values, Math.max(slot + 1, this.values.length));
 		}
+		this.ownValues = true;
 		
+		this.values[slot] = (value != null) ? value : NULL_VALUE;
 	}
 	
 	/**
@@ -179,7 +373,7 @@ public final class OptionMap {
 			throw new IllegalArgumentException(message);
 		}
 		
-		this.map.put(info.getName(), value);
+		store(info.getSlot(), value);
 	}
 	
 	/**
@@ -195,7 +389,7 @@ public final class OptionMap {
 			throw new IllegalArgumentException(message);
 		}
 		
-		Object value = this.map.get(info.getName());
+		Object value = lookup(info.getSlot());
 		
 		if (value != null && info.getValueType() != value.getClass()) {
 			final String message = valueTypeErrorMsg(info, value);
@@ -237,9 +431,8 @@ public final class OptionMap {
 		sb.append("[").append(this.getClass().getName()).append("]\n");
 		
 		sb.append(indent);
-		for (String key : this.map.keySet()) {
-			Object value = this.map.get(key);
-			sb.append(key.toLowerCase()).append("=").append(value).append(", ");
+		for (Map.Entry<String, Object> entry : getValueMap().entrySet()) {
+			sb.append(entry.getKey().toLowerCase()).append("=").append(entry.getValue()).append(", ");
 		}
 		
 		return sb.toString().replace(", $", "");
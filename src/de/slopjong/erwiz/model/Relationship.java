@@ -5,6 +5,10 @@ package de.slopjong.erwiz.model;
  * 
  * This class is immutable. All input arguments is given at the object construction.
  * 
+ * The id number is assigned by the model which contains this relationship (see {@code Model}).
+ * It is derived from the names of both entities and the ordinal among the relationships
+ * between them.
+ * 
  * @author kono
  * @version 1.0
  * @see de.slopjong.erwiz.model.Model
@@ -15,8 +19,7 @@ package de.slopjong.erwiz.model;
  */
 public final class Relationship {
 	
-	private static int objectCount = 0;
-	
+	private final int idNum;
 	private final String id;
 	private final String nameOfEntity1;
 	private Dependency dependencyOfEntity1;
@@ -43,7 +46,28 @@ public final class Relationship {
 			String nameOfEntity2, Dependency dependencyOfEntity2,
 			CardinalityWithOptionality cwo, VerbPhrase verbPhrase, OptionMap options) {
 		
-		this.id = "relationship_" + (++objectCount);
+		this(0, nameOfEntity1, dependencyOfEntity1, nameOfEntity2, dependencyOfEntity2, 
+				cwo, verbPhrase, options);
+	}
+	
+	/**
+	 * Constructs an instance of this class with the specified id number.
+	 * 
+	 * @param idNum id number (zero means not assigned)
+	 * @param nameOfEntity1 the name of the first entity of this relathinship
+	 * @param dependencyOfEntity1 the dependency of the first entity on this relationship
+	 * @param nameOfEntity2 name of the second entity of this relathinship
+	 * @param dependencyOfEntity2 the dependency of the second entity on this relationship
+	 * @param cwo the {@code CardinalityWithOptionality} object
+	 * @param verbPhrase the {@code getVerbPhrase} object
+	 * @param options the {@code OptionMap} object
+	 */
+	Relationship(int idNum, String nameOfEntity1, Dependency dependencyOfEntity1,
+			String nameOfEntity2, Dependency dependencyOfEntity2,
+			CardinalityWithOptionality cwo, VerbPhrase verbPhrase, OptionMap options) {
+		
+		this.idNum = idNum;
+		this.id = ElementIdAllocator.toId("relationship_", this.idNum);
 		this.nameOfEntity1 = nameOfEntity1;
 		this.dependencyOfEntity1 = dependencyOfEntity1;
 		this.nameOfEntity2 = nameOfEntity2;
@@ -160,6 +184,44 @@ public final class Relationship {
 		return this.id;
 	}
 	
+	/**
+	 * Retrieves the id number of this relationship object.
+	 * 
+	 * @return the id number which is the suffix of the id (in hexadecimal)
+	 */
+	int getIdNumber() {
+		return this.idNum;
+	}
+	
+	/**
+	 * Retrieves the relationship which has the specified id number.
+	 * The all member values except for the id, aren't changed.
+	 * 
+	 * @param idNum id number
+	 * @return this relationship if the id number is the same, otherwise the copy of this relationship
+	 */
+	Relationship withIdNumber(int idNum) {
+		if (this.idNum == idNum) {
+			return this;
+		}
+		return new Relationship(idNum, this.nameOfEntity1, this.dependencyOfEntity1, 
+				this.nameOfEntity2, this.dependencyOfEntity2, this.cwo, this.verbPhrase, this.options);
+	}
+	
+	/**
+	 * Retrieves the relationship whose option map is frozen.
+	 * If the option map isn't frozen, it is replaced with the frozen copy.
+	 * 
+	 * @return this relationship if the option map is frozen, otherwise the copy of this relationship
+	 */
+	Relationship withFrozenOptions() {
+		if (this.options == null || this.options.isFrozen()) {
+			return this;
+		}
+		return new Relationship(this.idNum, this.nameOfEntity1, this.dependencyOfEntity1, 
+				this.nameOfEntity2, this.dependencyOfEntity2, this.cwo, this.verbPhrase, this.options.frozenCopy());
+	}
+	
 	/**
 	 * Retrieves the name of the first entity of this relationship.
 	 * 
@@ -13,8 +13,11 @@ package de.slopjong.erwiz.model;
  */
 public class VerbPhrase {
 	
-	private String text;
-	private VerbDirection direction;
+	/** The empty verb phrase which is shared by the relationships without verb phrases. */
+	public static final VerbPhrase EMPTY = new VerbPhrase("", VerbDirection.NONE);
+	
+	private final String text;
+	private final VerbDirection direction;
 	
 	/**
 	 * Constructs an instance of this class.
@@ -45,6 +48,37 @@ public class VerbPhrase {
 		return direction;
 	}
 	
+	/**
+	 * Returns true if this verb phrase has no text and no direction.
+	 * 
+	 * @return true if this verb phrase is empty
+	 */
+	public boolean isEmpty() {
+		return this == EMPTY || "".equals(this.text) && this.direction == VerbDirection.NONE;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true; //shared instances
+		}
+		if (!(obj instanceof VerbPhrase)) {
+			return false;
+		}
+		
+		final VerbPhrase other = (VerbPhrase)obj;
+		return (this.text != null ? this.text.equals(other.text) : other.text == null) && 
+				this.direction == other.direction;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hash = 17;
+		hash = hash * 31 + ((this.text != null) ? this.text.hashCode() : 0);
+		hash = hash * 31 + ((this.direction != null) ? this.direction.hashCode() : 0);
+		return hash;
+	}
+	
 	/**
 	 * Returns a string representation of this object.
 	 * 
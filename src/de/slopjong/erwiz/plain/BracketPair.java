@@ -50,6 +50,24 @@ enum BracketPair {
 		return this.brackets[1];
 	}
 	
+	/**
+	 * Gets the left bracket character of the pair.
+	 * 
+	 * @return the left bracket character of the pair.
+	 */
+	char getLeftChar() {
+		return this.brackets[0].charAt(0);
+	}
+	
+	/**
+	 * Gets the right bracket character of the pair.
+	 * 
+	 * @return the right bracket character of the pair.
+	 */
+	char getRightChar() {
+		return this.brackets[1].charAt(0);
+	}
+	
 	/**
 	 * Gets the the  brackets array object.
 	 * the first element is the left character and the second character 
@@ -77,4 +95,26 @@ enum BracketPair {
 		return null;	
 	}
 	
+	/**
+	 * Finds {@code BracketPair} object which is corresponding to
+	 * the specified left bracket character.
+	 * 
+	 * @param left the left bracket character
+	 * @return the found {@code BracketPair} object, null if not found.
+	 */
+	static BracketPair findByLeftBracket(char left) {
+		switch (left) {
+			case '[':
+				return SQUARE;
+			case '(':
+				return ROUND;
+			case '<':
+				return ANGLE;
+			case '{':
+				return CURLY;
+			default:
+				return null;
+		}
+	}
+	
 }
@@ -126,7 +126,7 @@ class CardinalityParser {
 			throw createException(Message.ERR_ONE_CARDINALITY_SYMBOLS, text);
 		}
 		
-		this.cwo = new CardinalityWithOptionality(ce1, oe1, ce2, oe2);
+		this.cwo = CardinalityWithOptionality.valueOf(ce1, oe1, ce2, oe2);
 	}
 	
 	//private utility method
@@ -6,15 +6,9 @@ import de.slopjong.erwiz.model.OptionMap;
 import de.slopjong.erwiz.plain.LineData;
 
 
-import static de.slopjong.erwiz.plain.BracketPair.ANGLE;
 import static de.slopjong.erwiz.plain.BracketPair.CURLY;
-import static de.slopjong.erwiz.plain.BracketPair.ROUND;
-import static de.slopjong.erwiz.plain.BracketPair.SQUARE;
 import static de.slopjong.erwiz.plain.PackageUtils.isEnclosedByAnyBrackets;
-import static de.slopjong.erwiz.plain.PackageUtils.removeComment;
 import static de.slopjong.erwiz.plain.PackageUtils.removeEnclosingBrackets;
-import static de.slopjong.erwiz.plain.PackageUtils.split;
-import static de.slopjong.erwiz.plain.PackageUtils.startsWithAnyLeftBracket;
 
 
 /**
@@ -70,9 +64,6 @@ import static de.slopjong.erwiz.plain.PackageUtils.startsWithAnyLeftBracket;
  */
 final class EntityAttrLineParser {
 	
-	//input
-	private String text;
-	
 	//output
 	private String attrName = "";
 	private boolean isPrimaryKey;
@@ -101,7 +92,6 @@ final class EntityAttrLineParser {
 		if (line == null) {
 			throw new NullPointerException();
 		}
-		this.text = removeComment(line.getLineText().trim());
 		this.line = line;
 	}
 	
@@ -211,36 +201,22 @@ final class EntityAttrLineParser {
 			this.partSplited = true;
 		}
 		
-		List<String> list = split(this.text, SQUARE, ROUND, ANGLE, CURLY);
+		final LineLexer lexer = this.line.getLexer();
+		final List<LineToken> list = lexer.getTokens();
 		
 		//find option part
 		int optionIndex = list.size(); //greater than any index value
 		for (int i = 0; i < list.size(); i++) {
-			if (startsWithAnyLeftBracket(list.get(i), CURLY)) { //check left bracket only
+			if (list.get(i).startsWithAnyLeftBracket(CURLY)) { //check left bracket only
 				optionIndex = i;
 				break;
 			}
 		}
 		
-		//split into parts
-		for (int i = 0; i < list.size(); i++) {
-			final String field = list.get(i);
-			
-			if (i < optionIndex) {
-				this.attrNamePart += field;
-			} else if (i == optionIndex) {
-				this.optionListPart += field;
-			} else {
-				this.gap3 += field;
-			}
-		}
-		
-		//neglect spaces
-		this.gap1 = this.gap1.trim();
-		this.attrNamePart = this.attrNamePart.trim();
-		this.gap2 = this.gap2.trim();
-		this.optionListPart = this.optionListPart.trim();
-		this.gap3 = this.gap3.trim();
+		//split into parts (spaces are neglected)
+		this.attrNamePart = lexer.getText(0, optionIndex);
+		this.optionListPart = lexer.getText(optionIndex, optionIndex + 1);
+		this.gap3 = lexer.getText(optionIndex + 1, list.size());
 		
 	}
 	
@@ -7,15 +7,11 @@ import de.slopjong.erwiz.model.OptionMap;
 import de.slopjong.erwiz.plain.LineData;
 
 
-import static de.slopjong.erwiz.plain.BracketPair.ANGLE;
 import static de.slopjong.erwiz.plain.BracketPair.CURLY;
 import static de.slopjong.erwiz.plain.BracketPair.ROUND;
 import static de.slopjong.erwiz.plain.BracketPair.SQUARE;
 import static de.slopjong.erwiz.plain.PackageUtils.isEnclosedByAnyBrackets;
-import static de.slopjong.erwiz.plain.PackageUtils.removeComment;
 import static de.slopjong.erwiz.plain.PackageUtils.removeEnclosingBrackets;
-import static de.slopjong.erwiz.plain.PackageUtils.split;
-import static de.slopjong.erwiz.plain.PackageUtils.startsWithAnyLeftBracket;
 
 /**
  * This class represents a text parser which is used for an entity name line.
@@ -71,9 +67,6 @@ import static de.slopjong.erwiz.plain.PackageUtils.startsWithAnyLeftBracket;
  */
 final class EntityNameLineParser {
 	
-	//input
-	private String text;
-	
 	//output
 	private String entityName = "";
 	private Dependency dependency = Dependency.NONE;
@@ -101,7 +94,6 @@ final class EntityNameLineParser {
 		if (line == null) {
 			throw new NullPointerException();
 		}
-		this.text = removeComment(line.getLineText().trim());
 		this.line = line;
 	}
 	
@@ -203,12 +195,13 @@ final class EntityNameLineParser {
 			this.partSplited = true;
 		}
 		
-		List<String> list = split(this.text, SQUARE, ROUND, ANGLE, CURLY);
+		final LineLexer lexer = this.line.getLexer();
+		final List<LineToken> list = lexer.getTokens();
 		
 		//find entity part
 		int entityIndex = list.size(); //greater than any index value
 		for (int i = 0; i < list.size(); i++) {
-			if (startsWithAnyLeftBracket(list.get(i), SQUARE, ROUND)) { //check left bracket only
+			if (list.get(i).startsWithAnyLeftBracket(SQUARE, ROUND)) { //check left bracket only
 				entityIndex = i;
 				break;
 			}
@@ -217,37 +210,23 @@ final class EntityNameLineParser {
 		//find option part
 		int optionIndex = entityIndex; //greater than any index value
 		for (int i = entityIndex + 1; i < list.size(); i++) {
-			if (startsWithAnyLeftBracket(list.get(i), CURLY)) { //check left bracket only
+			if (list.get(i).startsWithAnyLeftBracket(CURLY)) { //check left bracket only
 				optionIndex = i;
 				break;
 			}
 		}
 		
-		//split into parts
-		for (int i = 0; i < list.size(); i++) {
-			final String field = list.get(i);
-			
-			if (i < entityIndex) {
-				this.gap1 += field;
-			} else if (i == entityIndex) {
-				this.entityNamePart += field;
-			} else if (i < optionIndex) {
-				this.gap2 += field;
-			} else if (i == optionIndex) {
-				this.optionListPart += field;
-			} else {
-				this.gap3 += field;
-			}
-			
+		//split into parts (spaces are neglected)
+		this.gap1 = lexer.getText(0, entityIndex);
+		this.entityNamePart = lexer.getText(entityIndex, entityIndex + 1);
+		if (optionIndex > entityIndex) {
+			this.gap2 = lexer.getText(entityIndex + 1, optionIndex);
+			this.optionListPart = lexer.getText(optionIndex, optionIndex + 1);
+			this.gap3 = lexer.getText(optionIndex + 1, list.size());
+		} else {
+			this.gap3 = lexer.getText(entityIndex + 1, list.size());
 		}
 		
-		//neglect spaces
-		this.gap1 = this.gap1.trim();
-		this.entityNamePart = this.entityNamePart.trim();
-		this.gap2 = this.gap2.trim();
-		this.optionListPart = this.optionListPart.trim();
-		this.gap3 = this.gap3.trim();
-		
 	}
 	
 	private void parseAllParts() throws ParserException {
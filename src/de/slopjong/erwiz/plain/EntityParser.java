@@ -8,6 +8,7 @@ import java.util.Map;
 
 import de.slopjong.erwiz.model.Entity;
 import de.slopjong.erwiz.model.EntityAttribute;
+import de.slopjong.erwiz.model.ModelInternPool;
 import de.slopjong.erwiz.plain.LineData;
 
 
@@ -45,11 +46,14 @@ final class EntityParser {
 	
 	//input
 	private final List<LineData> lines = new ArrayList<LineData>();
+	private final ModelInternPool pool;
 	
 	//output
 	private Entity entity;
 	private LineData nameLine;
 	private List<LineData> attrLineList;
+	private EntityNameLineParser nameLineParser;
+	private List<EntityAttribute> attrList;
 	
 	/**
 	 * Constructs an object of this class.
@@ -58,11 +62,23 @@ final class EntityParser {
 	 * @throws NullPointerException if a null argument is specified
 	 */
 	EntityParser(List<LineData> lines) {
-		if (lines == null) {
+		this(lines, new ModelInternPool());
+	}
+	
+	/**
+	 * Constructs an object of this class which shares the values with other parsers.
+	 * 
+	 * @param lines the lines which will be parsed in {@code parse()} method
+	 * @param pool the pool of the values of the model
+	 * @throws NullPointerException if a null argument is specified
+	 */
+	EntityParser(List<LineData> lines, ModelInternPool pool) {
+		if (lines == null || pool == null) {
 			throw new NullPointerException();
 		}
 		//copy all elements
 		this.lines.addAll(lines);	
+		this.pool = pool;
 	}
 	
 	/**
@@ -79,9 +95,17 @@ final class EntityParser {
 	 * Returns the {@code Entity} object corresponding to the specified lines.
 	 * This method should be called after calling {@code parse()} method.
 	 * 
+	 * The object is created at the first call of this method, so the ids of entities 
+	 * are numbered in the order of the calls even if the parsers run in parallel.
+	 * 
 	 * @return the {@code Entity} object
 	 */
 	Entity getEntity() {
+		if (this.entity == null && this.nameLineParser != null) {
+			final EntityNameLineParser parser = this.nameLineParser;
+			this.entity = new Entity(this.pool.intern(parser.getEntityName()), parser.getDependency(), 
+					this.attrList, parser.getOptionMap());
+		}
 		return this.entity;
 	}
 	
@@ -137,7 +161,7 @@ final class EntityParser {
 			EntityAttrLineParser parser = new EntityAttrLineParser(attrLine);
 			parser.parse();
 			
-			EntityAttribute attr = new EntityAttribute(parser.getAttrName(), 
+			EntityAttribute attr = new EntityAttribute(this.pool.intern(parser.getAttrName()), 
 					parser.isPrimaryKey(), parser.isForeignKey(), parser.getOptions());
 			
 			checkDupulication(attr, map, attrLine);
@@ -149,8 +173,8 @@ final class EntityParser {
 		{
 			EntityNameLineParser parser = new EntityNameLineParser(this.nameLine);
 			parser.parse();
-			this.entity = new Entity(parser.getEntityName(), parser.getDependency(), 
-					attrList, parser.getOptionMap());
+			this.nameLineParser = parser;
+			this.attrList = attrList;
 		}
 		
 	}
@@ -0,0 +1,847 @@
+package de.slopjong.erwiz.plain;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.slopjong.erwiz.model.Dependency;
+import de.slopjong.erwiz.model.Entity;
+import de.slopjong.erwiz.model.Model;
+import de.slopjong.erwiz.model.ModelInternPool;
+import de.slopjong.erwiz.model.OptionMap;
+import de.slopjong.erwiz.model.Relationship;
+import de.slopjong.erwiz.model.RelationshipType;
+import de.slopjong.erwiz.plain.LineData;
+
+
+import static de.slopjong.erwiz.plain.BracketPair.CURLY;
+import static de.slopjong.erwiz.plain.PackageUtils.removeEnclosingBrackets;
+
+
+/**
+ * This class is the text parser for entity-relationship model text which is edited repeatedly,
+ * for example in an editor.
+ * 
+ * Usage:
+ * 
+ * <ol>
+ *   <li>Creates an object of this class with the target text.
+ *   <li>Parse it by calling {@code parse()}.
+ *   <li>Retrieve the result of parsing by calling {@code getModel()}.
+ *   <li>When the text is edited, call {@code replaceLines()} with the edit,
+ *       and retrieve the updated result by calling {@code getModel()}.
+ * </ol>
+ * 
+ * The parsed entity blocks and relationship lines are kept in this object.
+ * On an edit, only the blocks which contain the edited lines, and the blocks whose lines
+ * may be grouped in another way after the edit, are parsed again. The blocks after them
+ * are reused. The results of the checks across blocks (the errors of the blocks,
+ * the duplication of entity names, the undefined entities in relationships and
+ * the dependency of entities) are kept in an index, which is updated only for
+ * the removed and the added blocks, so the cost of an edit depends on the size of the edit,
+ * not on the size of the text.
+ * 
+ * The model is created when {@code getModel()} is called. The elements of the unchanged blocks
+ * are reused with their ids, so only the lists of the model are built for all elements.
+ * If an edit makes the text invalid before the model of the valid text is created,
+ * the model is assembled from the blocks before the edit.
+ * 
+ * The errors are the same as {@code ModelParser} reports for the current text.
+ * The model is also the same, including the ids of entities and relationships,
+ * because the ids are derived from the contents when the model is created.
+ * If errors are found, {@code getModel()} returns the model of the last successful parsing.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.plain.ModelParser
+ * @see de.slopjong.erwiz.plain.ModelAssembler
+ */
+public final class IncrementalModelParser {
+	
+	//input
+	private final List<CharSequence> lines = new ArrayList<CharSequence>();
+	
+	//output
+	private Model model  = new Model();
+	private List<Exception> exceptionList = new ArrayList<Exception>();
+	
+	//the blocks in the order of their first lines
+	private final List<Block> blocks = new ArrayList<Block>();
+	
+	//the results of the checks across the blocks
+	private final BlockIndex index = new BlockIndex();
+	
+	//true if the blocks are valid, and the model hasn't been created from them
+	private boolean modelPending = false;
+	
+	//the entities which have been added to the model for the undefined entity names
+	private Map<String, Entity> undefinedEntityMap = new HashMap<String, Entity>();
+	
+	//the values shared by the elements over the edits
+	private final ModelInternPool pool = new ModelInternPool();
+	
+	//for internal control
+	private boolean parsed = false;
+	
+	/**
+	 * Constructs an object of this class.
+	 * 
+	 * @param lines the lines which will be parsed in {@code parse()} method
+	 * @throws NullPointerException if a null argument is specified
+	 * @throws IllegalStateException if the messages can't be loaded
+	 */
+	public IncrementalModelParser(List<? extends CharSequence> lines) {
+		if (lines == null) {
+			throw new NullPointerException();
+		}
+		//initialize messages (the error can be caught, and the next call tries again)
+		Message.initialize();
+		//copy all elements
+		this.lines.addAll(lines);
+	}
+	
+	/**
+	 * Parses all lines which is specified at construction.
+	 * The result of parsing will be saved in the object.
+	 * 
+	 * @return the list of exceptions which has occured, or an empty list.
+	 */
+	public List<Exception> parse() {
+		//keep the model of the current blocks before they are discarded
+		getModel();
+		
+		this.blocks.clear();
+		this.index.clear();
+		scanBlocks(this.lines, 0, this.lines.size(), this.blocks);
+		for (Block block : this.blocks) {
+			this.index.add(block);
+		}
+		this.parsed = true;
+		
+		this.exceptionList = this.index.getExceptions();
+		this.modelPending = this.exceptionList.isEmpty();
+		return this.exceptionList;
+	}
+	
+	/**
+	 * Replaces the specified range of lines with the specified lines, and parses
+	 * the affected lines again. The result of parsing will be saved in the object.
+	 * 
+	 * The range is specified by indices, which are 0-based like {@code List#subList()}.
+	 * For example, {@code replaceLines(4, 5, lines)} replaces the line whose line number is 5.
+	 * An insertion is {@code fromIndex == toIndex}, and a deletion is an empty list.
+	 * If an exception is thrown while the lines are parsed, this object isn't changed.
+	 * 
+	 * @param fromIndex the index of the first replaced line (inclusive)
+	 * @param toIndex the index of the last replaced line (exclusive)
+	 * @param newLines the lines which are inserted
+	 * @return the list of exceptions which has occured, or an empty list.
+	 * @throws NullPointerException if a null argument is specified
+	 * @throws IndexOutOfBoundsException if the range is out of the lines
+	 * @throws IllegalStateException if {@code parse()} has not been called
+	 */
+	public List<Exception> replaceLines(int fromIndex, int toIndex, List<? extends CharSequence> newLines) {
+		if (newLines == null) {
+			throw new NullPointerException();
+		}
+		if (fromIndex < 0 || toIndex > this.lines.size() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException(
+					"fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + this.lines.size());
+		}
+		if (!this.parsed) {
+			throw new IllegalStateException("parse() has not been called");
+		}
+		
+		final int delta = newLines.size() - (toIndex - fromIndex);
+		
+		//the lines before the edit may be grouped with the edited lines,
+		//so scanning starts at the last entity name line or relationship line before the edit.
+		final int startIndex = findScanStart(fromIndex);
+		
+		//scan the edited lines and the following lines until the groups are the same as before.
+		//the lines after the edit are scanned through a view, and this object is changed
+		//only after scanning, so an error of scanning doesn't leave the lines and the blocks apart.
+		final List<Block> newBlocks = new ArrayList<Block>();
+		final List<CharSequence> editedLines = new EditedLines(this.lines, fromIndex, toIndex, newLines);
+		final int endIndex = scanBlocks(editedLines, startIndex, fromIndex + newLines.size(), newBlocks);
+		final int oldEndIndex = endIndex - delta;
+		
+		//edit
+		this.lines.subList(fromIndex, toIndex).clear();
+		this.lines.addAll(fromIndex, newLines);
+		
+		//replace the affected blocks, and shift the following blocks
+		int first = this.blocks.size();
+		int last = this.blocks.size();
+		for (int i = 0; i < this.blocks.size(); i++) {
+			final int index = this.blocks.get(i).getFirstIndex();
+			if (index >= startIndex && first == this.blocks.size()) {
+				first = i;
+			}
+			if (index >= oldEndIndex) {
+				last = i;
+				break;
+			}
+		}
+		if (delta != 0) {
+			for (Block block : this.blocks.subList(last, this.blocks.size())) {
+				block.shift(delta);
+			}
+		}
+		final List<Block> removedBlocks = new ArrayList<Block>(this.blocks.subList(first, last));
+		this.blocks.subList(first, last).clear();
+		this.blocks.addAll(first, newBlocks);
+		
+		//check only the changed blocks
+		for (Block block : removedBlocks) {
+			this.index.remove(block);
+		}
+		for (Block block : newBlocks) {
+			this.index.add(block);
+		}
+		this.exceptionList = this.index.getExceptions();
+		
+		if (this.exceptionList.isEmpty()) {
+			this.modelPending = true;
+		} else if (this.modelPending) {
+			//the text was valid until this edit, so the model is created from the blocks before the edit
+			final List<Block> oldBlocks = new ArrayList<Block>(
+					this.blocks.size() - newBlocks.size() + removedBlocks.size());
+			oldBlocks.addAll(this.blocks.subList(0, first));
+			oldBlocks.addAll(removedBlocks);
+			oldBlocks.addAll(this.blocks.subList(first + newBlocks.size(), this.blocks.size()));
+			this.model = assembleModel(oldBlocks);
+			this.modelPending = false;
+		}
+		return this.exceptionList;
+	}
+	
+	/**
+	 * Get a {@code Model} object which is created by the last successful parsing.
+	 * 
+	 * @return a {@code Model} object
+	 */
+	public Model getModel() {
+		if (this.modelPending) {
+			this.model = createModel();
+			this.modelPending = false;
+		}
+		return this.model;
+	}
+	
+	//find the index where scanning starts for an edit at the specified index
+	private int findScanStart(int fromIndex) {
+		for (int i = this.blocks.size() - 1; i >= 0; i--) {
+			final Block block = this.blocks.get(i);
+			final int index = block.getFirstIndex();
+			if (index < fromIndex &&
+					(block.lineType == LineType.ENTITY_NAME || block.lineType == LineType.RELATIONSHIP)) {
+				return index;
+			}
+		}
+		//no entity block is open before the edit
+		return fromIndex;
+	}
+	
+	//scan the lines from the specified index, and add the blocks to the list.
+	//no entity block is open at the start index. scanning continues at least
+	//until the minimum end index, and stops at the next entity name line or
+	//relationship line, because any entity block is closed there.
+	//this method returns the index where scanning stopped.
+	private int scanBlocks(List<CharSequence> lines, int startIndex, int minEndIndex, List<Block> result) {
+		
+		Block entityBlock = null; //the current entity
+		
+		for (int i = startIndex; i < lines.size(); i++) {
+			final LineData line = new LineData(i + 1, lines.get(i)); //the first line number is 1.
+			final LineType lineType = judgeLineType(line);
+			
+			switch (lineType) {
+				case UNKNOWN: {
+					result.add(createBlock(lineType, line));
+					break;
+				}
+				case BLANK: {
+					break;
+				}
+				case GLOBAL_OPTIONS: {
+					result.add(createBlock(lineType, line));
+					break;
+				}
+				case ENTITY_ATTRIBUTE: {
+					if (entityBlock == null) {
+						result.add(createBlock(lineType, line)); //attribute before the entity name
+					} else {
+						entityBlock.lines.add(line);
+					}
+					break;
+				}
+				case ENTITY_NAME:
+				case RELATIONSHIP: {
+					//end of entity lines
+					if (entityBlock != null) {
+						entityBlock.parse();
+						entityBlock = null;
+					}
+					
+					//the groups are the same as before from here
+					if (i >= minEndIndex) {
+						return i;
+					}
+					
+					if (lineType == LineType.ENTITY_NAME) {
+						entityBlock = new Block(lineType, line, this.pool); //parsed at the end of entity lines
+						result.add(entityBlock);
+					} else {
+						result.add(createBlock(lineType, line));
+					}
+					break;
+				}
+			}
+		}
+		
+		//end of entity lines
+		if (entityBlock != null) {
+			entityBlock.parse();
+		}
+		
+		return lines.size();
+	}
+	
+	//create and parse a block which has only one line
+	private Block createBlock(LineType lineType, LineData line) {
+		final Block block = new Block(lineType, line, this.pool);
+		block.parse();
+		return block;
+	}
+	
+	//create the model from the current blocks which have no errors, with the results of the index
+	private Model createModel() {
+		
+		final List<Block> entityBlocks = new ArrayList<Block>();
+		final List<Block> relBlocks = new ArrayList<Block>();
+		final List<OptionListParser> optionsParserList = new ArrayList<OptionListParser>();
+		for (Block block : this.blocks) {
+			switch (block.lineType) {
+				case GLOBAL_OPTIONS: {
+					optionsParserList.add(block.optionsParser);
+					break;
+				}
+				case ENTITY_NAME: {
+					entityBlocks.add(block);
+					break;
+				}
+				case RELATIONSHIP: {
+					relBlocks.add(block);
+					break;
+				}
+				default: {
+					assert false : "unexpected block: " + block.lineType;
+				}
+			}
+		}
+		
+		//the entities of the blocks, and the undefined entities in the order of their first references
+		final List<Entity> entityList = new ArrayList<Entity>(entityBlocks.size());
+		for (Block block : entityBlocks) {
+			final String name = block.entityParser.getEntity().getName();
+			entityList.add(block.getModelEntity(this.index.isDependent(name)));
+		}
+		final List<String> undefinedNames = this.index.getUndefinedNames();
+		for (String name : undefinedNames) {
+			final boolean dependent = this.index.isDependent(name);
+			Entity entity = this.undefinedEntityMap.get(name);
+			if (entity == null || (entity.getDependency() == Dependency.DEPENDENT) != dependent) {
+				entity = ModelAssembler.createUndefinedEntity(name);
+				if (dependent) {
+					entity = entity.getDependentEntity();
+				}
+			}
+			entityList.add(entity);
+		}
+		
+		final List<Relationship> relList = new ArrayList<Relationship>(relBlocks.size());
+		for (Block block : relBlocks) {
+			relList.add(block.getModelRelationship());
+		}
+		
+		final OptionMap options;
+		try {
+			options = ModelAssembler.createGlobalOptions(optionsParserList);
+		} catch (ParserException ex) {
+			throw new IllegalStateException("the options have been checked", ex);
+		}
+		
+		final Model newModel = new Model(entityList, relList, options);
+		
+		//keep the elements with their ids for the next model
+		for (int i = 0; i < entityBlocks.size(); i++) {
+			entityBlocks.get(i).modelEntity = newModel.getEntity(i);
+		}
+		final Map<String, Entity> newUndefinedEntityMap = new HashMap<String, Entity>();
+		for (int i = 0; i < undefinedNames.size(); i++) {
+			newUndefinedEntityMap.put(undefinedNames.get(i), newModel.getEntity(entityBlocks.size() + i));
+		}
+		this.undefinedEntityMap = newUndefinedEntityMap;
+		for (int i = 0; i < relBlocks.size(); i++) {
+			relBlocks.get(i).modelRel = newModel.getRelationship(i);
+		}
+		
+		return newModel;
+	}
+	
+	//assemble the model from the specified blocks which have no errors
+	//(this is used for the blocks before an edit, whose results aren't in the index.)
+	private static Model assembleModel(List<Block> blocks) {
+		
+		final ModelAssembler assembler = new ModelAssembler();
+		for (Block block : blocks) {
+			switch (block.lineType) {
+				case GLOBAL_OPTIONS: {
+					assembler.addOptions(block.optionsParser);
+					break;
+				}
+				case ENTITY_NAME: {
+					assembler.addEntity(block.entityParser.getEntity(), block.getNameLine());
+					break;
+				}
+				case RELATIONSHIP: {
+					assembler.addRelationship(block.relParser.getRelationship());
+					break;
+				}
+				default: {
+					assert false : "unexpected block: " + block.lineType;
+				}
+			}
+		}
+		
+		final List<Exception> exList = assembler.assemble();
+		assert exList.isEmpty() : "the blocks have errors: " + exList;
+		return assembler.getModel();
+	}
+	
+	//private utility method
+	private static LineType judgeLineType(LineData line) {
+		LineTypeParser parser = new LineTypeParser(line);
+		parser.parse();
+		return parser.getLineType();
+	}
+	
+	//private class for an entity block, a relationship line, a global options line,
+	//or a line which can't be grouped, and the result of parsing it.
+	private static final class Block {
+		
+		final LineType lineType;
+		List<LineData> lines = new ArrayList<LineData>();
+		
+		//the index of the first line (the line numbers in the line data may be old)
+		private int firstIndex;
+		
+		EntityParser entityParser;
+		RelationshipParser relParser;
+		OptionListParser optionsParser;
+		ParserException exception;
+		
+		//the elements of this block in the last model (the ids have been allocated)
+		Entity modelEntity;
+		Relationship modelRel;
+		
+		private final ModelInternPool pool;
+		
+		Block(LineType lineType, LineData firstLine, ModelInternPool pool) {
+			this.lineType = lineType;
+			this.pool = pool;
+			this.lines.add(firstLine);
+			this.firstIndex = firstLine.getLineNumber() - 1;
+		}
+		
+		int getFirstIndex() {
+			return this.firstIndex;
+		}
+		
+		//the entity name line with the current line number
+		LineData getNameLine() {
+			final LineData line = this.lines.get(0);
+			if (line.getLineNumber() == this.firstIndex + 1) {
+				return line;
+			}
+			return new LineData(this.firstIndex + 1, line.getLineText());
+		}
+		
+		//the entity of this block in the model, which is dependent if the specified flag is true,
+		//or the entity has a primary foreign key. the entity in the last model is reused if possible.
+		Entity getModelEntity(boolean dependent) {
+			final Entity entity = this.entityParser.getEntity();
+			final boolean modelDependent = dependent || entity.getDependency() == Dependency.DEPENDENT
+					|| ModelAssembler.hasPrimaryForeignKey(entity);
+			
+			if (this.modelEntity != null 
+					&& (this.modelEntity.getDependency() == Dependency.DEPENDENT) == modelDependent) {
+				return this.modelEntity;
+			}
+			return modelDependent ? entity.getDependentEntity() : entity;
+		}
+		
+		//the relationship of this block in the model. the relationship in the last model is reused.
+		Relationship getModelRelationship() {
+			if (this.modelRel != null) {
+				return this.modelRel;
+			}
+			return this.relParser.getRelationship();
+		}
+		
+		void parse() {
+			final LineData line = this.lines.get(0);
+			this.exception = null;
+			
+			try {
+				switch (this.lineType) {
+					case UNKNOWN: {
+						throw createException(line, Message.ERR_UNKNOWN_LINE_TYPE);
+					}
+					case ENTITY_ATTRIBUTE: {
+						throw createException(line, Message.ERR_ENTITY_LINES_NOT_OPEND);
+					}
+					case GLOBAL_OPTIONS: {
+						final String optionsText = removeEnclosingBrackets(line.getLineText(), CURLY);
+						this.optionsParser = new OptionListParser(optionsText, line);
+						ModelAssembler.checkOptions(this.optionsParser);
+						break;
+					}
+					case ENTITY_NAME: {
+						this.entityParser = new EntityParser(this.lines, this.pool);
+						this.entityParser.parse();
+						break;
+					}
+					case RELATIONSHIP: {
+						this.relParser = new RelationshipParser(this.lines, this.pool);
+						this.relParser.parse();
+						break;
+					}
+					default: {
+						assert false : "unexpected block: " + this.lineType;
+					}
+				}
+			} catch (ParserException ex) {
+				this.exception = ex;
+			}
+		}
+		
+		//move this block by the specified number of lines.
+		//if an error has occured, the block is parsed again for the current line numbers.
+		void shift(int delta) {
+			this.firstIndex += delta;
+			
+			if (this.exception == null) {
+				return;
+			}
+			
+			final int d = this.firstIndex + 1 - this.lines.get(0).getLineNumber();
+			final List<LineData> shiftedLines = new ArrayList<LineData>();
+			for (LineData line : this.lines) {
+				shiftedLines.add(new LineData(line.getLineNumber() + d, line.getLineText()));
+			}
+			this.lines = shiftedLines;
+			parse();
+		}
+		
+		//private utility method to create exception
+		private ParserException createException(LineData line, Message message, Object... params) {
+			final String description = message.getText(params);
+			return ParserException.create(description, line);
+		}
+		
+	}
+	
+	//private class for the view of the lines after an edit, which isn't applied yet
+	private static final class EditedLines extends AbstractList<CharSequence> {
+		
+		private final List<CharSequence> lines;
+		private final int fromIndex;
+		private final int toIndex;
+		private final List<? extends CharSequence> newLines;
+		
+		EditedLines(List<CharSequence> lines, int fromIndex, int toIndex, List<? extends CharSequence> newLines) {
+			this.lines = lines;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+			this.newLines = newLines;
+		}
+		
+		@Override
+		public CharSequence get(int index) {
+			if (index < this.fromIndex) {
+				return this.lines.get(index);
+			}
+			final int newIndex = index - this.fromIndex;
+			if (newIndex < this.newLines.size()) {
+				return this.newLines.get(newIndex);
+			}
+			return this.lines.get(this.toIndex + newIndex - this.newLines.size());
+		}
+		
+		@Override
+		public int size() {
+			return this.lines.size() - (this.toIndex - this.fromIndex) + this.newLines.size();
+		}
+	}
+	
+	//private class for the results of the checks across blocks.
+	//the blocks are added and removed one by one, and the errors are reported in the same way
+	//as ModelAssembler reports them for all blocks. (see ModelAssembler#assemble())
+	private static final class BlockIndex {
+		
+		//the order of the blocks in the lines
+		private static final Comparator<Block> LINE_ORDER = new Comparator<Block>() {
+			public int compare(Block b1, Block b2) {
+				final int i1 = b1.getFirstIndex();
+				final int i2 = b2.getFirstIndex();
+				return (i1 < i2) ? -1 : ((i1 == i2) ? 0 : 1);
+			}
+		};
+		
+		//the blocks which have errors
+		private final Set<Block> errorBlocks = Collections.newSetFromMap(new IdentityHashMap<Block, Boolean>());
+		private int ungroupedCount = 0; //the lines which can't be grouped
+		private int optionErrorCount = 0;
+		
+		//the entity blocks which have no errors for each entity name, in the order of the lines
+		private final Map<String, List<Block>> entityMap = new HashMap<String, List<Block>>();
+		private final Set<String> duplicateNames = new HashSet<String>();
+		
+		//the relationship blocks which have no errors for each entity name, in the order of the lines,
+		//and the number of the identifying relationships in which the entity is dependent
+		private final Map<String, List<Block>> refMap = new HashMap<String, List<Block>>();
+		private final Map<String, Integer> dependentCountMap = new HashMap<String, Integer>();
+		private final Set<String> undefinedNames = new HashSet<String>();
+		
+		void clear() {
+			this.errorBlocks.clear();
+			this.ungroupedCount = 0;
+			this.optionErrorCount = 0;
+			this.entityMap.clear();
+			this.duplicateNames.clear();
+			this.refMap.clear();
+			this.dependentCountMap.clear();
+			this.undefinedNames.clear();
+		}
+		
+		void add(Block block) {
+			if (block.exception != null) {
+				this.errorBlocks.add(block);
+				countError(block, 1);
+			} else if (block.lineType == LineType.ENTITY_NAME) {
+				final String name = block.entityParser.getEntity().getName();
+				final List<Block> list = addToList(this.entityMap, name, block);
+				if (list.size() > 1) {
+					this.duplicateNames.add(name);
+				}
+				updateUndefined(name);
+			} else if (block.lineType == LineType.RELATIONSHIP) {
+				final Relationship rel = block.relParser.getRelationship();
+				addReference(rel.getNameOfEntity1(), block, isDependent(rel, 1), 1);
+				addReference(rel.getNameOfEntity2(), block, isDependent(rel, 2), 1);
+			}
+		}
+		
+		void remove(Block block) {
+			if (block.exception != null) {
+				this.errorBlocks.remove(block);
+				countError(block, -1);
+			} else if (block.lineType == LineType.ENTITY_NAME) {
+				final String name = block.entityParser.getEntity().getName();
+				final List<Block> list = removeFromList(this.entityMap, name, block);
+				if (list.size() <= 1) {
+					this.duplicateNames.remove(name);
+				}
+				updateUndefined(name);
+			} else if (block.lineType == LineType.RELATIONSHIP) {
+				final Relationship rel = block.relParser.getRelationship();
+				addReference(rel.getNameOfEntity1(), block, isDependent(rel, 1), -1);
+				addReference(rel.getNameOfEntity2(), block, isDependent(rel, 2), -1);
+			}
+		}
+		
+		//true if the entity is dependent in an identifying relationship
+		boolean isDependent(String name) {
+			return this.dependentCountMap.containsKey(name);
+		}
+		
+		//the entity names which are referred in relationships but not defined,
+		//in the order of their first references (the order in which ModelAssembler adds them)
+		List<String> getUndefinedNames() {
+			final List<String> list = new ArrayList<String>(this.undefinedNames);
+			Collections.sort(list, new Comparator<String>() {
+				public int compare(String name1, String name2) {
+					final int order1 = getFirstReferenceOrder(name1);
+					final int order2 = getFirstReferenceOrder(name2);
+					final Block block1 = BlockIndex.this.refMap.get(name1).get(0);
+					final Block block2 = BlockIndex.this.refMap.get(name2).get(0);
+					final int c = LINE_ORDER.compare(block1, block2);
+					return (c != 0) ? c : (order1 - order2);
+				}
+			});
+			return list;
+		}
+		
+		//1 if the first reference of the name is the first entity of the relationship, otherwise 2
+		private int getFirstReferenceOrder(String name) {
+			final Relationship rel = this.refMap.get(name).get(0).relParser.getRelationship();
+			return rel.getNameOfEntity1().equals(name) ? 1 : 2;
+		}
+		
+		//add or remove (delta = -1) a reference of an entity name in a relationship
+		private void addReference(String name, Block block, boolean dependent, int delta) {
+			if (delta > 0) {
+				addToList(this.refMap, name, block);
+			} else {
+				removeFromList(this.refMap, name, block);
+			}
+			
+			if (dependent) {
+				final Integer count = this.dependentCountMap.get(name);
+				final int newCount = ((count != null) ? count : 0) + delta;
+				if (newCount > 0) {
+					this.dependentCountMap.put(name, newCount);
+				} else {
+					this.dependentCountMap.remove(name);
+				}
+			}
+			updateUndefined(name);
+		}
+		
+		private void updateUndefined(String name) {
+			if (this.refMap.containsKey(name) && !this.entityMap.containsKey(name)) {
+				this.undefinedNames.add(name);
+			} else {
+				this.undefinedNames.remove(name);
+			}
+		}
+		
+		//the entity of the relationship (1 or 2) is dependent in the identifying relationship
+		private static boolean isDependent(Relationship rel, int entity) {
+			final Dependency dependency = (entity == 1) ? rel.getDependencyOfEntity1() : rel.getDependencyOfEntity2();
+			return rel.getRelType() == RelationshipType.IDENTIFYING && dependency == Dependency.DEPENDENT;
+		}
+		
+		//add the block to the list of the key in the order of the lines
+		//(the blocks after the edit have been shifted, so the indices are in the current lines.)
+		private static List<Block> addToList(Map<String, List<Block>> map, String key, Block block) {
+			List<Block> list = map.get(key);
+			if (list == null) {
+				list = new ArrayList<Block>(1);
+				map.put(key, list);
+			}
+			
+			int i = list.size();
+			while (i > 0 && list.get(i - 1).getFirstIndex() > block.getFirstIndex()) {
+				i--;
+			}
+			list.add(i, block);
+			return list;
+		}
+		
+		//remove the block from the list of the key (the key is removed if the list is empty)
+		private static List<Block> removeFromList(Map<String, List<Block>> map, String key, Block block) {
+			final List<Block> list = map.get(key);
+			for (int i = 0; i < list.size(); i++) {
+				if (list.get(i) == block) {
+					list.remove(i);
+					break;
+				}
+			}
+			if (list.isEmpty()) {
+				map.remove(key);
+			}
+			return list;
+		}
+		
+		//the errors of the current blocks
+		List<Exception> getExceptions() {
+			final List<Exception> exList = new ArrayList<Exception>();
+			if (this.errorBlocks.isEmpty() && this.duplicateNames.isEmpty()) {
+				return exList;
+			}
+			
+			//the first line which can't be grouped
+			if (this.ungroupedCount > 0) {
+				final List<Block> list = getErrorBlocks(LineType.UNKNOWN, LineType.ENTITY_ATTRIBUTE);
+				exList.add(list.get(0).exception);
+				return exList;
+			}
+			
+			//invalid options
+			if (this.optionErrorCount > 0) {
+				for (Block block : getErrorBlocks(LineType.GLOBAL_OPTIONS)) {
+					exList.add(block.exception);
+				}
+				return exList;
+			}
+			
+			//invalid entities (the first entity of a name is valid, and the rest are duplications)
+			final List<Block> entityBlocks = getErrorBlocks(LineType.ENTITY_NAME);
+			for (String name : this.duplicateNames) {
+				final List<Block> list = this.entityMap.get(name);
+				entityBlocks.addAll(list.subList(1, list.size()));
+			}
+			Collections.sort(entityBlocks, LINE_ORDER);
+			for (Block block : entityBlocks) {
+				if (block.exception != null) {
+					exList.add(block.exception);
+				} else {
+					final String name = block.entityParser.getEntity().getName();
+					exList.add(ParserException.create(
+							Message.ERR_ENTITY_NAME_DUP.getText(name), block.getNameLine()));
+				}
+			}
+			if (!exList.isEmpty()) {
+				return exList;
+			}
+			
+			//invalid relationships
+			for (Block block : getErrorBlocks(LineType.RELATIONSHIP)) {
+				exList.add(block.exception);
+			}
+			return exList;
+		}
+		
+		private void countError(Block block, int delta) {
+			switch (block.lineType) {
+				case UNKNOWN:
+				case ENTITY_ATTRIBUTE: {
+					this.ungroupedCount += delta;
+					break;
+				}
+				case GLOBAL_OPTIONS: {
+					this.optionErrorCount += delta;
+					break;
+				}
+				default: {
+					break;
+				}
+			}
+		}
+		
+		//the blocks which have errors and the specified line types, in the order of the lines
+		private List<Block> getErrorBlocks(LineType... lineTypes) {
+			final List<Block> list = new ArrayList<Block>();
+			for (Block block : this.errorBlocks) {
+				for (LineType lineType : lineTypes) {
+					if (block.lineType == lineType) {
+						list.add(block);
+					}
+				}
+			}
+			Collections.sort(list, LINE_ORDER);
+			return list;
+		}
+	}
+	
+}
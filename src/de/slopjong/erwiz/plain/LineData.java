@@ -9,23 +9,32 @@ package de.slopjong.erwiz.plain;
  * <li>line text
  * </ul>
  * 
+ * The line text is split into tokens at most once, and the tokens are shared
+ * by all parsers which parse the line. See {@code getLexer()}.
+ * 
+ * The line text can be a view of a shared document buffer (e.g. a {@code CharBuffer}).
+ * The text is not copied into a {@code String} unless {@code getLineText()} is called,
+ * and the lexer and its tokens work on offsets in the view.
+ * 
  * @author kono
  * @version 1.0
  */
 final class LineData {
 	
 	private int lineNumber;
+	private CharSequence text;
 	private String lineText;
+	private LineLexer lexer;
 	
 	/**
 	 * Construct an object of this class.
 	 * 
 	 * @param lineNumber line number
-	 * @param lineText line number
+	 * @param lineText line text (a {@code String} or a view of a buffer)
 	 */
-	LineData(int lineNumber, String lineText) {
+	LineData(int lineNumber, CharSequence lineText) {
 		this.lineNumber = lineNumber;
-		this.lineText = ((lineText != null) ? lineText : "");
+		this.text = ((lineText != null) ? lineText : "");
 	}
 	
 	/**
@@ -43,6 +52,24 @@ final class LineData {
 	 * @return line text
 	 */
 	String getLineText() {
-		return lineText;
+		if (this.lineText == null) {
+			this.lineText = this.text.toString();
+		}
+		return this.lineText;
+	}
+	
+	/**
+	 * Returns the lexer which has split the line text into tokens.
+	 * The line text is split when this method is called first.
+	 * 
+	 * @return the lexer of the line text
+	 */
+	LineLexer getLexer() {
+		if (this.lexer == null) {
+			final LineLexer l = new LineLexer(this.text);
+			l.lex();
+			this.lexer = l;
+		}
+		return this.lexer;
 	}
 }
@@ -0,0 +1,259 @@
+package de.slopjong.erwiz.plain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static de.slopjong.erwiz.plain.PackageConstants.COMMENT_HEAD_CHAR;
+
+/**
+ * This class splits a line text into tokens.
+ * 
+ * Usage:
+ * 
+ * <ol>
+ *   <li>Creates an object of this class with the target text.
+ *   <li>Split it by calling {@code lex()}.
+ *   <li>Retrieve the tokens by calling getter methods.
+ * </ol>
+ * 
+ * The line text is scanned only once. While scanning, this class does the following works
+ * at the same time:
+ * 
+ * <ul>
+ *   <li>It neglects the characters which are enclosed by double quotations.
+ *   <li>It removes the comment which starts with the comment head character.
+ *   <li>It splits the line into bracket tokens and text tokens. The brackets are 
+ *      square, round, angle and curly brackets. Nested brackets are not supported,
+ *      so a bracket token ends at the first right bracket corresponding to its left bracket.
+ * </ul>
+ * 
+ * The line text is trimmed before scanning, and the text after removing comment
+ * is also trimmed. If a text token exists between bracket tokens, it is kept
+ * as a token, therefore the tokens cover the whole line text without comment.
+ * 
+ * The line text is never copied. Trimming only moves the offsets, and 
+ * a string is created only for the text requested by {@code getText()} methods.
+ * 
+ * The tokens are shared by {@code LineTypeParser} and the line parsers,
+ * and therefore each line is scanned only once. See {@code LineData#getLexer()}.
+ * 
+ * This class is package private. The instance of this class is used 
+ * by other parser classes internally.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.plain.LineToken
+ * @see de.slopjong.erwiz.plain.LineData
+ */
+final class LineLexer {
+	
+	private static final char QUOTATION_CHAR = '"';
+	
+	//input
+	private final CharSequence text;
+	private final int textStart; //the start of the trimmed text
+	private final int textEnd; //the end of the trimmed text
+	
+	//output
+	private int contentEnd;
+	private final List<LineToken> tokens = new ArrayList<LineToken>();
+	
+	//for internal control
+	private boolean lexed = false;
+	
+	/**
+	 * Constructs an object of this class.
+	 * 
+	 * @param lineText the line text which will be split in {@code lex()} method
+	 * @throws NullPointerException if a null argument is specified
+	 */
+	LineLexer(CharSequence lineText) {
+		if (lineText == null) {
+			throw new NullPointerException();
+		}
+		
+		//trim without creating a temporary string
+		int start = 0;
+		int end = lineText.length();
+		while (start < end && lineText.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && lineText.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		
+		this.text = lineText;
+		this.textStart = start;
+		this.textEnd = end;
+	}
+	
+	/**
+	 * Returns the trimmed line text.
+	 * 
+	 * @return the trimmed line text
+	 */
+	String getText() {
+		return this.text.subSequence(this.textStart, this.textEnd).toString();
+	}
+	
+	/**
+	 * Returns true if the trimmed line text is blank.
+	 * 
+	 * @return true if the trimmed line text is blank
+	 */
+	boolean isBlank() {
+		return this.textStart == this.textEnd;
+	}
+	
+	/**
+	 * Returns the line text whose comment is removed. The result is trimmed.
+	 * This method should be called after calling {@code lex()} method.
+	 * 
+	 * @return the line text whose comment is removed
+	 */
+	String getContent() {
+		return this.text.subSequence(this.textStart, this.contentEnd).toString();
+	}
+	
+	/**
+	 * Returns true if the line text without comment is blank.
+	 * This method should be called after calling {@code lex()} method.
+	 * 
+	 * @return true if the line text without comment is blank
+	 */
+	boolean isContentBlank() {
+		return this.contentEnd == this.textStart;
+	}
+	
+	/**
+	 * Returns true if the line text without comment is enclosed by any pair 
+	 * in the specified pairs of brackets, false otherwise.
+	 * This method should be called after calling {@code lex()} method.
+	 * 
+	 * @param pairs the array of the bracket pairs
+	 * @return true if the line text without comment is enclosed, false otherwise
+	 */
+	boolean isContentEnclosedByAnyBrackets(BracketPair... pairs) {
+		if (this.contentEnd == this.textStart) {
+			return false;
+		}
+		final char first = this.text.charAt(this.textStart);
+		final char last = this.text.charAt(this.contentEnd - 1);
+		for (BracketPair pair : pairs) {
+			if (first == pair.getLeftChar() && last == pair.getRightChar()) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns an unmodifiable list of the tokens.
+	 * This method should be called after calling {@code lex()} method.
+	 * 
+	 * @return the tokens
+	 */
+	List<LineToken> getTokens() {
+		return Collections.unmodifiableList(this.tokens);
+	}
+	
+	/**
+	 * Returns the text which is covered by the specified range of tokens.
+	 * The result is trimmed. If the range is empty, this method returns a blank text.
+	 * Indices out of the token list are neglected.
+	 * 
+	 * @param fromIndex the index of the first token (inclusive)
+	 * @param toIndex the index of the last token (exclusive)
+	 * @return the text which is covered by the tokens
+	 */
+	String getText(int fromIndex, int toIndex) {
+		fromIndex = Math.max(fromIndex, 0);
+		toIndex = Math.min(toIndex, this.tokens.size());
+		if (fromIndex >= toIndex) {
+			return "";
+		}
+		
+		int start = this.tokens.get(fromIndex).getStart();
+		int end = this.tokens.get(toIndex - 1).getEnd();
+		
+		//trim without creating a temporary string
+		while (start < end && this.text.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && this.text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (start == end) {
+			return "";
+		}
+		return this.text.subSequence(start, end).toString();
+	}
+	
+	/**
+	 * Splits the line text specified at construction.
+	 * The result will be saved in this object.
+	 */
+	void lex() {
+		
+		if (this.lexed) {
+			return; //this method had been executed.
+		} else {
+			this.lexed = true;
+		}
+		
+		final CharSequence s = this.text;
+		final int length = this.textEnd;
+		final char commentChar = COMMENT_HEAD_CHAR.charAt(0);
+		
+		boolean quoted = false;
+		BracketPair open = null; //the pair of the current bracket token
+		int tokenStart = this.textStart;
+		int end = length;
+		
+		for (int i = this.textStart; i < length; i++) {
+			final char ch = s.charAt(i);
+			
+			if (ch == QUOTATION_CHAR) {
+				quoted = !quoted;
+				continue;
+			}
+			if (quoted) {
+				continue;
+			}
+			
+			if (ch == commentChar) {
+				end = i; //the rest is a comment
+				break;
+			}
+			
+			if (open == null) {
+				final BracketPair pair = BracketPair.findByLeftBracket(ch);
+				if (pair != null) {
+					if (i > tokenStart) {
+						this.tokens.add(new LineToken(s, tokenStart, i, null)); //text before the bracket
+					}
+					open = pair;
+					tokenStart = i;
+				}
+			} else if (ch == open.getRightChar()) {
+				this.tokens.add(new LineToken(s, tokenStart, i + 1, open));
+				open = null;
+				tokenStart = i + 1;
+			}
+		}
+		
+		//neglect spaces before the comment
+		while (end > this.textStart && s.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		this.contentEnd = end;
+		
+		//the last token (text, or a bracket token whose right bracket is not found)
+		if (tokenStart < end) {
+			this.tokens.add(new LineToken(s, tokenStart, end, open));
+		}
+		
+	}
+	
+}
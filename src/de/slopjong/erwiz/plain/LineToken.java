@@ -0,0 +1,115 @@
+package de.slopjong.erwiz.plain;
+
+/**
+ * This class represents a token of a line which is produced by {@code LineLexer}.
+ * 
+ * A token is either a bracket token or a text token. A bracket token starts with 
+ * a left bracket and ends with the corresponding right bracket, but the right bracket
+ * may be missing if the line has no more corresponding right bracket. A text token 
+ * is a text which is positioned between bracket tokens.
+ * 
+ * A token doesn't hold its own text. It holds the offsets in the line text, 
+ * and the text is created only when {@code getText()} is called.
+ * The offsets are the positions in the line text before trimming.
+ * 
+ * This class is immutable.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.plain.LineLexer
+ */
+final class LineToken {
+	
+	private final CharSequence source;
+	private final int start;
+	private final int end;
+	private final BracketPair pair;
+	
+	/**
+	 * Constructs an object of this class.
+	 * 
+	 * @param source the line text which contains this token
+	 * @param start the start offset of this token (inclusive)
+	 * @param end the end offset of this token (exclusive)
+	 * @param pair the bracket pair whose left bracket starts this token, or null for a text token
+	 */
+	LineToken(CharSequence source, int start, int end, BracketPair pair) {
+		this.source = source;
+		this.start = start;
+		this.end = end;
+		this.pair = pair;
+	}
+	
+	/**
+	 * Returns the start offset of this token in the line text.
+	 * 
+	 * @return the start offset (inclusive)
+	 */
+	int getStart() {
+		return this.start;
+	}
+	
+	/**
+	 * Returns the end offset of this token in the line text.
+	 * 
+	 * @return the end offset (exclusive)
+	 */
+	int getEnd() {
+		return this.end;
+	}
+	
+	/**
+	 * Returns the bracket pair whose left bracket starts this token.
+	 * If this token is a text token, this method returns null.
+	 * 
+	 * @return the bracket pair, or null for a text token
+	 */
+	BracketPair getBracketPair() {
+		return this.pair;
+	}
+	
+	/**
+	 * Returns the text of this token.
+	 * 
+	 * @return the text of this token
+	 */
+	String getText() {
+		return this.source.subSequence(this.start, this.end).toString();
+	}
+	
+	/**
+	 * Returns true if this token starts with the any left bracket in
+	 * the specified pairs of brackets, false otherwise.
+	 * 
+	 * @param pairs the array of the bracket pairs
+	 * @return true if this token starts with the any left bracket, false otherwise
+	 */
+	boolean startsWithAnyLeftBracket(BracketPair... pairs) {
+		if (this.pair == null) {
+			return false;
+		}
+		for (BracketPair p : pairs) {
+			if (p == this.pair) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns true if this token is enclosed by any pair in 
+	 * the specified pairs of brackets, false otherwise.
+	 * 
+	 * @param pairs the array of the bracket pairs
+	 * @return true if this token is enclosed, false otherwise
+	 */
+	boolean isEnclosedByAnyBrackets(BracketPair... pairs) {
+		if (!startsWithAnyLeftBracket(pairs)) {
+			return false;
+		}
+		//an unclosed token may end with the right bracket (e.g. it is quoted)
+		return (this.end - this.start >= 2 && 
+				this.source.charAt(this.end - 1) == this.pair.getRightChar());
+	}
+	
+}
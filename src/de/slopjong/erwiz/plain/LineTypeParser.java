@@ -1,17 +1,10 @@
 package de.slopjong.erwiz.plain;
 
-import static de.slopjong.erwiz.plain.BracketPair.ANGLE;
 import static de.slopjong.erwiz.plain.BracketPair.CURLY;
 import static de.slopjong.erwiz.plain.BracketPair.ROUND;
 import static de.slopjong.erwiz.plain.BracketPair.SQUARE;
-import static de.slopjong.erwiz.plain.PackageUtils.isEnclosedByAnyBrackets;
-import static de.slopjong.erwiz.plain.PackageUtils.removeComment;
-import static de.slopjong.erwiz.plain.PackageUtils.split;
-import static de.slopjong.erwiz.plain.PackageUtils.startsWithAnyLeftBracket;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * This class judges the line type.
@@ -51,29 +44,29 @@ final class LineTypeParser {
 	 */
 	void parse() {
 		
-		String lineText = this.line.getLineText().trim();
+		final LineLexer lexer = this.line.getLexer();
 		
 		//blank?
-		if (lineText.equals("")) {
+		if (lexer.isBlank()) {
 			this.lineType = LineType.BLANK;
 			return;
 		}
 		
 		//comment only?
-		lineText = removeComment(lineText).trim();
-		if (lineText.equals("")) {
+		if (lexer.isContentBlank()) {
 			this.lineType = LineType.COMMENT_ONLY;
 			return;
 		}
 		
 		//global options?
-		if (isEnclosedByAnyBrackets(lineText, CURLY)) {
+		if (lexer.isContentEnclosedByAnyBrackets(CURLY)) {
 			this.lineType = LineType.GLOBAL_OPTIONS;
 			return;
 		}
 		
 		//entity attribute?
-		if (!startsWithAnyLeftBracket(lineText, SQUARE, ROUND)) {
+		final List<LineToken> tokens = lexer.getTokens();
+		if (!tokens.get(0).startsWithAnyLeftBracket(SQUARE, ROUND)) {
 			this.lineType = LineType.ENTITY_ATTRIBUTE; //attribute name line doesn't start with a left square/round bracket.
 			return;
 		}
@@ -83,42 +76,15 @@ final class LineTypeParser {
 		// In the following code, judges ENTITY_NAME, RELATIONSHIP, UNKNOWN.
 		//
 		
-		//the local class to count tokens which are enclosed by a pair of brackets
-		class CountMap {
-			private final Map<String, Integer> map = new HashMap<String, Integer>();
-			
-			CountMap() {
-				for (BracketPair b : BracketPair.values()) {
-					this.map.put(b.name(), 0); //initialize
-				}
-			}
-			
-			void add(BracketPair b) {
-				this.map.put(b.name(), this.map.get(b.name()) + 1); //inclement
-			}
-			
-			int cont(BracketPair b) {
-				return this.map.get(b.name());
-			}		
-		}
-		
-		//register the numbers of brackets
-		final List<String> tokens = split(lineText, SQUARE, ROUND, ANGLE, CURLY);
-		final CountMap cm = new CountMap();
-		
-		for (String token : tokens) {
-			INNER_LOOP:
-			for (BracketPair b : BracketPair.values()) {
-				if (isEnclosedByAnyBrackets(token, b)) {
-					cm.add(b);
-					break INNER_LOOP;
-				}
+		//count tokens which are enclosed by a pair of square or round brackets
+		int srCount = 0;
+		for (LineToken token : tokens) {
+			if (token.isEnclosedByAnyBrackets(SQUARE, ROUND)) {
+				srCount++;
 			}
 		}
 		
 		//judge line type
-		final int srCount = cm.cont(SQUARE) + cm.cont(ROUND);
-		
 		switch (srCount) {
 			case 1: {
 				this.lineType = LineType.ENTITY_NAME;
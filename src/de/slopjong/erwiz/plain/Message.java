@@ -75,26 +75,34 @@ enum Message {
 	
 	//constants
 	private static final String RESOURCE_NAME = Message.class.getPackage().getName()+".resources.messages";
-	private static MessageGenerator MESSAGE_GENERATOR;
+	private static volatile MessageGenerator MESSAGE_GENERATOR;
 	
 	/**
 	 * Initialize resource data to generate user messages.
-	 * If error occured, the process is terminated.
+	 * The resource data is loaded only at the first call, so this method can be called
+	 * by multiple threads. The generator isn't modified after it is published.
+	 * 
+	 * @throws IllegalStateException if the resource data can't be loaded
 	 */
-	public static void initialize() {
+	public static synchronized void initialize() {
+		if (MESSAGE_GENERATOR != null) {
+			return;
+		}
+		
 		try {
 			//initialize
-			MESSAGE_GENERATOR = new MessageGenerator();
-			MESSAGE_GENERATOR.setResourceBundle(ResourceUtils.getResourceBundle(RESOURCE_NAME));
-			MESSAGE_GENERATOR.addMessage(APP_NAME, ResourceUtils.readAppNameText());
+			final MessageGenerator generator = new MessageGenerator();
+			generator.setResourceBundle(ResourceUtils.getResourceBundle(RESOURCE_NAME));
+			generator.addMessage(APP_NAME, ResourceUtils.readAppNameText());
 			
 			//validate
 			final EnumSet<Message> es = EnumSet.allOf(Message.class);
-			MESSAGE_GENERATOR.validate(es);
+			generator.validate(es);
+			
+			MESSAGE_GENERATOR = generator;
 			
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.exit(1);
+		} catch (RuntimeException ex) {
+			throw new IllegalStateException("can't load the messages [" + RESOURCE_NAME + "]", ex);
 		}
 	}
 	
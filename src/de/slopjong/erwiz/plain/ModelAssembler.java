@@ -0,0 +1,462 @@
+package de.slopjong.erwiz.plain;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.slopjong.erwiz.model.CompactEntityBuilder;
+import de.slopjong.erwiz.model.Dependency;
+import de.slopjong.erwiz.model.Entity;
+import de.slopjong.erwiz.model.EntityAttribute;
+import de.slopjong.erwiz.model.Model;
+import de.slopjong.erwiz.model.ModelStore;
+import de.slopjong.erwiz.model.ModelStoreException;
+import de.slopjong.erwiz.model.ModelStoreWriter;
+import de.slopjong.erwiz.model.OptionMap;
+import de.slopjong.erwiz.model.Relationship;
+import de.slopjong.erwiz.model.RelationshipType;
+import de.slopjong.erwiz.plain.LineData;
+
+
+/**
+ * This class assembles a {@code Model} object from the results of parsing
+ * entity blocks, relationship lines and global option lines.
+ * 
+ * Usage:
+ * 
+ * <ol>
+ *   <li>Creates an object of this class.
+ *   <li>Add the results of parsing in the order of the lines.
+ *   <li>Assemble the model by calling {@code assemble()}.
+ *   <li>Retrieve the model by calling {@code getModel()}.
+ * </ol>
+ * 
+ * The checks across blocks are done in this class as follows:
+ * 
+ * <ul>
+ *   <li>The duplication of entity names is checked when an entity is added.
+ *   <li>The global options are parsed in {@code assemble()} method.
+ *   <li>The undefined entities in relationships are added automatically.
+ *   <li>The dependency of entities is modified automatically.
+ * </ul>
+ * 
+ * The last two are done in one resolution pass over the relationships and the entities
+ * with a symbol table of entity names, so the cost is linear in the size of the model.
+ * 
+ * The errors are reported in the order of the global options, the entities
+ * and the relationships. If errors are found in one of them, the rest isn't checked.
+ * 
+ * If the assembler is created for a compact model, the attributes of each entity are
+ * stored in the columns of the model when the entity is added (see {@code CompactEntityBuilder}),
+ * so the entities with the lists of attributes aren't kept until the end of parsing.
+ * 
+ * If the assembler is created with a {@code ModelStoreWriter}, the entities and the relationships
+ * are written to the model store when they are added, and only the symbol table of entity names
+ * is kept. The undefined entities and the dependency are resolved in {@code assemble()} method
+ * in the same way, and the model is opened from the store (see {@code ModelStore}).
+ * The writer isn't aborted by this class on errors. An I/O error of the store is reported
+ * as a {@code ModelStoreException} in {@code assemble()} method.
+ * 
+ * This class is package private. The instance of this class is used
+ * by other parser classes internally.
+ * 
+ * @author kono
+ * @version 1.0
+ * @see de.slopjong.erwiz.plain.ModelParser
+ * @see de.slopjong.erwiz.plain.IncrementalModelParser
+ */
+final class ModelAssembler {
+	
+	//constant
+	private static final OptionName[] INVOLVED_OPTION_NAMES = {
+		OptionName.TITLE,
+		OptionName.TITLE_SIZE,
+		OptionName.LINK_FILES
+	};
+	
+	//input
+	private final List<OptionListParser> optionsParserList = new ArrayList<OptionListParser>();
+	
+	//the symbol table from an entity name to the index in the entity list.
+	//this map is used for:
+	//(1)the duplication check of entity names on parsing entities
+	//(2)the existence check of entity names on parsing relationships
+	private final Map<String, Integer> map = new HashMap<String, Integer>();
+	
+	private final List<Entity> entityList = new ArrayList<Entity>();
+	private final List<Relationship> relList = new ArrayList<Relationship>();
+	private final List<Exception> entityExceptionList = new ArrayList<Exception>();
+	private final List<Exception> relExceptionList = new ArrayList<Exception>();
+	
+	//the builder of the compact entities (null if the entities aren't compacted)
+	private final CompactEntityBuilder entityBuilder;
+	
+	//the writer of the model store (null if the model is created in the heap).
+	//the undefined names are kept in the order of the first reference, and the dependent names
+	//are the names which aren't defined when they are dependent in an identifying relationship.
+	private final ModelStoreWriter storeWriter;
+	private final Set<String> undefinedNames = new LinkedHashSet<String>();
+	private final Set<String> dependentNames = new HashSet<String>();
+	private IOException storeException = null;
+	
+	//output
+	private Model model  = new Model();
+	private OptionMap options = new OptionMap(INVOLVED_OPTION_NAMES);
+	private List<Exception> exceptionList = new ArrayList<Exception>();
+	
+	/**
+	 * Constructs an object of this class which creates a model with the lists of attributes.
+	 */
+	ModelAssembler() {
+		this(false);
+	}
+	
+	/**
+	 * Constructs an object of this class.
+	 * 
+	 * @param compact true if the model is the compact model (see {@code Model#compact()})
+	 */
+	ModelAssembler(boolean compact) {
+		this.entityBuilder = compact ? new CompactEntityBuilder() : null;
+		this.storeWriter = null;
+	}
+	
+	/**
+	 * Constructs an object of this class which writes the model to the model store.
+	 * 
+	 * @param writer the writer of the model store
+	 */
+	ModelAssembler(ModelStoreWriter writer) {
+		this.entityBuilder = null;
+		this.storeWriter = writer;
+	}
+	
+	/**
+	 * Adds a parser of global options. The parser is executed in {@code assemble()} method.
+	 * 
+	 * @param parser the parser of global options
+	 */
+	void addOptions(OptionListParser parser) {
+		this.optionsParserList.add(parser);
+	}
+	
+	/**
+	 * Adds an entity. If the name of the entity has been added, an error is recorded.
+	 * 
+	 * @param entity the entity
+	 * @param nameLine the entity name line which is used for the error message
+	 */
+	void addEntity(Entity entity, LineData nameLine) {
+		try {
+			checkEntityDupulication(entity, this.map, nameLine);
+			if (this.storeWriter != null) {
+				this.map.put(entity.getName(), writeEntity(entity));
+				return;
+			}
+			this.map.put(entity.getName(), this.entityList.size());
+			this.entityList.add((this.entityBuilder != null) ? this.entityBuilder.add(entity) : entity);
+		} catch (ParserException ex) {
+			this.entityExceptionList.add(ex);
+		}
+	}
+	
+	/**
+	 * Adds an error which has occured on parsing an entity block.
+	 * 
+	 * @param ex the exception
+	 */
+	void addEntityException(ParserException ex) {
+		this.entityExceptionList.add(ex);
+	}
+	
+	/**
+	 * Adds a relationship.
+	 * 
+	 * @param rel the relationship
+	 */
+	void addRelationship(Relationship rel) {
+		if (this.storeWriter != null) {
+			writeRelationship(rel);
+			return;
+		}
+		this.relList.add(rel);
+	}
+	
+	/**
+	 * Adds an error which has occured on parsing a relationship line.
+	 * 
+	 * @param ex the exception
+	 */
+	void addRelationshipException(ParserException ex) {
+		this.relExceptionList.add(ex);
+	}
+	
+	/**
+	 * Parses global options and completes the model with the added elements.
+	 * 
+	 * @return the list of exceptions which has occured, or an empty list.
+	 */
+	List<Exception> assemble() {
+		
+		for (OptionListParser parser : this.optionsParserList) {
+			try {
+				applyOptions(parser, this.options);
+			} catch (ParserException ex) {
+				this.exceptionList.add(ex);
+			}
+		}
+		
+		//invalid options has found
+		if (this.exceptionList.size() > 0) {
+			return this.exceptionList;
+		}
+		
+		//invalid entities has found
+		if (this.entityExceptionList.size() > 0) {
+			this.exceptionList.addAll(this.entityExceptionList);
+			return this.exceptionList;
+		}
+		
+		//invalid relationship has found
+		if (this.relExceptionList.size() > 0) {
+			this.exceptionList.addAll(this.relExceptionList);
+			return this.exceptionList;
+		}
+		
+		if (this.storeWriter != null) {
+			openStoreModel();
+			return this.exceptionList;
+		}
+		
+		//add undefined entities and modify dependency of entity automatically
+		final int definedCount = this.entityList.size();
+		resolveEntities(this.entityList, this.relList, this.map);
+		
+		if (this.entityBuilder != null) {
+			for (int i = definedCount; i < this.entityList.size(); i++) {
+				this.entityList.set(i, this.entityBuilder.add(this.entityList.get(i)));
+			}
+			this.entityBuilder.finish();
+		}
+		
+		this.model = new Model(this.entityList, this.relList, this.options);
+		return this.exceptionList;
+	}
+	
+	/**
+	 * Parses the global options of the specified parser, and checks the values.
+	 * This method reports the same error as {@code assemble()} for the parser, 
+	 * so the global option lines can be checked one by one.
+	 * 
+	 * @param parser the parser of global options
+	 * @throws ParserException if the global options are invalid
+	 */
+	static void checkOptions(OptionListParser parser) throws ParserException {
+		applyOptions(parser, new OptionMap(INVOLVED_OPTION_NAMES));
+	}
+	
+	/**
+	 * Creates the global options of a model from the parsers of global options.
+	 * The parsers should have been checked by {@code checkOptions()}.
+	 * 
+	 * @param parsers the parsers of global options in the order of the lines
+	 * @return the global options
+	 * @throws ParserException if the global options are invalid
+	 */
+	static OptionMap createGlobalOptions(List<OptionListParser> parsers) throws ParserException {
+		final OptionMap options = new OptionMap(INVOLVED_OPTION_NAMES);
+		for (OptionListParser parser : parsers) {
+			applyOptions(parser, options);
+		}
+		return options;
+	}
+	
+	/**
+	 * Get a {@code Model} object which is created by calling {@code assemble()} method.
+	 * 
+	 * @return a {@code Model} object
+	 */
+	Model getModel() {
+		return this.model;
+	}
+	
+	//parse global options and set the values to the option map
+	//(an invalid value is reported as the error of the line, as the options of entities.)
+	private static void applyOptions(OptionListParser parser, OptionMap options) throws ParserException {
+		parser.parse();
+		
+		for (OptionName optionName : INVOLVED_OPTION_NAMES) {
+			
+			final String optionValue = parser.getOptionValue(optionName.getNameInFiles());
+			try {
+				PackageUtils.setOptionValue(options, optionName, optionValue);
+			} catch (IllegalArgumentException ex) {
+				throw parser.createException(Message.ERR_INVALID_OPTION_VALUE, optionName.name(), optionValue);
+			}
+			
+		}
+	}
+	
+	//write an entity to the store, and retrieve the index (-1 after an I/O error).
+	//an entity which has a primary foreign key is marked as dependent.
+	private int writeEntity(Entity entity) {
+		if (this.storeException != null) {
+			return -1;
+		}
+		try {
+			final int index = this.storeWriter.addEntity(entity);
+			if (entity.getDependency() != Dependency.DEPENDENT && hasPrimaryForeignKey(entity)) {
+				this.storeWriter.setDependent(index);
+			}
+			return index;
+		} catch (IOException ex) {
+			this.storeException = ex;
+			return -1;
+		}
+	}
+	
+	//write a relationship to the store, and resolve the entity names as far as they are defined
+	private void writeRelationship(Relationship rel) {
+		if (this.storeException != null) {
+			return;
+		}
+		try {
+			this.storeWriter.addRelationship(rel);
+		} catch (IOException ex) {
+			this.storeException = ex;
+			return;
+		}
+		
+		final boolean identifying = (rel.getRelType() == RelationshipType.IDENTIFYING);
+		for (int i = 1; i <= 2; i++) {
+			final String name = (i == 1) ? rel.getNameOfEntity1() : rel.getNameOfEntity2();
+			final Dependency dependency = (i == 1) ? rel.getDependencyOfEntity1() : rel.getDependencyOfEntity2();
+			
+			final Integer index = this.map.get(name);
+			if (index == null) {
+				this.undefinedNames.add(name);
+			}
+			if (identifying && dependency == Dependency.DEPENDENT) {
+				if (index != null) {
+					this.storeWriter.setDependent(index);
+				} else {
+					this.dependentNames.add(name);
+				}
+			}
+		}
+	}
+	
+	//add the undefined entities and modify dependency of the entities in the store,
+	//and open the model from the store.
+	//the entity names which are defined after the references are resolved here.
+	private void openStoreModel() {
+		try {
+			if (this.storeException != null) {
+				throw this.storeException;
+			}
+			for (String name : this.undefinedNames) {
+				if (!this.map.containsKey(name)) {
+					this.map.put(name, this.storeWriter.addEntity(createUndefinedEntity(name)));
+				}
+			}
+			for (String name : this.dependentNames) {
+				this.storeWriter.setDependent(this.map.get(name));
+			}
+			this.storeWriter.finish(this.options);
+			this.model = ModelStore.open(this.storeWriter.getFile());
+		} catch (IOException ex) {
+			this.exceptionList.add(new ModelStoreException(this.storeWriter.getFile(), ex));
+		}
+	}
+	
+	//duplication check of entity name
+	private void checkEntityDupulication(Entity entity, Map<String, Integer> map,
+			LineData line) throws ParserException {
+		if (map.containsKey(entity.getName())) {
+			throw createException(line, Message.ERR_ENTITY_NAME_DUP, entity.getName());
+		}
+	}
+	
+	//private utility method to create exception
+	private ParserException createException(LineData line, Message message, Object... params) {
+		final String description = message.getText(params);
+		return ParserException.create(description, line);
+	}
+	
+	//resolution of entity names in relationships (one pass over the relationships)
+	//(1)if an entity name is undefined, add the corresponding entity to the entity list.
+	//(2)if an entity is dependent in an identifying relationship, mark it.
+	//then modify dependency of the entities (one pass over the entities).
+	private void resolveEntities(List<Entity> entityList, List<Relationship> relList, 
+			Map<String, Integer> map) {
+		
+		//the flags are indexed by the index in the entity list
+		boolean[] dependentFlags = new boolean[entityList.size() + relList.size() * 2];
+		
+		for (Relationship rel : relList) {
+			final boolean identifying = (rel.getRelType() == RelationshipType.IDENTIFYING);
+			
+			for (int i = 1; i <= 2; i++) {
+				final String name = (i == 1) ? rel.getNameOfEntity1() : rel.getNameOfEntity2();
+				final Dependency dependency = (i == 1) ? rel.getDependencyOfEntity1() : rel.getDependencyOfEntity2();
+				
+				Integer index = map.get(name);
+				if (index == null) {
+					index = entityList.size();
+					map.put(name, index);
+					entityList.add(createUndefinedEntity(name));
+				}
+				
+				if (identifying && dependency == Dependency.DEPENDENT) {
+					dependentFlags[index] = true;
+				}
+			}
+		}
+		
+		for (int i = 0; i < entityList.size(); i++) {
+			final Entity entity = entityList.get(i);
+			
+			if (entity.getDependency() == Dependency.DEPENDENT) {
+				continue; //dependent is specified by user
+			}
+			
+			//If the entity is dependent in a identifying relationship, or has a primary foreign key,
+			//it must be dependent.
+			if (dependentFlags[i] || hasPrimaryForeignKey(entity)) {
+				entityList.set(i, entity.getDependentEntity());
+			}
+		}
+	}
+	
+	/**
+	 * Creates the entity which is added for an undefined entity name in relationships.
+	 * 
+	 * @param name the entity name
+	 * @return an independent entity without attributes
+	 */
+	static Entity createUndefinedEntity(String name) {
+		return new Entity(name, Dependency.INDEPENDENT, 
+				new ArrayList<EntityAttribute>(), new OptionMap(OptionName.values()));
+	}
+	
+	/**
+	 * Checks whether the entity has a primary foreign key, which makes the entity dependent.
+	 * 
+	 * @param entity the entity
+	 * @return true if an attribute of the entity is the part of the primary key and the foreign key
+	 */
+	static boolean hasPrimaryForeignKey(Entity entity) {
+		for (EntityAttribute attr : entity.getAttributeList()) {
+			if (attr.isPrimaryKey() && attr.isForeignKey()) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+}
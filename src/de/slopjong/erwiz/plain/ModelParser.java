@@ -1,18 +1,23 @@
 package de.slopjong.erwiz.plain;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import de.slopjong.erwiz.model.Dependency;
-import de.slopjong.erwiz.model.Entity;
-import de.slopjong.erwiz.model.EntityAttribute;
 import de.slopjong.erwiz.model.Model;
-import de.slopjong.erwiz.model.OptionMap;
-import de.slopjong.erwiz.model.Relationship;
-import de.slopjong.erwiz.model.RelationshipType;
+import de.slopjong.erwiz.model.ModelInternPool;
+import de.slopjong.erwiz.model.ModelStoreException;
+import de.slopjong.erwiz.model.ModelStoreWriter;
 import de.slopjong.erwiz.plain.LineData;
 
 
@@ -35,48 +40,93 @@ import static de.slopjong.erwiz.plain.PackageUtils.removeEnclosingBrackets;
  * Not that after excection in {@code parse()} method, the return value of 
  * {@code getModel()} will not be ensured.
  * 
+ * The lines can be given as a list or as a {@code Reader}. If a {@code Reader} is given,
+ * the lines are read one by one while parsing. In both cases, each entity block is 
+ * parsed into an {@code Entity} object as soon as the next entity name line or relationship
+ * line arrives, and a relationship line is parsed into a {@code Relationship} object 
+ * as soon as it is read, so the line data isn't kept until the end of parsing.
+ * The reported errors are the same as if all lines were split into blocks first
+ * and then parsed.
+ * 
+ * If the thread count is set to more than 1 by {@code setThreadCount()} method, 
+ * the entity blocks and the relationship lines are parsed in parallel.
+ * The results are merged in the order of the lines, so the created model 
+ * and the order of the reported errors are the same as the sequential parsing.
+ * In this case, the lines are also read in chunks and the line types of 
+ * each chunk are judged in parallel.
+ * 
+ * The created model is the compact model (see {@code Model#compact()}),
+ * whose entity attributes are stored in columns. The attributes of each entity are
+ * added to the columns when the entity is merged, so the model isn't compacted after it is built.
+ * 
+ * If a store file is set by {@code setStoreFile()} method, the entities and the relationships
+ * are written to the model store as soon as they are merged, and the created model is
+ * the model which is opened from the store (see {@code ModelStore}). In this case, only
+ * the entity names are kept in the heap while parsing, so a model which doesn't fit in
+ * the heap can be parsed. The store file is written only if no error has occured.
+ * 
  * @author kono
  * @version 1.0
  * @see de.slopjong.erwiz.plain.EntityParser
  * @see de.slopjong.erwiz.plain.RelationshipParser
+ * @see de.slopjong.erwiz.plain.ModelAssembler
  */
 public final class ModelParser {
 	
 	//constant
-	private static final OptionName[] INVOLVED_OPTION_NAMES = {
-		OptionName.TITLE, 
-		OptionName.TITLE_SIZE, 
-		OptionName.LINK_FILES
-	};
+	//the number of blocks which are parsed by one task in parallel parsing
+	private static final int BLOCKS_PER_TASK = 64;
+	
+	//the number of lines which are judged by one task in parallel parsing
+	private static final int LINES_PER_CHUNK = 4096;
 	
-	//input
-	private final List<LineData> lines = new ArrayList<LineData>();
+	//input (one of them is used)
+	private final List<? extends CharSequence> lines;
+	private final BufferedReader reader;
+	private int threadCount = 1;
+	private File storeFile = null;
 	
 	//output
 	private Model model  = new Model();
-	private OptionMap options = new OptionMap(INVOLVED_OPTION_NAMES);
 	private List<Exception> exceptionList = new ArrayList<Exception>();
 	
-	static {
-		//initialize messages
-		Message.initialize();
-	}
-	
 	/**
 	 * Constructs an object of this class.
 	 * 
+	 * The lines can be views of a shared buffer (for example, {@code CharBuffer} objects).
+	 * The list is not copied, so it should not be modified until {@code parse()} returns.
+	 * 
 	 * @param lines the lines which will be parsed in {@code parse()} method
 	 * @throws NullPointerException if a null argument is specified
+	 * @throws IllegalStateException if the messages can't be loaded
 	 */
-	public ModelParser(List<String> lines) {
+	public ModelParser(List<? extends CharSequence> lines) {
 		if (lines == null) {
 			throw new NullPointerException();
 		}
-		//copy all elements
-		for (int i = 0; i < lines.size(); i++) {
-			LineData ld = new LineData(i + 1, lines.get(i)); //the first line number is 1.
-			this.lines.add(ld);
+		//initialize messages (the error can be caught, and the next call tries again)
+		Message.initialize();
+		this.lines = lines;
+		this.reader = null;
+	}
+	
+	/**
+	 * Constructs an object of this class which reads the lines from the specified reader.
+	 * The lines are read incrementally in {@code parse()} method.
+	 * The reader is not closed by this class.
+	 * 
+	 * @param reader the reader from which the lines will be read in {@code parse()} method
+	 * @throws NullPointerException if a null argument is specified
+	 * @throws IllegalStateException if the messages can't be loaded
+	 */
+	public ModelParser(Reader reader) {
+		if (reader == null) {
+			throw new NullPointerException();
 		}
+		//initialize messages (the error can be caught, and the next call tries again)
+		Message.initialize();
+		this.lines = null;
+		this.reader = (reader instanceof BufferedReader) ? (BufferedReader)reader : new BufferedReader(reader);
 	}
 	
 	/**
@@ -90,26 +140,86 @@ public final class ModelParser {
 	}
 	
 	/**
-	 * Parses the lines which is specified by {@code SetLines} method.
+	 * Sets the number of threads which parse entity blocks and relationship lines.
+	 * The default is 1, which means the blocks are parsed sequentially 
+	 * in the thread calling {@code parse()} method.
+	 * 
+	 * @param threadCount the number of threads
+	 * @throws IllegalArgumentException if the specified number is less than 1
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("the thread count is less than 1: " + threadCount);
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Sets the model store file to which the parsed model is written.
+	 * The default is null, which means the model is created in the heap.
+	 * 
+	 * @param file the model store file, or null
+	 */
+	public void setStoreFile(File file) {
+		this.storeFile = file;
+	}
+	
+	/**
+	 * Parses the lines which is specified at construction.
 	 * The result of parsing will be saved in the object.
 	 * 
-	 * @throws ParserException if parsing error occured.
+	 * If an {@code IOException} occurs while reading the lines, 
+	 * parsing is stopped and the exception is returned in the list.
+	 * An {@code IOException} on writing the model store is returned in the list 
+	 * as a {@code ModelStoreException}.
+	 * 
+	 * @return the list of exceptions which has occured, or an empty list.
 	 */
 	public List<Exception> parse() {
 		
-		//temporary parser lists
-		final List<EntityParser> entityParserList = new ArrayList<EntityParser>();
-		final List<RelationshipParser> relParserList = new ArrayList<RelationshipParser>();
+		//temporary parser list and element collector
 		final List<OptionListParser> optionsParserList = new ArrayList<OptionListParser>();
-		
 		this.exceptionList.clear();
 		
-		createParsers(entityParserList, relParserList, optionsParserList); //1st stage
-		if (!this.exceptionList.isEmpty()) {
-			return this.exceptionList;
+		ModelStoreWriter storeWriter = null;
+		if (this.storeFile != null) {
+			try {
+				storeWriter = new ModelStoreWriter(this.storeFile);
+			} catch (IOException ex) {
+				this.exceptionList.add(new ModelStoreException(this.storeFile, ex));
+				return this.exceptionList;
+			}
 		}
 		
-		createModelElements(entityParserList, relParserList, optionsParserList); //2nd stage
+		final ExecutorService executor = (this.threadCount > 1) ? 
+				Executors.newFixedThreadPool(this.threadCount) : null;
+		final ElementCollector collector = new ElementCollector(executor, storeWriter);
+		
+		try {
+			scanLines(collector, optionsParserList, executor); //1st stage
+			if (this.exceptionList.isEmpty()) {
+				collector.finish();
+			}
+		} catch (IOException ex) {
+			this.exceptionList.add(ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			this.exceptionList.add(ex);
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+		
+		try {
+			if (this.exceptionList.isEmpty()) {
+				createModel(collector.assembler, optionsParserList); //2nd stage
+			}
+		} finally {
+			if (storeWriter != null) {
+				storeWriter.abort(); //the temporary files are deleted (no-op if the store is written)
+			}
+		}
 		return this.exceptionList;
 	}
 	
@@ -122,72 +232,26 @@ public final class ModelParser {
 		return this.model;
 	}
 	
-	//create parsers for all entities and relationships
-	private void createParsers(List<EntityParser> entityParserList, 
-			List<RelationshipParser> relParserList, List<OptionListParser> optionsParserList) {
+	//read all lines and split them into entity blocks and relationship lines.
+	//each block is handed to the collector as soon as it is closed.
+	private void scanLines(ElementCollector collector, List<OptionListParser> optionsParserList, 
+			ExecutorService executor) throws IOException, InterruptedException {
+		
+		final List<LineData> entityLines = new ArrayList<LineData>(); //the lines of the current entity
 		
 		try {
-			List<LineData> entityLines = new ArrayList<LineData>(); //the lines of the current entity
-			
-			for (LineData line : this.lines) {
-
-				switch (judgeLineType(line)) {
-					case UNKNOWN: {
-						throw createException(line, Message.ERR_UNKNOWN_LINE_TYPE);
-					}
-					case BLANK: {
-						continue;
-					}
-					case GLOBAL_OPTIONS: {
-						final String optionsText = removeEnclosingBrackets(line.getLineText(), CURLY);
-						OptionListParser parser = new OptionListParser(optionsText);
-						optionsParserList.add(parser);
-						continue;
-					}
-					case ENTITY_NAME: {
-						//end of entity lines
-						if (!entityLines.isEmpty()) {
-							EntityParser parser = new EntityParser(entityLines);
-							entityParserList.add(parser);
-							entityLines.clear();
-						}
-						
-						//new entity lines
-						entityLines.add(line);
-						continue;
-					}
-					case ENTITY_ATTRIBUTE: {
-						if (entityLines.isEmpty()) {
-							throw createException(line, Message.ERR_ENTITY_LINES_NOT_OPEND);
-						}
-						
-						entityLines.add(line);
-						continue;
-					}
-					case RELATIONSHIP: {
-						//end of entity lines
-						if (!entityLines.isEmpty()) {
-							EntityParser parser = new EntityParser(entityLines);
-							entityParserList.add(parser);
-							entityLines.clear();
-						}
-						
-						//a relationship line
-						List<LineData> lines = createLinesList(line);
-						RelationshipParser parser = new RelationshipParser(lines);
-						relParserList.add(parser);	
-						continue;
-					}
+			if (executor == null) {
+				int lineNumber = 0;
+				for (CharSequence text = readLine(lineNumber); text != null; text = readLine(lineNumber)) {
+					final LineData line = new LineData(++lineNumber, text); //the first line number is 1.
+					scanLine(line, judgeLineType(line), entityLines, collector, optionsParserList);
 				}
-			
+			} else {
+				scanLineChunks(executor, entityLines, collector, optionsParserList);
 			}
 			
 			//end of entity lines
-			if (!entityLines.isEmpty()) {
-				EntityParser parser = new EntityParser(entityLines);
-				entityParserList.add(parser);
-				entityLines.clear();
-			}
+			closeEntityLines(entityLines, collector);
 			
 		} catch (ParserException ex) {
 			this.exceptionList.add(ex);
@@ -195,112 +259,143 @@ public final class ModelParser {
 		}
 	}
 	
-	//execute parsing and create entity objects and relationship objects.
-	private void createModelElements(
-			List<EntityParser> entityParserList, 
-			List<RelationshipParser> relParserList, 
-			List<OptionListParser> optionsParserList) {
+	//read the lines in chunks and judge the line types of the chunks in parallel.
+	//the line type doesn't depend on other lines, so a chunk can end at any line.
+	//the chunks are scanned in the order of the lines, which groups the lines into blocks.
+	private void scanLineChunks(ExecutorService executor, List<LineData> entityLines, 
+			ElementCollector collector, List<OptionListParser> optionsParserList) 
+			throws IOException, InterruptedException, ParserException {
 		
-		for (OptionListParser parser : optionsParserList) {
-			try {
-				parser.parse();
-				
-				for (OptionName optionName : INVOLVED_OPTION_NAMES) {
-					
-					final String optionValue = parser.getOptionValue(optionName.getNameInFiles());
-					PackageUtils.setOptionValue(this.options, optionName, optionValue);
-					
+		final LinkedList<Future<LineChunk>> futureList = new LinkedList<Future<LineChunk>>();
+		final int maxChunks = this.threadCount * 2; //the number of chunks read ahead
+		int lineNumber = 0;
+		boolean eof = false;
+		
+		while (true) {
+			//read ahead
+			while (!eof && futureList.size() < maxChunks) {
+				final LineChunk chunk = new LineChunk();
+				while (chunk.lines.size() < LINES_PER_CHUNK) {
+					final CharSequence text = readLine(lineNumber);
+					if (text == null) {
+						eof = true;
+						break;
+					}
+					chunk.lines.add(new LineData(++lineNumber, text)); //the first line number is 1.
+				}
+				if (!chunk.lines.isEmpty()) {
+					futureList.add(executor.submit(chunk));
 				}
-				
-			} catch (ParserException ex) {
-				this.exceptionList.add(ex);
 			}
-		}
-		
-		//invalid options has found
-		if (this.exceptionList.size() > 0) {
-			return;
-		}
-		
-		//this map is used for:
-		//(1)the duplication check of entity names on parsing entities
-		//(2)the existence check of entity names on parsing relationships
-		Map<String, Entity> map = new HashMap<String, Entity>();
-		
-		List<Entity> entityList = new ArrayList<Entity>();
-		for (EntityParser parser : entityParserList) {
-			try {
-				parser.parse();
-				Entity entity = parser.getEntity();
-				checkEntityDupulication(entity, map, parser.getNameLine());
-				map.put(entity.getName(), entity);
-				entityList.add(entity);
-			} catch (ParserException ex) {
-				this.exceptionList.add(ex);
+			
+			if (futureList.isEmpty()) {
+				return;
+			}
+			
+			final LineChunk chunk = getResult(futureList.removeFirst());
+			for (int i = 0; i < chunk.lines.size(); i++) {
+				scanLine(chunk.lines.get(i), chunk.lineTypes[i], entityLines, collector, optionsParserList);
 			}
 		}
+	}
+	
+	//scan a line with its line type
+	private void scanLine(LineData line, LineType lineType, List<LineData> entityLines, 
+			ElementCollector collector, List<OptionListParser> optionsParserList) 
+			throws ParserException, InterruptedException {
 		
-		//invalid entities has found
-		if (this.exceptionList.size() > 0) {
-			return;
-		}
-		
-		List<Relationship> relList = new ArrayList<Relationship>();
-		for (RelationshipParser parser : relParserList) {
-			try {
-				parser.parse();
-				Relationship rel = parser.getRelationship();
+		switch (lineType) {
+			case UNKNOWN: {
+				throw createException(line, Message.ERR_UNKNOWN_LINE_TYPE);
+			}
+			case BLANK: {
+				return;
+			}
+			case GLOBAL_OPTIONS: {
+				final String optionsText = removeEnclosingBrackets(line.getLineText(), CURLY);
+				OptionListParser parser = new OptionListParser(optionsText, line);
+				optionsParserList.add(parser);
+				return;
+			}
+			case ENTITY_NAME: {
+				//end of entity lines
+				closeEntityLines(entityLines, collector);
 				
-				addUndefinedEntity(rel, map, entityList);
+				//new entity lines
+				entityLines.add(line);
+				return;
+			}
+			case ENTITY_ATTRIBUTE: {
+				if (entityLines.isEmpty()) {
+					throw createException(line, Message.ERR_ENTITY_LINES_NOT_OPEND);
+				}
 				
-				relList.add(rel);
-			} catch (ParserException ex) {
-				this.exceptionList.add(ex);
+				entityLines.add(line);
+				return;
+			}
+			case RELATIONSHIP: {
+				//end of entity lines
+				closeEntityLines(entityLines, collector);
+				
+				//a relationship line
+				collector.addRelationship(new RelationshipParser(createLinesList(line), collector.pool));
+				return;
 			}
 		}
-		
-		//invalid relationship has found
-		if (this.exceptionList.size() > 0) {
-			return;
+	}
+	
+	//hand the entity lines to the collector if any
+	private void closeEntityLines(List<LineData> entityLines, ElementCollector collector) 
+			throws InterruptedException {
+		if (!entityLines.isEmpty()) {
+			collector.addEntity(new EntityParser(entityLines, collector.pool));
+			entityLines.clear();
+		}
+	}
+	
+	//read the next line from the input (null means the end of the input)
+	private CharSequence readLine(int index) throws IOException {
+		if (this.reader != null) {
+			return this.reader.readLine();
+		} else {
+			return (index < this.lines.size()) ? this.lines.get(index) : null;
 		}
+	}
+	
+	//parse global options and complete the model with the collected elements.
+	private void createModel(ModelAssembler assembler, List<OptionListParser> optionsParserList) {
 		
-		//modify dependency of entity automatically
-		SetEntityDependency(entityList, relList);
+		for (OptionListParser parser : optionsParserList) {
+			assembler.addOptions(parser);
+		}
 		
-		this.model = new Model(entityList, relList, options);
+		this.exceptionList.addAll(assembler.assemble());
+		if (this.exceptionList.isEmpty()) {
+			this.model = assembler.getModel();
+		}
 	}
 	
 	//private utility method
-	private LineType judgeLineType(LineData line) {
+	private static LineType judgeLineType(LineData line) {
 		LineTypeParser parser = new LineTypeParser(line);
 		parser.parse();
 		return parser.getLineType();
 	}
 	
-	//duplication check of entity name
-	private void checkEntityDupulication(Entity entity, Map<String, Entity> map, 
-			LineData line) throws ParserException {
-		if (map.containsKey(entity.getName())) {
-			throw createException(line, Message.ERR_ENTITY_NAME_DUP, entity.getName());
-		}
-	}
-	
-	//exsistence check of entity names in a relationship
-	//if undefined, add the corresponding entity to the entity list.
-	private void addUndefinedEntity(Relationship rel, Map<String, Entity> map, List<Entity> entityList) {
-		
-		for (int i = 1; i <= 2; i++) {
-			final String name = (i == 1) ? rel.getNameOfEntity1() : rel.getNameOfEntity2();
-			
-			if (!map.containsKey(name)) {
-				final Entity entity = new Entity(name, Dependency.INDEPENDENT, 
-						new ArrayList<EntityAttribute>(), new OptionMap(OptionName.values()));
-				
-				map.put(name, entity);
-				entityList.add(entity);
+	//private utility method to wait for the result of a task.
+	//an unchecked exception thrown in the task is rethrown.
+	private static <T> T getResult(Future<T> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException ex) {
+			final Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if (cause instanceof Error) {
+				throw (Error)cause;
 			}
+			throw new IllegalStateException(cause);
 		}
-		
 	}
 	
 	//private utility method to create exception
@@ -309,41 +404,144 @@ public final class ModelParser {
 		return ParserException.create(description, line);
 	}
 	
-	//private utility method to set entity dependency
-	private void SetEntityDependency(List<Entity> entityList, List<Relationship> relList) {
-		ENTITY_LOOP:
-		for (int i = 0; i < entityList.size(); i++) {
-			final Entity entity = entityList.get(i);
+	//private class to parse entity blocks and relationship lines as soon as they are closed.
+	//the results are added to the assembler, which reports the errors in the 2nd stage.
+	//if an executor is given, the blocks are parsed by it and merged in the order of the lines.
+	private final class ElementCollector {
+		
+		final ModelAssembler assembler;
+		final ModelInternPool pool = new ModelInternPool(); //shared by the parsers of this model
+		
+		private final ExecutorService executor; //null means sequential parsing
+		private List<Block> pendingBlocks = new ArrayList<Block>();
+		private final LinkedList<Future<List<Block>>> futureList = new LinkedList<Future<List<Block>>>();
+		
+		//the writer is null if the model is created in the heap
+		ElementCollector(ExecutorService executor, ModelStoreWriter storeWriter) {
+			this.executor = executor;
+			this.assembler = (storeWriter != null) ? new ModelAssembler(storeWriter) : new ModelAssembler(true);
+		}
+		
+		void addEntity(EntityParser parser) throws InterruptedException {
+			add(new Block(parser, null));
+		}
+		
+		void addRelationship(RelationshipParser parser) throws InterruptedException {
+			add(new Block(null, parser));
+		}
+		
+		//wait for all blocks to be parsed and merged
+		void finish() throws InterruptedException {
+			if (this.executor != null) {
+				submitPendingBlocks();
+				mergeParsedBlocks(true);
+			}
+		}
+		
+		private void add(Block block) throws InterruptedException {
+			if (this.executor == null) {
+				block.parse();
+				merge(block);
+				return;
+			}
 			
-			if (entity.getDependency() == Dependency.DEPENDENT) {
-				continue; //dependent is specified by user
+			this.pendingBlocks.add(block);
+			if (this.pendingBlocks.size() >= BLOCKS_PER_TASK) {
+				submitPendingBlocks();
+				mergeParsedBlocks(false);
+			}
+		}
+		
+		private void submitPendingBlocks() {
+			if (this.pendingBlocks.isEmpty()) {
+				return;
 			}
 			
-			for (EntityAttribute attr : entity.getAttributeList()) {
-				if (attr.isPrimaryKey() && attr.isForeignKey()) {
-					//If the entity has a primary foreign key, it must be dependent.
-					entityList.set(i, entity.getDependentEntity());
-					continue ENTITY_LOOP;
+			final List<Block> blocks = this.pendingBlocks;
+			this.pendingBlocks = new ArrayList<Block>();
+			
+			Future<List<Block>> future = this.executor.submit(new Callable<List<Block>>() {
+				public List<Block> call() {
+					for (Block block : blocks) {
+						block.parse();
+					}
+					return blocks;
+				}
+			});
+			this.futureList.add(future);
+		}
+		
+		//merge the parsed blocks in the order of submission.
+		//if wait is false, only the leading tasks which have been done are merged.
+		private void mergeParsedBlocks(boolean wait) throws InterruptedException {
+			while (!this.futureList.isEmpty() && (wait || this.futureList.getFirst().isDone())) {
+				final List<Block> blocks = getResult(this.futureList.removeFirst());
+				for (Block block : blocks) {
+					merge(block);
 				}
 			}
-			
-			for (Relationship rel : relList) {
-				if (rel.getRelType() != RelationshipType.IDENTIFYING) {
-					continue;
+		}
+		
+		private void merge(Block block) {
+			if (block.relParser != null) {
+				if (block.exception != null) {
+					this.assembler.addRelationshipException(block.exception);
+				} else {
+					this.assembler.addRelationship(block.relParser.getRelationship());
 				}
-				
-				if (rel.getNameOfEntity1().equals(entity.getName()) && rel.getDependencyOfEntity1() == Dependency.DEPENDENT ||
-						rel.getNameOfEntity2().equals(entity.getName()) && rel.getDependencyOfEntity2() == Dependency.DEPENDENT) {
-					
-					//If the entity is dependent in a identifying relationship, it must be dependent.
-					entityList.set(i, entity.getDependentEntity());
-					continue ENTITY_LOOP;
+			} else {
+				if (block.exception != null) {
+					this.assembler.addEntityException(block.exception);
+				} else {
+					final EntityParser parser = block.entityParser;
+					this.assembler.addEntity(parser.getEntity(), parser.getNameLine());
 				}
 			}
-			
 		}
+		
 	}
 	
+	//private class for an entity block or a relationship line, and the result of parsing it
+	private static final class Block {
+		
+		final EntityParser entityParser;
+		final RelationshipParser relParser;
+		ParserException exception;
+		
+		Block(EntityParser entityParser, RelationshipParser relParser) {
+			this.entityParser = entityParser;
+			this.relParser = relParser;
+		}
+		
+		void parse() {
+			try {
+				if (this.entityParser != null) {
+					this.entityParser.parse();
+				} else {
+					this.relParser.parse();
+				}
+			} catch (ParserException ex) {
+				this.exception = ex;
+			}
+		}
+		
+	}
 	
+	//private class for a chunk of lines, and the line types judged in parallel
+	private static final class LineChunk implements Callable<LineChunk> {
+		
+		final List<LineData> lines = new ArrayList<LineData>(LINES_PER_CHUNK);
+		LineType[] lineTypes;
+		
+		public LineChunk call() {
+			final LineType[] types = new LineType[this.lines.size()];
+			for (int i = 0; i < types.length; i++) {
+				types[i] = judgeLineType(this.lines.get(i));
+			}
+			this.lineTypes = types;
+			return this;
+		}
+		
+	}
 	
 }
@@ -181,8 +181,8 @@ final class OptionListParser {
 		
 	}
 	
-	//private utility method to create exception
-	private ParserException createException(Message message, Object... params) {
+	//utility method to create exception (also used for the errors of the option values)
+	ParserException createException(Message message, Object... params) {
 		final String description = message.getText(params);
 		return ParserException.create(description, this.line);
 	}
@@ -42,6 +42,7 @@ enum OptionName implements OptionInfoHolder {
 	 * The option information which is corresponding to the option name
 	 */
 	private final OptionInfo option;
+	private final String nameInFiles;
 	
 	/**
 	 * Creates an instance of this enum class.
@@ -52,6 +53,7 @@ enum OptionName implements OptionInfoHolder {
 	private OptionName(Class<?> type, Object dflt) {
 		assert (type == dflt.getClass()) : "type unmatched.";
 		this.option = new OptionInfo(this.name(), type, dflt);
+		this.nameInFiles = this.name().toLowerCase().replace('_', '-');
 	}
 	
 	/**
@@ -60,7 +62,7 @@ enum OptionName implements OptionInfoHolder {
 	 * @return the name used in text data files.
 	 */
 	String getNameInFiles() {
-		return this.option.getName().toLowerCase().replace('_', '-');
+		return this.nameInFiles;
 	}
 	
 	/**
@@ -195,91 +195,12 @@ final class PackageUtils {
 	static String removeEnclosingBrackets(String text, BracketPair... pairs) {
 		for (BracketPair pair : pairs) {
 			if (isEnclosedByAnyBrackets(text, pair)) {
-				return text.substring(1, text.length() - 1).trim();
+				return trimmedSubstring(text, 1, text.length() - 1);
 			}
 		}
 		return text;
 	}
 	
-	/**
-	 * <p>Splits the specified text into some fields. The delimiters are specified 
-	 * by the {@code BracketPair} objects, and each element of the result list is 
-	 * enclosed the specified brackets.
-	 * 
-	 * <p>If extra text exists beween fields, it is added the result list.
-	 * An elements of the result list can be a zero-length text.
-	 * 
-	 * @param text the target text
-	 * @param pairs bracket pairs
-	 * @return the result list
-	 * @see de.slopjong.erwiz.plain.BracketPair
-	 */
-	static List<String> split(String text, BracketPair... pairs) {
-		
-		List<String> list = new ArrayList<String>();
-		
-		while (!text.equals("")) {
-			int pos = findFirstLeftBracketPosition(text, pairs);
-			if (pos < 0) { //left bracket not found
-				list.add(text);
-				break;
-			}
-			
-			if (pos > 0) { //some characters before the left bracket
-				list.add(text.substring(0, pos));
-				text = text.substring(pos);
-			}
-			String lch = text.substring(0, 1);
-			BracketPair pair = BracketPair.findByLeftBracket(lch);
-			
-			pos = findFirstRightBracketPosition(text, pair); //only one bracket pair
-			if (pos < 0) { //right bracket not found
-				list.add(text);
-				break;
-			}
-			
-			list.add(text.substring(0, pos + 1));
-			text = text.substring(pos + 1);
-		}
-		
-		return list;
-	}
-	
-	/**
-	 * private utility method
-	 * This method neglects the characters which is enclosed by double quotations.
-	 */
-	private static int findFirstLeftBracketPosition(String text, BracketPair... pairs) {
-		return findFirstBracketPosition(text, 0, pairs);
-	}
-	
-	/**
-	 * private utility method
-	 * This method neglects the characters which is enclosed by double quotations.
-	 */
-	private static int findFirstRightBracketPosition(String text, BracketPair... pairs) {
-		return findFirstBracketPosition(text, 1, pairs);
-	}
-	
-	/**
-	 * private utility method
-	 * This method neglects the characters which is enclosed by double quotations.
-	 */
-	private static int findFirstBracketPosition(String text, int side, BracketPair... pairs) {
-		assert (side == 0 || side == 1) : "side number is invalid [" + side + "]";
-		
-		int pos1 = -1; //-1 means "not found"
-		
-		for (BracketPair pair : pairs) {
-			int pos2 = indexOfWithQuote(text, pair.getStringArray()[side]);
-			if (pos2 >= 0 && (pos1 == -1 || pos2 < pos1)) {
-				pos1 = pos2;
-			}
-		}
-		
-		return pos1;
-	}
-	
 // characters ==================================================================================
 	
 	/**
@@ -330,14 +251,15 @@ final class PackageUtils {
 	 */
 	private static int indexOfWithQuote(String text, String ch) {
 		
+		final char target = ch.charAt(0);
 		boolean quoted = false;
 		
 		for (int i = 0; i < text.length(); i++) {
-			String ch2 = text.substring(i, i + 1);
+			final char ch2 = text.charAt(i);
 			
-			if (!quoted && ch2.equals(ch)) {
+			if (!quoted && ch2 == target) {
 				return i;
-			} else if (ch2.equals("\"")) {
+			} else if (ch2 == '"') {
 				quoted = !quoted;
 			} else {
 				continue;
@@ -358,7 +280,7 @@ final class PackageUtils {
 		if (text.equals("")) {
 			return text;
 		}
-		return text.substring(1, text.length()).trim();
+		return trimmedSubstring(text, 1, text.length());
 	}
 	
 	/**
@@ -372,7 +294,7 @@ final class PackageUtils {
 		if (text.equals("")) {
 			return text;
 		}
-		return text.substring(0, text.length() - 1).trim();
+		return trimmedSubstring(text, 0, text.length() - 1);
 	}
 	
 // quotation ==================================================================================
@@ -418,41 +340,70 @@ final class PackageUtils {
 			return new String[]{};
 		}
 		
-		text = text.trim();
-		
-		if (text.equals("")) {
+		if (isBlank(text)) {
 			return new String[]{};
 		}
 		
+		final char delimiterChar = delimiter.charAt(0);
 		List<String> list = new ArrayList<String>();
-		String temp = "";
+		int start = 0;
 		boolean quote = false;
 		for (int i = 0; i < text.length(); i++) {
-			String ch = text.substring(i, i + 1);
+			final char ch = text.charAt(i);
 			
-			if (ch.equals("\"")) {
+			if (ch == '"') {
 				quote = !quote;
-				temp += ch;
-			} else if (!quote && ch.equals(delimiter)) {
-				list.add(temp.trim());
-				temp = "";
-			} else {
-				temp += ch;
+			} else if (!quote && ch == delimiterChar) {
+				list.add(trimmedSubstring(text, start, i));
+				start = i + 1;
 			}
 		}
-		list.add(temp.trim());
+		list.add(trimmedSubstring(text, start, text.length()));
 		
-		return list.toArray(new String[]{});
+		return list.toArray(new String[list.size()]);
+	}
+	
+	/**
+	 * Private utility method.
+	 * 
+	 * This method works like {@code text.trim().equals("")}, 
+	 * but it doesn't create the trimmed string.
+	 */
+	private static boolean isBlank(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Private utility method.
+	 * 
+	 * This method works like {@code text.substring(start, end).trim()}, 
+	 * but it doesn't create the temporary string before trimming.
+	 */
+	private static String trimmedSubstring(String text, int start, int end) {
+		while (start < end && text.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return text.substring(start, end);
 	}
 	
 // options ==================================================================================
 	
 	/**
 	 * This method sets the option value and the option name to the specified option map.
+	 * A blank value of a number option isn't set, as the option isn't specified.
 	 * 
 	 * @param optionMap the option map in which the optin name and the option value will be set
 	 * @param optionName the option name which has option information
 	 * @param optionValue the option values
+	 * @throws IllegalArgumentException if the value is invalid for the option
 	 */
 	static void setOptionValue(OptionMap optionMap, OptionName optionName, Object optionValue)
 			throws IllegalArgumentException {
@@ -473,11 +424,17 @@ final class PackageUtils {
 			
 		} else if (optionValueType == Integer.class) {
 			
-			optionMap.setInteger(optionName, toInteger((String)optionValue));
+			final Integer value = toInteger((String)optionValue);
+			if (value != null) {
+				optionMap.setInteger(optionName, value);
+			}
 			
 		} else if (optionValueType == Double.class) {
 			
-			optionMap.setDouble(optionName, toDouble((String)optionValue));
+			final Double value = toDouble((String)optionValue);
+			if (value != null) {
+				optionMap.setDouble(optionName, value);
+			}
 			
 		} else if (optionValueType == ColorPair.class) {
 			
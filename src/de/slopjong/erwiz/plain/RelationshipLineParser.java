@@ -6,7 +6,6 @@ import de.slopjong.erwiz.model.CardinalityElement;
 import de.slopjong.erwiz.model.CardinalityWithOptionality;
 import de.slopjong.erwiz.model.Dependency;
 import de.slopjong.erwiz.model.OptionMap;
-import de.slopjong.erwiz.model.VerbDirection;
 import de.slopjong.erwiz.model.VerbPhrase;
 import de.slopjong.erwiz.plain.LineData;
 
@@ -16,10 +15,7 @@ import static de.slopjong.erwiz.plain.BracketPair.CURLY;
 import static de.slopjong.erwiz.plain.BracketPair.ROUND;
 import static de.slopjong.erwiz.plain.BracketPair.SQUARE;
 import static de.slopjong.erwiz.plain.PackageUtils.isEnclosedByAnyBrackets;
-import static de.slopjong.erwiz.plain.PackageUtils.removeComment;
 import static de.slopjong.erwiz.plain.PackageUtils.removeEnclosingBrackets;
-import static de.slopjong.erwiz.plain.PackageUtils.split;
-import static de.slopjong.erwiz.plain.PackageUtils.startsWithAnyLeftBracket;
 
 /**
  * This class represents a text parser which is used for a relationship line.
@@ -91,16 +87,13 @@ import static de.slopjong.erwiz.plain.PackageUtils.startsWithAnyLeftBracket;
  */
 final class RelationshipLineParser {
 	
-	//input
-	private String text;
-	
 	//output
 	private String nameOfEntity1 = "";
 	private Dependency dependencyOfEntity1 = Dependency.NONE;
 	private String nameOfEntity2 = "";
 	private Dependency dependencyOfEntity2 = Dependency.NONE;
 	private CardinalityWithOptionality cwo;
-	private VerbPhrase verbPhrase = new VerbPhrase("", VerbDirection.NONE);
+	private VerbPhrase verbPhrase = VerbPhrase.EMPTY;
 	private OptionMap options = new OptionMap(OptionName.values());
 	
 	//output (for debug or unit test)
@@ -132,7 +125,6 @@ final class RelationshipLineParser {
 		if (line == null) {
 			throw new NullPointerException();
 		}
-		this.text = removeComment(line.getLineText().trim());
 		this.line = line;
 	}
 	
@@ -313,12 +305,13 @@ final class RelationshipLineParser {
 			this.partSplited = true;
 		}
 		
-		List<String> list = split(this.text, SQUARE, ROUND, ANGLE, CURLY);
+		final LineLexer lexer = this.line.getLexer();
+		final List<LineToken> list = lexer.getTokens();
 		
 		//find the first entity part
 		int entity1Index = list.size(); //greater than any index value
 		for (int i = 0; i < list.size(); i++) {
-			if (startsWithAnyLeftBracket(list.get(i), SQUARE, ROUND)) { //check left bracket only
+			if (list.get(i).startsWithAnyLeftBracket(SQUARE, ROUND)) { //check left bracket only
 				entity1Index = i;
 				break;
 			}
@@ -327,7 +320,7 @@ final class RelationshipLineParser {
 		//find the second entity part
 		int entity2Index = list.size(); //greater than any index value
 		for (int i = entity1Index + 1; i < list.size(); i++) {
-			if (startsWithAnyLeftBracket(list.get(i), SQUARE, ROUND)) { //check left bracket only
+			if (list.get(i).startsWithAnyLeftBracket(SQUARE, ROUND)) { //check left bracket only
 				entity2Index = i;
 				break;
 			}
@@ -336,7 +329,7 @@ final class RelationshipLineParser {
 		//find verb phrase part
 		int vpIndex = entity2Index; //same as previous part
 		for (int i = entity2Index + 1; i < list.size(); i++) {
-			if (startsWithAnyLeftBracket(list.get(i), ANGLE)) { //check left bracket only
+			if (list.get(i).startsWithAnyLeftBracket(ANGLE)) { //check left bracket only
 				vpIndex = i;
 				break;
 			}
@@ -345,50 +338,26 @@ final class RelationshipLineParser {
 		//find option part
 		int optionIndex = vpIndex; //same as previous part
 		for (int i = vpIndex + 1; i < list.size(); i++) {
-			if (startsWithAnyLeftBracket(list.get(i), CURLY)) { //check left bracket only
+			if (list.get(i).startsWithAnyLeftBracket(CURLY)) { //check left bracket only
 				optionIndex = i;
 				break;
 			}
 		}
 		
-		//split into parts
-		for (int i = 0; i < list.size(); i++) {
-			final String field = list.get(i);
-			
-			if (i < entity1Index) {
-				this.gap1 += field;
-			} else if (i == entity1Index) {
-				this.entityPart1 += field;
-			} else if (i < entity2Index) {
-				this.cardinalityPart += field;
-			} else if (i == entity2Index) {
-				this.entityPart2 += field;
-			} else if (i < vpIndex) {
-				this.gap4 += field;
-			} else if (i == vpIndex) {
-				this.verbPhrasePart += field;
-			} else if (i < optionIndex) {
-				this.gap5 += field;
-			} else if (i == optionIndex) {
-				this.optionListPart += field;
-			} else {
-				this.gap6 += field;
-			}
-			
+		//split into parts (spaces are neglected)
+		this.gap1 = lexer.getText(0, entity1Index);
+		this.entityPart1 = lexer.getText(entity1Index, entity1Index + 1);
+		this.cardinalityPart = lexer.getText(entity1Index + 1, entity2Index);
+		this.entityPart2 = lexer.getText(entity2Index, entity2Index + 1);
+		this.gap4 = lexer.getText(entity2Index + 1, vpIndex);
+		if (vpIndex > entity2Index) {
+			this.verbPhrasePart = lexer.getText(vpIndex, vpIndex + 1);
 		}
-		
-		//neglect spaces
-		this.gap1 = this.gap1.trim();
-		this.entityPart1 = this.entityPart1.trim();
-		this.gap2 = this.gap2.trim();
-		this.cardinalityPart = this.cardinalityPart.trim();
-		this.gap3 = this.gap3.trim();
-		this.entityPart2 = this.entityPart2.trim();
-		this.gap4 = this.gap4.trim();
-		this.verbPhrasePart = this.verbPhrasePart.trim();
-		this.gap5 = this.gap5.trim();
-		this.optionListPart = this.optionListPart.trim();
-		this.gap6 = this.gap6.trim();
+		this.gap5 = lexer.getText(vpIndex + 1, optionIndex);
+		if (optionIndex > vpIndex) {
+			this.optionListPart = lexer.getText(optionIndex, optionIndex + 1);
+		}
+		this.gap6 = lexer.getText(optionIndex + 1, list.size());
 		
 	}
 	
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.List;
 
 import de.slopjong.erwiz.model.Relationship;
+import de.slopjong.erwiz.model.ModelInternPool;
 import de.slopjong.erwiz.plain.LineData;
 
 
@@ -40,9 +41,11 @@ final class RelationshipParser {
 	
 	//input
 	private final List<LineData> lines = new ArrayList<LineData>();
+	private final ModelInternPool pool;
 	
 	//output
 	private Relationship rel;
+	private RelationshipLineParser lineParser;
 	
 	/**
 	 * Constructs an object of this class.
@@ -51,11 +54,23 @@ final class RelationshipParser {
 	 * @throws NullPointerException if a null argument is specified
 	 */
 	RelationshipParser(List<LineData> lines) {
-		if (lines == null) {
+		this(lines, new ModelInternPool());
+	}
+	
+	/**
+	 * Constructs an object of this class which shares the values with other parsers.
+	 * 
+	 * @param lines the lines which will be parsed in {@code parse()} method
+	 * @param pool the pool of the values of the model
+	 * @throws NullPointerException if a null argument is specified
+	 */
+	RelationshipParser(List<LineData> lines, ModelInternPool pool) {
+		if (lines == null || pool == null) {
 			throw new NullPointerException();
 		}
 		//copy all elements
 		this.lines.addAll(lines);	
+		this.pool = pool;
 	}
 	
 	/**
@@ -72,9 +87,20 @@ final class RelationshipParser {
 	 * Returns the {@code Relationship} object corresponding to the specified line.
 	 * This method should be called after calling {@code parse()} method.
 	 * 
+	 * The object is created at the first call of this method, so the ids of relationships 
+	 * are numbered in the order of the calls even if the parsers run in parallel.
+	 * 
 	 * @return the {@code Relationship} object
 	 */
 	Relationship getRelationship() {
+		if (this.rel == null && this.lineParser != null) {
+			final RelationshipLineParser parser = this.lineParser;
+			this.rel = new Relationship(
+					this.pool.intern(parser.getNameOfEntity1()), parser.getDependecyOfEntity1(),
+					this.pool.intern(parser.getNameOfEntity2()), parser.getDependecyOfEntity2(),
+					this.pool.intern(parser.getCardinality()), this.pool.intern(parser.getVerbPhrase()), 
+					parser.getOptions());
+		}
 		return this.rel;
 	}
 	
@@ -104,10 +130,7 @@ final class RelationshipParser {
 		//parse entity name line
 		RelationshipLineParser parser = new RelationshipLineParser(line);
 		parser.parse();
-		this.rel = new Relationship(
-				parser.getNameOfEntity1(), parser.getDependecyOfEntity1(),
-				parser.getNameOfEntity2(), parser.getDependecyOfEntity2(),
-				parser.getCardinality(), parser.getVerbPhrase(), parser.getOptions());
+		this.lineParser = parser;
 	}
 	
 	//private utility method to create exception
@@ -61,7 +61,7 @@ final class VerbPhraseParser {
 	private String text;
 	
 	//output
-	private VerbPhrase verbPhrase = new VerbPhrase("", VerbDirection.NONE);
+	private VerbPhrase verbPhrase = VerbPhrase.EMPTY;
 	
 	//for exception message
 	private final LineData line;